@@ -1,4 +1,25 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.IntStream;
+
 public class checkPalindrome {
+    /**
+     * Compare code points instead of chars, so a surrogate pair (an emoji for instance) counts as one character.
+     */
+    public static final int CODE_POINTS = 1;
+    /**
+     * Skip everything that is not a letter or digit and compare ignoring case: "A man, a plan, a canal: Panama" passes.
+     */
+    public static final int IGNORE_CASE_AND_PUNCTUATION = 2;
+
+    // Reads 8 bytes of a byte[] as one long, the byte order does not matter as long as both ends use the same
+    private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final long HIGH_BITS = 0x8080808080808080L;
+
     static boolean isPalindrome(String s){
         char[] chars = s.toCharArray();
         int left = 0;
@@ -14,9 +35,219 @@ public class checkPalindrome {
         return true;
     }
 
+    /**
+     * Same check on any CharSequence (String, StringBuilder, CharBuffer over a big text...) without copying it.
+     */
+    public static boolean isPalindrome(CharSequence s, int flags){
+        int left = 0;
+        int right = s.length(); // exclusive
+        if (flags == 0) {
+            while (left < --right) {
+                if (s.charAt(left++) != s.charAt(right)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        boolean codePoints = (flags & CODE_POINTS) != 0;
+        boolean ignore = (flags & IGNORE_CASE_AND_PUNCTUATION) != 0;
+        while (left < right) {
+            int a = codePoints ? Character.codePointAt(s, left) : s.charAt(left);
+            if (ignore && !Character.isLetterOrDigit(a)) {
+                left += Character.charCount(a);
+                continue;
+            }
+            int b = codePoints ? Character.codePointBefore(s, right) : s.charAt(right - 1);
+            if (ignore && !Character.isLetterOrDigit(b)) {
+                right -= Character.charCount(b);
+                continue;
+            }
+            if (a != b && (!ignore || fold(a) != fold(b))) {
+                return false;
+            }
+            left += Character.charCount(a);
+            right -= Character.charCount(b);
+        }
+        return true;
+    }
+
+    private static int fold(int codePoint){
+        return Character.toLowerCase(Character.toUpperCase(codePoint));
+    }
+
+    /**
+     * Latin-1 bytes (one byte per character). Without flags both ends are compared 8 bytes at a time:
+     * the long read at the right end, byte-reversed, must equal the long read at the left end.
+     */
+    public static boolean isPalindromeLatin1(byte[] bytes, int off, int len, int flags){
+        int left = off;
+        int right = off + len;
+        if ((flags & IGNORE_CASE_AND_PUNCTUATION) == 0) {
+            for (; right - left >= 16; left += 8, right -= 8) {
+                if ((long) LONGS.get(bytes, left) != Long.reverseBytes((long) LONGS.get(bytes, right - 8))) {
+                    return false;
+                }
+            }
+            while (left < --right) {
+                if (bytes[left++] != bytes[right]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        while (left < right) {
+            int a = bytes[left] & 0xFF;
+            if (!Character.isLetterOrDigit(a)) {
+                left++;
+                continue;
+            }
+            int b = bytes[right - 1] & 0xFF;
+            if (!Character.isLetterOrDigit(b)) {
+                right--;
+                continue;
+            }
+            if (a != b && fold(a) != fold(b)) {
+                return false;
+            }
+            left++;
+            right--;
+        }
+        return true;
+    }
+
+    /**
+     * Latin-1 bytes between the buffer's position and limit, heap or direct, the position is not moved.
+     */
+    public static boolean isPalindromeLatin1(ByteBuffer buffer, int flags){
+        if (buffer.hasArray()) {
+            return isPalindromeLatin1(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining(), flags);
+        }
+        int left = buffer.position();
+        int right = buffer.limit();
+        if ((flags & IGNORE_CASE_AND_PUNCTUATION) == 0) {
+            for (; right - left >= 16; left += 8, right -= 8) {
+                if (buffer.getLong(left) != Long.reverseBytes(buffer.getLong(right - 8))) {
+                    return false;
+                }
+            }
+            while (left < --right) {
+                if (buffer.get(left++) != buffer.get(right)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        while (left < right) {
+            int a = buffer.get(left) & 0xFF;
+            if (!Character.isLetterOrDigit(a)) {
+                left++;
+                continue;
+            }
+            int b = buffer.get(right - 1) & 0xFF;
+            if (!Character.isLetterOrDigit(b)) {
+                right--;
+                continue;
+            }
+            if (a != b && fold(a) != fold(b)) {
+                return false;
+            }
+            left++;
+            right--;
+        }
+        return true;
+    }
+
+    /**
+     * UTF-8 bytes, compared by code point (a multi-byte character is not a byte palindrome of itself).
+     * Blocks of pure ASCII at both ends are still compared 8 bytes at a time. A malformed byte counts as one character.
+     */
+    public static boolean isPalindromeUtf8(byte[] bytes, int off, int len, int flags){
+        boolean ignore = (flags & IGNORE_CASE_AND_PUNCTUATION) != 0;
+        int left = off;
+        int right = off + len;
+        if (!ignore) {
+            for (; right - left >= 16; left += 8, right -= 8) {
+                long a = (long) LONGS.get(bytes, left);
+                long b = (long) LONGS.get(bytes, right - 8);
+                if (((a | b) & HIGH_BITS) != 0) {
+                    break; // a multi-byte character, decode from here on
+                }
+                if (a != Long.reverseBytes(b)) {
+                    return false;
+                }
+            }
+        }
+        while (left < right) {
+            int widthA = utf8Width(bytes, left, right);
+            int a = utf8Decode(bytes, left, widthA);
+            if (ignore && !Character.isLetterOrDigit(a)) {
+                left += widthA;
+                continue;
+            }
+            int start = right - 1;
+            while (start > left && right - start < 4 && (bytes[start] & 0xC0) == 0x80) {
+                start--;
+            }
+            int widthB = utf8Width(bytes, start, right) == right - start ? right - start : 1;
+            int b = utf8Decode(bytes, right - widthB, widthB);
+            if (ignore && !Character.isLetterOrDigit(b)) {
+                right -= widthB;
+                continue;
+            }
+            if (a != b && (!ignore || fold(a) != fold(b))) {
+                return false;
+            }
+            left += widthA;
+            right -= widthB;
+        }
+        return true;
+    }
+
+    // Length of the well-formed UTF-8 sequence starting at i, or 1 for a malformed byte
+    private static int utf8Width(byte[] bytes, int i, int end){
+        int lead = bytes[i] & 0xFF;
+        int width = lead < 0x80 ? 1 : lead >= 0xC2 && lead < 0xE0 ? 2 : lead >= 0xE0 && lead < 0xF0 ? 3 : lead >= 0xF0 && lead < 0xF5 ? 4 : 1;
+        if (i + width > end) {
+            return 1;
+        }
+        for (int k = 1; k < width; k++) {
+            if ((bytes[i + k] & 0xC0) != 0x80) {
+                return 1;
+            }
+        }
+        return width;
+    }
+
+    // Malformed single bytes decode to a negative value, so they only ever equal the same malformed byte
+    private static int utf8Decode(byte[] bytes, int i, int width){
+        int lead = bytes[i] & 0xFF;
+        switch (width) {
+            case 2: return (lead & 0x1F) << 6 | (bytes[i + 1] & 0x3F);
+            case 3: return (lead & 0x0F) << 12 | (bytes[i + 1] & 0x3F) << 6 | (bytes[i + 2] & 0x3F);
+            case 4: return (lead & 0x07) << 18 | (bytes[i + 1] & 0x3F) << 12 | (bytes[i + 2] & 0x3F) << 6 | (bytes[i + 3] & 0x3F);
+            default: return lead < 0x80 ? lead : -lead;
+        }
+    }
+
+    /**
+     * Checks many strings at once on the common fork/join pool, result i is for string i.
+     */
+    public static boolean[] isPalindromeAll(List<? extends CharSequence> strings, int flags){
+        boolean[] results = new boolean[strings.size()];
+        IntStream.range(0, results.length).parallel().forEach(i -> results[i] = isPalindrome(strings.get(i), flags));
+        return results;
+    }
+
     public static void main (String[] args){
         String s = "hi";
         boolean result = isPalindrome(s);
         System.out.println("Is the string \"" + s + "\" a palindrome? " + result);
+
+        String sentence = "A man, a plan, a canal: Panama";
+        System.out.println("Ignoring case and punctuation, \"" + sentence + "\": " + isPalindrome(sentence, IGNORE_CASE_AND_PUNCTUATION)); // true
+        String emoji = "a😀a";
+        System.out.println("Char by char, a😀a: " + isPalindrome(emoji, 0) + ", by code point: " + isPalindrome(emoji, CODE_POINTS)); // false, true
+        byte[] utf8 = "été".getBytes(StandardCharsets.UTF_8);
+        System.out.println("UTF-8 \"été\": " + isPalindromeUtf8(utf8, 0, utf8.length, 0)); // true
     }
 }
@@ -0,0 +1,85 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * The copy-free palindrome and reverse kernels against checkPalindrome.isPalindrome and reverseString.reverse,
+ * on one large palindrome (the worst case: every character is compared) and on many short strings.
+ * Rates are characters per second, or strings per second for the short-string runs.
+ * Usage: java checkPalindromeBenchmark [length]
+ */
+public class checkPalindromeBenchmark {
+    private interface Kernel {
+        long run();
+    }
+
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 50_000_000;
+        Random random = new Random(16);
+        char[] chars = new char[n];
+        for (int i = 0; i < (n + 1) / 2; i++) {
+            chars[i] = chars[n - 1 - i] = (char) ('a' + random.nextInt(26));
+        }
+        String text = new String(chars);
+        byte[] latin1 = text.getBytes(StandardCharsets.ISO_8859_1);
+        ByteBuffer direct = ByteBuffer.allocateDirect(n).put(latin1).flip();
+        List<String> words = new ArrayList<>();
+        for (int i = 0; i < 1_000_000; i++) {
+            int len = 1 + random.nextInt(16);
+            words.add(random.nextBoolean() ? text.substring(0, len) : text.substring(n - len));
+        }
+
+        for (int round = 0; round < 5; round++) {
+            boolean print = round == 4;
+            time(print, "isPalindrome(String), copies", n, () -> checkPalindrome.isPalindrome(text) ? 1 : 0);
+            time(print, "isPalindrome(CharSequence)", n, () -> checkPalindrome.isPalindrome(text, 0) ? 1 : 0);
+            time(print, "isPalindrome, code points", n, () -> checkPalindrome.isPalindrome(text, checkPalindrome.CODE_POINTS) ? 1 : 0);
+            time(print, "isPalindromeLatin1(byte[])", n, () -> checkPalindrome.isPalindromeLatin1(latin1, 0, n, 0) ? 1 : 0);
+            time(print, "isPalindromeLatin1(direct buffer)", n, () -> checkPalindrome.isPalindromeLatin1(direct, 0) ? 1 : 0);
+            time(print, "isPalindromeUtf8(byte[]), ASCII", n, () -> checkPalindrome.isPalindromeUtf8(latin1, 0, n, 0) ? 1 : 0);
+            time(print, "1M short strings, one by one", words.size(), () -> {
+                long count = 0;
+                for (String word : words) {
+                    count += checkPalindrome.isPalindrome(word) ? 1 : 0;
+                }
+                return count;
+            });
+            time(print, "1M short strings, isPalindromeAll", words.size(), () -> {
+                long count = 0;
+                for (boolean ok : checkPalindrome.isPalindromeAll(words, 0)) {
+                    count += ok ? 1 : 0;
+                }
+                return count;
+            });
+            time(print, "reverse(String), copies", n, () -> reverseString.reverse(text).length());
+            time(print, "StringBuilder.reverse", n, () -> new StringBuilder(text).reverse().length());
+            char[] out = new char[n];
+            time(print, "reverseInto(char[])", n, () -> {
+                reverseString.reverseInto(text, out, 0, false);
+                return out[0];
+            });
+            time(print, "reverseLatin1(byte[]) in place", n, () -> {
+                reverseString.reverseLatin1(latin1, 0, n);
+                return latin1[0];
+            });
+            time(print, "reverseUtf8(byte[]) in place", n, () -> {
+                reverseString.reverseUtf8(latin1, 0, n);
+                return latin1[0];
+            });
+        }
+    }
+
+    private static void time(boolean print, String name, int n, Kernel kernel) {
+        long start = System.nanoTime();
+        long result = kernel.run();
+        long nanos = System.nanoTime() - start;
+        if (result == 0) {
+            throw new IllegalStateException(name + " found no palindrome");
+        }
+        if (print) {
+            System.out.printf("%-36s %8.2f ms  %,8.0f M items/s%n", name, nanos / 1e6, n / (nanos / 1e3));
+        }
+    }
+}
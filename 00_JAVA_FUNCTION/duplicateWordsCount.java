@@ -25,8 +25,10 @@ public class duplicateWordsCount {
         Map<String, Integer> wordCounts = duplicateWordsCounting(input);
 
         // Print the word counts
+        fastOutput out = fastOutput.forClass(duplicateWordsCount.class);
         for (Map.Entry<String, Integer> entry : wordCounts.entrySet()) {
-            System.out.println(entry.getKey() + " - " + entry.getValue());
+            out.print(entry.getKey()).print(" - ").println(entry.getValue());
         }
+        out.flush();
     }
 }
@@ -0,0 +1,222 @@
+import java.io.Closeable;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Console output for classes that print a lot of lines.
+ * <p>
+ * Text and numbers are encoded straight into one reusable byte[]: no String per number, no lock per line.
+ * In BUFFERED mode the buffer goes to a channel (stdout's file descriptor by default) only when it is full or on flush(),
+ * in large writes. In SYSTEM mode every line is handed to System.out, which keeps the old behaviour,
+ * for instance when the output is interleaved with other System.out prints.
+ * <p>
+ * The mode is picked per class with -DfastOutput.&lt;SimpleClassName&gt;=buffered|system, or for all classes with
+ * -DfastOutput=..., and defaults to buffered. Buffered output must be flushed (or closed) before the program ends.
+ */
+public class fastOutput implements Flushable, Closeable {
+    public enum Mode { BUFFERED, SYSTEM }
+
+    private static final int DEFAULT_BUFFER = 1 << 16;
+
+    private final WritableByteChannel channel; // BUFFERED mode
+    private final PrintStream stream;          // SYSTEM mode
+    private final byte[] buffer;
+    private final ByteBuffer wrapped;
+    private final byte[] digits = new byte[20];
+    private int pos;
+
+    public fastOutput(WritableByteChannel channel, int bufferSize) {
+        this(channel, null, bufferSize);
+    }
+
+    private fastOutput(WritableByteChannel channel, PrintStream stream, int bufferSize) {
+        this.channel = channel;
+        this.stream = stream;
+        this.buffer = new byte[Math.max(64, bufferSize)];
+        this.wrapped = ByteBuffer.wrap(buffer);
+    }
+
+    public static fastOutput stdout(Mode mode) {
+        if (mode == Mode.SYSTEM) {
+            return new fastOutput(null, System.out, 1024);
+        }
+        System.out.flush(); // anything already printed must come first
+        return new fastOutput(new FileOutputStream(FileDescriptor.out).getChannel(), null, DEFAULT_BUFFER);
+    }
+
+    public static fastOutput forClass(Class<?> owner) {
+        String mode = System.getProperty("fastOutput." + owner.getSimpleName(), System.getProperty("fastOutput", "buffered"));
+        return stdout(mode.equalsIgnoreCase("system") ? Mode.SYSTEM : Mode.BUFFERED);
+    }
+
+    private void ensure(int bytes) {
+        if (pos + bytes > buffer.length) {
+            drain();
+        }
+    }
+
+    public fastOutput print(CharSequence s) {
+        for (int i = 0, n = s.length(); i < n; i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                if (pos == buffer.length) {
+                    drain();
+                }
+                buffer[pos++] = (byte) c;
+            } else if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(s.charAt(i + 1))) {
+                writeUtf8(Character.toCodePoint(c, s.charAt(++i)));
+            } else {
+                writeUtf8(Character.isSurrogate(c) ? '?' : c);
+            }
+        }
+        return this;
+    }
+
+    public fastOutput print(char c) {
+        if (c < 0x80) {
+            ensure(1);
+            buffer[pos++] = (byte) c;
+        } else {
+            writeUtf8(Character.isSurrogate(c) ? '?' : c);
+        }
+        return this;
+    }
+
+    private void writeUtf8(int cp) {
+        ensure(4);
+        if (cp < 0x800) {
+            buffer[pos++] = (byte) (0xC0 | cp >>> 6);
+        } else if (cp < 0x10000) {
+            buffer[pos++] = (byte) (0xE0 | cp >>> 12);
+            buffer[pos++] = (byte) (0x80 | (cp >>> 6 & 0x3F));
+        } else {
+            buffer[pos++] = (byte) (0xF0 | cp >>> 18);
+            buffer[pos++] = (byte) (0x80 | (cp >>> 12 & 0x3F));
+            buffer[pos++] = (byte) (0x80 | (cp >>> 6 & 0x3F));
+        }
+        buffer[pos++] = (byte) (0x80 | (cp & 0x3F));
+    }
+
+    /**
+     * Decimal digits written straight into the buffer, without Long.toString.
+     */
+    public fastOutput print(long v) {
+        ensure(20);
+        if (v < 0) {
+            buffer[pos++] = '-';
+            if (v == Long.MIN_VALUE) {
+                buffer[pos++] = '9'; // -9223372036854775808 has no positive counterpart, print its first digit here
+                v = -(v + 9_000_000_000_000_000_000L);
+                ensure(19);
+                int d = digits.length;
+                for (int k = 0; k < 18; k++, v /= 10) {
+                    digits[--d] = (byte) ('0' + v % 10);
+                }
+                System.arraycopy(digits, d, buffer, pos, 18);
+                pos += 18;
+                return this;
+            }
+            v = -v;
+        }
+        int d = digits.length;
+        do {
+            digits[--d] = (byte) ('0' + v % 10);
+            v /= 10;
+        } while (v != 0);
+        int len = digits.length - d;
+        System.arraycopy(digits, d, buffer, pos, len);
+        pos += len;
+        return this;
+    }
+
+    public fastOutput print(int v) {
+        return print((long) v);
+    }
+
+    public fastOutput write(byte[] bytes, int off, int len) {
+        if (len > buffer.length) {
+            drain();
+            if (stream != null) {
+                stream.write(bytes, off, len);
+                stream.flush();
+            } else {
+                writeFully(ByteBuffer.wrap(bytes, off, len));
+            }
+            return this;
+        }
+        ensure(len);
+        System.arraycopy(bytes, off, buffer, pos, len);
+        pos += len;
+        return this;
+    }
+
+    public fastOutput println() {
+        ensure(1);
+        buffer[pos++] = '\n';
+        if (stream != null) {
+            drain();
+        }
+        return this;
+    }
+
+    public fastOutput println(CharSequence s) {
+        return print(s).println();
+    }
+
+    public fastOutput println(long v) {
+        return print(v).println();
+    }
+
+    private void drain() {
+        if (pos == 0) {
+            return;
+        }
+        if (stream != null) {
+            stream.write(buffer, 0, pos);
+            stream.flush();
+        } else {
+            wrapped.clear().limit(pos);
+            writeFully(wrapped);
+        }
+        pos = 0;
+    }
+
+    private void writeFully(ByteBuffer bytes) {
+        try {
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void flush() {
+        drain();
+    }
+
+    /**
+     * Flushes. The channel is left open, stdout must stay usable for the rest of the program.
+     */
+    @Override
+    public void close() {
+        drain();
+    }
+
+    public static void main(String[] args) {
+        fastOutput out = forClass(fastOutput.class);
+        out.print("Long.MIN_VALUE = ").println(Long.MIN_VALUE);
+        out.print("Unicode: ").println("héllo 😀");
+        for (int i = 1; i <= 3; i++) {
+            out.print("line ").println(i);
+        }
+        out.flush();
+    }
+}
@@ -1,22 +1,168 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
 /**
  * Given an array of size n-1 containing numbers from 1 to n, find the missing number.
  */
 public class findMissingNumber {
+    private static final int SEGMENT = 1 << 20;
+
     public static int findMissing(int[] arr, int n){
-        // Calculate the expected sum of numbers from 1 to n
-        int expectedSum = n * (n + 1) / 2;
+        // Calculate the expected sum of numbers from 1 to n (in long, n * (n + 1) overflows int above n = 46340)
+        long expectedSum = (long) n * (n + 1) / 2;
         // Calculate the actual sum of the array elements
-        int actualSum = 0;
+        long actualSum = 0;
         for (int num : arr) {
             actualSum += num;
         }
         // The missing number is the difference between expected and actual sum
-        return expectedSum - actualSum;
+        return (int) (expectedSum - actualSum);
+    }
+
+    /**
+     * XOR of 1..n without a loop: the prefix XOR repeats with period 4.
+     */
+    static int xorUpTo(int n){
+        switch (n & 3) {
+            case 0: return n;
+            case 1: return 1;
+            case 2: return n + 1;
+            default: return 0;
+        }
+    }
+
+    /**
+     * XOR kernel: cannot overflow, and four independent accumulators let the CPU (and the JIT's
+     * superword optimisation) work on several elements per cycle.
+     */
+    public static int findMissingXor(int[] arr, int n){
+        return xorUpTo(n) ^ xorRange(arr, 0, arr.length);
+    }
+
+    static int xorRange(int[] arr, int from, int to){
+        int x0 = 0, x1 = 0, x2 = 0, x3 = 0;
+        int i = from;
+        for (; i + 3 < to; i += 4) {
+            x0 ^= arr[i];
+            x1 ^= arr[i + 1];
+            x2 ^= arr[i + 2];
+            x3 ^= arr[i + 3];
+        }
+        for (; i < to; i++) {
+            x0 ^= arr[i];
+        }
+        return x0 ^ x1 ^ x2 ^ x3;
+    }
+
+    /**
+     * Sum kernel with long accumulators, unrolled by four like findMissingXor.
+     */
+    public static int findMissingSum(int[] arr, int n){
+        long s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int i = 0;
+        for (; i + 3 < arr.length; i += 4) {
+            s0 += arr[i];
+            s1 += arr[i + 1];
+            s2 += arr[i + 2];
+            s3 += arr[i + 3];
+        }
+        for (; i < arr.length; i++) {
+            s0 += arr[i];
+        }
+        return (int) ((long) n * (n + 1) / 2 - (s0 + s1 + s2 + s3));
+    }
+
+    /**
+     * XOR over 1M-element segments in parallel on the common fork/join pool.
+     */
+    public static int findMissingParallel(int[] arr, int n){
+        int segments = (int) (((long) arr.length + SEGMENT - 1) / SEGMENT);
+        int x = IntStream.range(0, segments).parallel()
+                .map(s -> xorRange(arr, s * SEGMENT, s * SEGMENT + Math.min(arr.length - s * SEGMENT, SEGMENT)))
+                .reduce(0, (a, b) -> a ^ b);
+        return xorUpTo(n) ^ x;
+    }
+
+    /**
+     * Streaming version: reads big-endian int IDs (as written by DataOutputStream.writeInt) through one 64 KB buffer,
+     * so the IDs never have to be in memory together.
+     */
+    public static int findMissing(ReadableByteChannel channel, int n) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(64 << 10);
+        int x = 0;
+        while (channel.read(buffer) != -1) {
+            buffer.flip();
+            while (buffer.remaining() >= 4) {
+                x ^= buffer.getInt();
+            }
+            buffer.compact();
+        }
+        return xorUpTo(n) ^ x;
+    }
+
+    /**
+     * All k missing numbers from 1..n: one bit per number (n / 8 bytes), then the zero bits are read off word by word.
+     * Values outside 1..n are ignored.
+     */
+    public static int[] findAllMissing(int[] arr, int n){
+        long[] seen = new long[(n >>> 6) + 1];
+        for (int num : arr) {
+            if (num >= 1 && num <= n) {
+                seen[num >>> 6] |= 1L << num;
+            }
+        }
+        return missingBits(seen, n);
+    }
+
+    /**
+     * Streaming form of findAllMissing, reading big-endian int IDs from the channel.
+     */
+    public static int[] findAllMissing(ReadableByteChannel channel, int n) throws IOException {
+        long[] seen = new long[(n >>> 6) + 1];
+        ByteBuffer buffer = ByteBuffer.allocateDirect(64 << 10);
+        while (channel.read(buffer) != -1) {
+            buffer.flip();
+            while (buffer.remaining() >= 4) {
+                int num = buffer.getInt();
+                if (num >= 1 && num <= n) {
+                    seen[num >>> 6] |= 1L << num;
+                }
+            }
+            buffer.compact();
+        }
+        return missingBits(seen, n);
+    }
+
+    private static int[] missingBits(long[] seen, int n){
+        seen[0] |= 1L; // 0 is not part of 1..n
+        int[] missing = new int[16];
+        int count = 0;
+        for (int w = 0; w < seen.length; w++) {
+            long free = ~seen[w];
+            while (free != 0) {
+                int num = (w << 6) + Long.numberOfTrailingZeros(free);
+                if (num > n) {
+                    break;
+                }
+                if (count == missing.length) {
+                    missing = Arrays.copyOf(missing, count << 1);
+                }
+                missing[count++] = num;
+                free &= free - 1;
+            }
+        }
+        return Arrays.copyOf(missing, count);
     }
 
     public static void main(String[] args) {
         int[] arr = {1, 2, 4, 5, 6}; // Example array with missing number 3
         int n = 6; // Size of the array should be n-1, so n is the maximum number
         System.out.println("Missing number: " + findMissing(arr, n)); // Output: Missing number: 3
+        System.out.println("Missing number (xor): " + findMissingXor(arr, n)); // 3
+        System.out.println("Missing number (parallel): " + findMissingParallel(arr, n)); // 3
+        System.out.println("Missing numbers of 1..9: " + Arrays.toString(findAllMissing(new int[]{9, 1, 4, 5, 7, 2}, 9))); // [3, 6, 8]
     }
 }
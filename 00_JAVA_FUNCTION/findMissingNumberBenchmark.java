@@ -0,0 +1,71 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+/**
+ * Compares the findMissingNumber kernels on 1..n with one random number removed.
+ * Usage: java -Xmx2g findMissingNumberBenchmark [n]
+ */
+public class findMissingNumberBenchmark {
+    private interface Kernel {
+        int run(int[] arr, int n) throws IOException;
+    }
+
+    public static void main(String[] args) throws IOException {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 50_000_000;
+        Random random = new Random(5);
+        int missing = 1 + random.nextInt(n);
+        int[] arr = new int[n - 1];
+        for (int i = 1, j = 0; i <= n; i++) {
+            if (i != missing) {
+                arr[j++] = i;
+            }
+        }
+        // Shuffle so the bitmap kernel does not get a sequential access pattern for free
+        for (int i = arr.length - 1; i > 0; i--) {
+            int k = random.nextInt(i + 1);
+            int t = arr[i];
+            arr[i] = arr[k];
+            arr[k] = t;
+        }
+
+        Path file = Files.createTempFile("ids", ".bin");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16))) {
+            for (int id : arr) {
+                out.writeInt(id);
+            }
+        }
+
+        for (int round = 0; round < 3; round++) {
+            boolean print = round == 2;
+            time(print, "scalar loop (findMissing)", arr, n, missing, findMissingNumber::findMissing);
+            time(print, "unrolled long sum", arr, n, missing, findMissingNumber::findMissingSum);
+            time(print, "unrolled xor", arr, n, missing, findMissingNumber::findMissingXor);
+            time(print, "parallel xor", arr, n, missing, findMissingNumber::findMissingParallel);
+            time(print, "bitmap (k missing)", arr, n, missing, (a, m) -> findMissingNumber.findAllMissing(a, m)[0]);
+            time(print, "streaming from file", arr, n, missing, (a, m) -> {
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                    return findMissingNumber.findMissing(channel, m);
+                }
+            });
+        }
+        Files.delete(file);
+    }
+
+    private static void time(boolean print, String name, int[] arr, int n, int missing, Kernel kernel) throws IOException {
+        long start = System.nanoTime();
+        int found = kernel.run(arr, n);
+        long nanos = System.nanoTime() - start;
+        if (found != missing) {
+            throw new IllegalStateException(name + " returned " + found + ", expected " + missing);
+        }
+        if (print) {
+            System.out.printf("%-28s %8.1f ms  %,8.0f M ids/s%n", name, nanos / 1e6, arr.length / (nanos / 1e3));
+        }
+    }
+}
@@ -1,18 +1,125 @@
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
 /**
  * FizzBuzz is a classic programming problem that involves printing numbers from 1 to n.
+ * <p>
+ * java fizzBuzz prints 1..100 as before, java fizzBuzz N streams 1..N to stdout in generated mode.
  */
 public class fizzBuzz {
-    public static void main(String[] args){
+    private static final byte[] FIZZ = "Fizz\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] BUZZ = "Buzz\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] FIZZ_BUZZ = "FizzBuzz\n".getBytes(StandardCharsets.US_ASCII);
+
+    public static void main(String[] args) throws IOException {
+        if (args.length > 0) {
+            System.out.flush();
+            fizzBuzz(Long.parseLong(args[0]), new FileOutputStream(FileDescriptor.out).getChannel());
+            return;
+        }
+        fastOutput out = fastOutput.forClass(fizzBuzz.class);
         for (int i = 1; i<=100; i++){
             if (i % 3 == 0 && i % 5 ==0){
-                System.out.println("FizzBuzz");
+                out.println("FizzBuzz");
             } else if (i % 3 == 0){
-                System.out.println("Fizz");
+                out.println("Fizz");
             } else if (i % 5 == 0 ){
-                System.out.println("Buzz");
+                out.println("Buzz");
             } else {
-                System.out.println(i);
+                out.println(i);
+            }
+        }
+        out.flush();
+    }
+
+    /**
+     * Writes the FizzBuzz lines for 1..n to the channel and returns the number of bytes written.
+     * The pattern repeats every 15 numbers, so the output is generated one block of 15 lines at a time:
+     * the block is kept as a byte template, and the next block is the same template with 15 added to its eight
+     * numbers directly in their ASCII digits. Each block is then one arraycopy into a 1 MB buffer, written when full.
+     * Blocks whose numbers do not all have the same number of digits (around powers of ten) are written line by line.
+     */
+    public static long fizzBuzz(long n, WritableByteChannel channel) throws IOException {
+        byte[] buffer = new byte[1 << 20];
+        ByteBuffer wrapped = ByteBuffer.wrap(buffer);
+        byte[] template = new byte[15 * 21];
+        int[] numberEnds = new int[8]; // where each of the eight numbers of the template ends
+        int templateLength = 0;
+        long templateBase = -1;         // the template holds base + 1 .. base + 15
+        int pos = 0;
+        long written = 0;
+        long i = 0;                     // lines written so far
+        while (i < n) {
+            if (pos > buffer.length - template.length) {
+                wrapped.clear().limit(pos);
+                while (wrapped.hasRemaining()) {
+                    channel.write(wrapped);
+                }
+                written += pos;
+                pos = 0;
             }
+            if (n - i >= 15 && i % 15 == 0 && digits(i + 1) == digits(i + 15)) {
+                if (templateBase == i - 15 && digits(templateBase + 1) == digits(i + 1)) {
+                    for (int end : numberEnds) {
+                        addAscii(template, end, 15);
+                    }
+                } else {
+                    templateLength = 0;
+                    for (int k = 1, slot = 0; k <= 15; k++) {
+                        templateLength = line(template, templateLength, i + k);
+                        if (k % 3 != 0 && k % 5 != 0) {
+                            numberEnds[slot++] = templateLength - 1;
+                        }
+                    }
+                }
+                templateBase = i;
+                System.arraycopy(template, 0, buffer, pos, templateLength);
+                pos += templateLength;
+                i += 15;
+            } else {
+                pos = line(buffer, pos, ++i);
+            }
+        }
+        wrapped.clear().limit(pos);
+        while (wrapped.hasRemaining()) {
+            channel.write(wrapped);
+        }
+        return written + pos;
+    }
+
+    // Writes the FizzBuzz line for i at pos, returns the position after it
+    private static int line(byte[] out, int pos, long i) {
+        byte[] word = i % 15 == 0 ? FIZZ_BUZZ : i % 3 == 0 ? FIZZ : i % 5 == 0 ? BUZZ : null;
+        if (word != null) {
+            System.arraycopy(word, 0, out, pos, word.length);
+            return pos + word.length;
+        }
+        int end = pos + digits(i);
+        for (int p = end - 1; p >= pos; p--, i /= 10) {
+            out[p] = (byte) ('0' + i % 10);
+        }
+        out[end] = '\n';
+        return end + 1;
+    }
+
+    private static int digits(long v) {
+        int d = 1;
+        for (long limit = 10; v >= limit && d < 19; limit *= 10) {
+            d++;
+        }
+        return d;
+    }
+
+    // Adds value to the ASCII number ending just before end, the caller makes sure it keeps its number of digits
+    private static void addAscii(byte[] bytes, int end, int value) {
+        for (int p = end - 1; value != 0; p--) {
+            int digit = bytes[p] - '0' + value;
+            bytes[p] = (byte) ('0' + digit % 10);
+            value = digit / 10;
         }
     }
 }
@@ -0,0 +1,105 @@
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * FizzBuzz 1..n written to a file (/dev/null by default, to measure the producer and not the disk):
+ * the current System.out.println loop, the same loop through fastOutput, and the generated fizzBuzz(n, channel).
+ * System.out is replaced by a PrintStream shaped like the JVM's own stdout: autoflush on every println, 8 KB buffer.
+ * Usage: java fizzBuzzBenchmark [n] [outputFile]
+ */
+public class fizzBuzzBenchmark {
+    public static void main(String[] args) throws IOException {
+        long n = args.length > 0 ? Long.parseLong(args[0]) : 200_000_000L;
+        Path target = Path.of(args.length > 1 ? args[1] : "/dev/null");
+        long lineN = Math.min(n, 10_000_000L);
+        PrintStream console = System.out;
+
+        for (int round = 0; round < 3; round++) {
+            boolean print = round == 2;
+            PrintStream stdout = new PrintStream(new BufferedOutputStream(new FileOutputStream(target.toFile()), 8192), true);
+            System.setOut(stdout);
+            long start = System.nanoTime();
+            for (long i = 1; i <= lineN; i++) {
+                if (i % 3 == 0 && i % 5 == 0) {
+                    System.out.println("FizzBuzz");
+                } else if (i % 3 == 0) {
+                    System.out.println("Fizz");
+                } else if (i % 5 == 0) {
+                    System.out.println("Buzz");
+                } else {
+                    System.out.println(i);
+                }
+            }
+            long printlnNanos = System.nanoTime() - start;
+            System.setOut(console);
+            stdout.close();
+
+            long bytes;
+            try (FileChannel channel = FileChannel.open(target, StandardOpenOption.WRITE)) {
+                fastOutput out = new fastOutput(channel, 1 << 16);
+                start = System.nanoTime();
+                for (long i = 1; i <= lineN; i++) {
+                    if (i % 3 == 0 && i % 5 == 0) {
+                        out.println("FizzBuzz");
+                    } else if (i % 3 == 0) {
+                        out.println("Fizz");
+                    } else if (i % 5 == 0) {
+                        out.println("Buzz");
+                    } else {
+                        out.println(i);
+                    }
+                }
+                out.flush();
+            }
+            long bufferedNanos = System.nanoTime() - start;
+
+            try (FileChannel channel = FileChannel.open(target, StandardOpenOption.WRITE)) {
+                start = System.nanoTime();
+                bytes = fizzBuzz.fizzBuzz(n, channel);
+            }
+            long generatedNanos = System.nanoTime() - start;
+            if (print) {
+                long lineBytes = bytes(lineN);
+                report("System.out.println loop", lineN, lineBytes, printlnNanos);
+                report("fastOutput loop", lineN, lineBytes, bufferedNanos);
+                report("fizzBuzz(n, channel)", n, bytes, generatedNanos);
+            }
+        }
+    }
+
+    private static void report(String name, long lines, long bytes, long nanos) {
+        System.out.printf("%-26s %,14d lines %10.1f ms %10.1f M lines/s %8.2f GB/s%n",
+                name, lines, nanos / 1e6, lines / (nanos / 1e3), bytes / (double) nanos);
+    }
+
+    // Size of the output for 1..n, counted with the same generator into a channel that only counts
+    private static long bytes(long n) throws IOException {
+        long[] total = {0};
+        fizzBuzz.fizzBuzz(n, new WritableByteChannel() {
+            @Override
+            public int write(ByteBuffer src) {
+                int r = src.remaining();
+                total[0] += r;
+                src.position(src.limit());
+                return r;
+            }
+
+            @Override
+            public boolean isOpen() {
+                return true;
+            }
+
+            @Override
+            public void close() {
+            }
+        });
+        return total[0];
+    }
+}
@@ -1,13 +1,25 @@
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 /**
  * Given an array of positive and negative numbers, rearrange them in alternating fashion (positive, negative, positive…) maintaining their original relative order.
  * <p>
  * Approach:
  * Use two auxiliary lists (one for positive, one for negative), then merge alternatively.
+ * <p>
+ * For large arrays there are boxing-free versions for int[], long[] and double[] (0 counts as positive, for doubles
+ * -0.0 does too and NaN counts as negative, exactly as num >= 0 decides):
+ * - rearrangeBuffered: O(n) time, a primitive buffer of the smaller side.
+ * - rearrangeInPlace: O(n log n) time, O(1) extra memory.
+ * - rearrangeParallel: rearrangeInPlace split across the common fork/join pool.
  */
 public class rearrangeAlternating {
+    private static final int SMALL = 64; // partition base case, shifting is cheaper than recursing below this
+    private static final int PARALLEL_THRESHOLD = 1 << 16;
+
     public static void rearrange(int[] arr){
         List<Integer> pos = new ArrayList<>();
         List<Integer> neg = new ArrayList<>();
@@ -36,4 +48,382 @@ public class rearrangeAlternating {
         }
 
     }
+
+    /**
+     * Same result as rearrange, without boxing: the larger side is compacted in place, only the smaller side is copied
+     * to a primitive buffer (at most half the array), then both are spread to their final slots from the back.
+     */
+    public static void rearrangeBuffered(int[] arr){
+        int positives = 0;
+        for (int num : arr) {
+            if (num >= 0) {
+                positives++;
+            }
+        }
+        int negatives = arr.length - positives;
+        boolean bufferNegatives = negatives <= positives;
+        int[] buffer = new int[Math.min(positives, negatives)];
+        int kept = 0, buffered = 0;
+        for (int num : arr) {
+            if ((num >= 0) == bufferNegatives) {
+                arr[kept++] = num;
+            } else {
+                buffer[buffered++] = num;
+            }
+        }
+        int m = buffer.length;
+        int offset = bufferNegatives ? 0 : 1; // kept negatives take the odd slots
+        // Element k of the kept side ends up at or after k, so walking backwards never overwrites one not yet moved
+        for (int k = kept - 1; k >= 0; k--) {
+            arr[k < m ? 2 * k + offset : k + m] = arr[k];
+        }
+        for (int k = 0; k < m; k++) {
+            arr[2 * k + 1 - offset] = buffer[k];
+        }
+    }
+
+    /**
+     * Same result with O(1) extra memory, in O(n log n): a stable partition by merging halves with block rotations,
+     * then an interleave of the two blocks, again by rotations.
+     */
+    public static void rearrangeInPlace(int[] arr){
+        rearrangeInPlace(arr, false);
+    }
+
+    /**
+     * rearrangeInPlace on the common fork/join pool: both halves of every partition and interleave step run in parallel,
+     * and long rotations are split into parallel swap ranges.
+     */
+    public static void rearrangeParallel(int[] arr){
+        ForkJoinPool.commonPool().invoke(ForkJoinTask.adapt(() -> rearrangeInPlace(arr, true)));
+    }
+
+    private static void rearrangeInPlace(int[] a, boolean parallel){
+        int positives = partition(a, 0, a.length, parallel);
+        int negatives = a.length - positives;
+        int m = Math.min(positives, negatives);
+        if (positives > negatives) {
+            rotate(a, m, positives, a.length, parallel); // positives past the m-th go behind the negatives
+        }
+        interleave(a, 0, m, parallel);
+    }
+
+    // Stable partition of a[lo, hi) with non-negatives first, returns the index of the first negative
+    private static int partition(int[] a, int lo, int hi, boolean parallel){
+        if (hi - lo <= SMALL) {
+            int split = lo;
+            for (int i = lo; i < hi; i++) {
+                int v = a[i];
+                if (v >= 0) {
+                    System.arraycopy(a, split, a, split + 1, i - split);
+                    a[split++] = v;
+                }
+            }
+            return split;
+        }
+        int mid = (lo + hi) >>> 1;
+        int leftSplit, rightSplit;
+        if (parallel && hi - lo > PARALLEL_THRESHOLD) {
+            ForkJoinTask<Integer> left = ForkJoinTask.adapt(() -> partition(a, lo, mid, true)).fork();
+            rightSplit = partition(a, mid, hi, true);
+            leftSplit = left.join();
+        } else {
+            leftSplit = partition(a, lo, mid, false);
+            rightSplit = partition(a, mid, hi, false);
+        }
+        // [lo, leftSplit) +, [leftSplit, mid) -, [mid, rightSplit) +, [rightSplit, hi) -: swap the middle blocks
+        rotate(a, leftSplit, mid, rightSplit, parallel);
+        return leftSplit + (rightSplit - mid);
+    }
+
+    // [A B] with |A| = |B| = m becomes a0 b0 a1 b1 ... : split both in halves, rotate A2 B1 into B1 A2, recurse on each half
+    private static void interleave(int[] a, int lo, int m, boolean parallel){
+        if (m <= 1) {
+            return;
+        }
+        int h = m >>> 1;
+        rotate(a, lo + h, lo + m, lo + m + h, parallel);
+        if (parallel && m > PARALLEL_THRESHOLD) {
+            ForkJoinTask<?> left = ForkJoinTask.adapt(() -> interleave(a, lo, h, true)).fork();
+            interleave(a, lo + 2 * h, m - h, true);
+            left.join();
+        } else {
+            interleave(a, lo, h, false);
+            interleave(a, lo + 2 * h, m - h, false);
+        }
+    }
+
+    // Swaps the adjacent blocks a[lo, mid) and a[mid, hi) with three reversals
+    private static void rotate(int[] a, int lo, int mid, int hi, boolean parallel){
+        if (lo == mid || mid == hi) {
+            return;
+        }
+        reverse(a, lo, mid, 0, (mid - lo) >>> 1, parallel);
+        reverse(a, mid, hi, 0, (hi - mid) >>> 1, parallel);
+        reverse(a, lo, hi, 0, (hi - lo) >>> 1, parallel);
+    }
+
+    // Swap i of reversing a[lo, hi) exchanges lo + i and hi - 1 - i, swaps [from, to) are done here
+    private static void reverse(int[] a, int lo, int hi, int from, int to, boolean parallel){
+        if (parallel && to - from > PARALLEL_THRESHOLD) {
+            int mid = (from + to) >>> 1;
+            ForkJoinTask<?> left = ForkJoinTask.adapt(() -> reverse(a, lo, hi, from, mid, true)).fork();
+            reverse(a, lo, hi, mid, to, true);
+            left.join();
+            return;
+        }
+        for (int i = from; i < to; i++) {
+            int t = a[lo + i];
+            a[lo + i] = a[hi - 1 - i];
+            a[hi - 1 - i] = t;
+        }
+    }
+
+    /**
+     * long[] version of rearrangeBuffered(int[]).
+     */
+    public static void rearrangeBuffered(long[] arr){
+        int positives = 0;
+        for (long num : arr) {
+            if (num >= 0) {
+                positives++;
+            }
+        }
+        int negatives = arr.length - positives;
+        boolean bufferNegatives = negatives <= positives;
+        long[] buffer = new long[Math.min(positives, negatives)];
+        int kept = 0, buffered = 0;
+        for (long num : arr) {
+            if ((num >= 0) == bufferNegatives) {
+                arr[kept++] = num;
+            } else {
+                buffer[buffered++] = num;
+            }
+        }
+        int m = buffer.length;
+        int offset = bufferNegatives ? 0 : 1;
+        for (int k = kept - 1; k >= 0; k--) {
+            arr[k < m ? 2 * k + offset : k + m] = arr[k];
+        }
+        for (int k = 0; k < m; k++) {
+            arr[2 * k + 1 - offset] = buffer[k];
+        }
+    }
+
+    /**
+     * long[] version of rearrangeInPlace(int[]).
+     */
+    public static void rearrangeInPlace(long[] arr){
+        rearrangeInPlace(arr, false);
+    }
+
+    /**
+     * long[] version of rearrangeParallel(int[]).
+     */
+    public static void rearrangeParallel(long[] arr){
+        ForkJoinPool.commonPool().invoke(ForkJoinTask.adapt(() -> rearrangeInPlace(arr, true)));
+    }
+
+    private static void rearrangeInPlace(long[] a, boolean parallel){
+        int positives = partition(a, 0, a.length, parallel);
+        int negatives = a.length - positives;
+        int m = Math.min(positives, negatives);
+        if (positives > negatives) {
+            rotate(a, m, positives, a.length, parallel);
+        }
+        interleave(a, 0, m, parallel);
+    }
+
+    private static int partition(long[] a, int lo, int hi, boolean parallel){
+        if (hi - lo <= SMALL) {
+            int split = lo;
+            for (int i = lo; i < hi; i++) {
+                long v = a[i];
+                if (v >= 0) {
+                    System.arraycopy(a, split, a, split + 1, i - split);
+                    a[split++] = v;
+                }
+            }
+            return split;
+        }
+        int mid = (lo + hi) >>> 1;
+        int leftSplit, rightSplit;
+        if (parallel && hi - lo > PARALLEL_THRESHOLD) {
+            ForkJoinTask<Integer> left = ForkJoinTask.adapt(() -> partition(a, lo, mid, true)).fork();
+            rightSplit = partition(a, mid, hi, true);
+            leftSplit = left.join();
+        } else {
+            leftSplit = partition(a, lo, mid, false);
+            rightSplit = partition(a, mid, hi, false);
+        }
+        rotate(a, leftSplit, mid, rightSplit, parallel);
+        return leftSplit + (rightSplit - mid);
+    }
+
+    private static void interleave(long[] a, int lo, int m, boolean parallel){
+        if (m <= 1) {
+            return;
+        }
+        int h = m >>> 1;
+        rotate(a, lo + h, lo + m, lo + m + h, parallel);
+        if (parallel && m > PARALLEL_THRESHOLD) {
+            ForkJoinTask<?> left = ForkJoinTask.adapt(() -> interleave(a, lo, h, true)).fork();
+            interleave(a, lo + 2 * h, m - h, true);
+            left.join();
+        } else {
+            interleave(a, lo, h, false);
+            interleave(a, lo + 2 * h, m - h, false);
+        }
+    }
+
+    private static void rotate(long[] a, int lo, int mid, int hi, boolean parallel){
+        if (lo == mid || mid == hi) {
+            return;
+        }
+        reverse(a, lo, mid, 0, (mid - lo) >>> 1, parallel);
+        reverse(a, mid, hi, 0, (hi - mid) >>> 1, parallel);
+        reverse(a, lo, hi, 0, (hi - lo) >>> 1, parallel);
+    }
+
+    private static void reverse(long[] a, int lo, int hi, int from, int to, boolean parallel){
+        if (parallel && to - from > PARALLEL_THRESHOLD) {
+            int mid = (from + to) >>> 1;
+            ForkJoinTask<?> left = ForkJoinTask.adapt(() -> reverse(a, lo, hi, from, mid, true)).fork();
+            reverse(a, lo, hi, mid, to, true);
+            left.join();
+            return;
+        }
+        for (int i = from; i < to; i++) {
+            long t = a[lo + i];
+            a[lo + i] = a[hi - 1 - i];
+            a[hi - 1 - i] = t;
+        }
+    }
+
+    /**
+     * double[] version of rearrangeBuffered(int[]).
+     */
+    public static void rearrangeBuffered(double[] arr){
+        int positives = 0;
+        for (double num : arr) {
+            if (num >= 0) {
+                positives++;
+            }
+        }
+        int negatives = arr.length - positives;
+        boolean bufferNegatives = negatives <= positives;
+        double[] buffer = new double[Math.min(positives, negatives)];
+        int kept = 0, buffered = 0;
+        for (double num : arr) {
+            if ((num >= 0) == bufferNegatives) {
+                arr[kept++] = num;
+            } else {
+                buffer[buffered++] = num;
+            }
+        }
+        int m = buffer.length;
+        int offset = bufferNegatives ? 0 : 1;
+        for (int k = kept - 1; k >= 0; k--) {
+            arr[k < m ? 2 * k + offset : k + m] = arr[k];
+        }
+        for (int k = 0; k < m; k++) {
+            arr[2 * k + 1 - offset] = buffer[k];
+        }
+    }
+
+    /**
+     * double[] version of rearrangeInPlace(int[]).
+     */
+    public static void rearrangeInPlace(double[] arr){
+        rearrangeInPlace(arr, false);
+    }
+
+    /**
+     * double[] version of rearrangeParallel(int[]).
+     */
+    public static void rearrangeParallel(double[] arr){
+        ForkJoinPool.commonPool().invoke(ForkJoinTask.adapt(() -> rearrangeInPlace(arr, true)));
+    }
+
+    private static void rearrangeInPlace(double[] a, boolean parallel){
+        int positives = partition(a, 0, a.length, parallel);
+        int negatives = a.length - positives;
+        int m = Math.min(positives, negatives);
+        if (positives > negatives) {
+            rotate(a, m, positives, a.length, parallel);
+        }
+        interleave(a, 0, m, parallel);
+    }
+
+    private static int partition(double[] a, int lo, int hi, boolean parallel){
+        if (hi - lo <= SMALL) {
+            int split = lo;
+            for (int i = lo; i < hi; i++) {
+                double v = a[i];
+                if (v >= 0) {
+                    System.arraycopy(a, split, a, split + 1, i - split);
+                    a[split++] = v;
+                }
+            }
+            return split;
+        }
+        int mid = (lo + hi) >>> 1;
+        int leftSplit, rightSplit;
+        if (parallel && hi - lo > PARALLEL_THRESHOLD) {
+            ForkJoinTask<Integer> left = ForkJoinTask.adapt(() -> partition(a, lo, mid, true)).fork();
+            rightSplit = partition(a, mid, hi, true);
+            leftSplit = left.join();
+        } else {
+            leftSplit = partition(a, lo, mid, false);
+            rightSplit = partition(a, mid, hi, false);
+        }
+        rotate(a, leftSplit, mid, rightSplit, parallel);
+        return leftSplit + (rightSplit - mid);
+    }
+
+    private static void interleave(double[] a, int lo, int m, boolean parallel){
+        if (m <= 1) {
+            return;
+        }
+        int h = m >>> 1;
+        rotate(a, lo + h, lo + m, lo + m + h, parallel);
+        if (parallel && m > PARALLEL_THRESHOLD) {
+            ForkJoinTask<?> left = ForkJoinTask.adapt(() -> interleave(a, lo, h, true)).fork();
+            interleave(a, lo + 2 * h, m - h, true);
+            left.join();
+        } else {
+            interleave(a, lo, h, false);
+            interleave(a, lo + 2 * h, m - h, false);
+        }
+    }
+
+    private static void rotate(double[] a, int lo, int mid, int hi, boolean parallel){
+        if (lo == mid || mid == hi) {
+            return;
+        }
+        reverse(a, lo, mid, 0, (mid - lo) >>> 1, parallel);
+        reverse(a, mid, hi, 0, (hi - mid) >>> 1, parallel);
+        reverse(a, lo, hi, 0, (hi - lo) >>> 1, parallel);
+    }
+
+    private static void reverse(double[] a, int lo, int hi, int from, int to, boolean parallel){
+        if (parallel && to - from > PARALLEL_THRESHOLD) {
+            int mid = (from + to) >>> 1;
+            ForkJoinTask<?> left = ForkJoinTask.adapt(() -> reverse(a, lo, hi, from, mid, true)).fork();
+            reverse(a, lo, hi, mid, to, true);
+            left.join();
+            return;
+        }
+        for (int i = from; i < to; i++) {
+            double t = a[lo + i];
+            a[lo + i] = a[hi - 1 - i];
+            a[hi - 1 - i] = t;
+        }
+    }
+
+    public static void main(String[] args){
+        int[] arr = {1, 2, 3, -4, -1, 4, -6, -9, 10};
+        rearrangeInPlace(arr);
+        System.out.println(Arrays.toString(arr)); // [1, -4, 2, -1, 3, -6, 4, -9, 10]
+    }
 }
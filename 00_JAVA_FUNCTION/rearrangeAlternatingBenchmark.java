@@ -0,0 +1,74 @@
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Throughput and bytes allocated by each rearrangeAlternating version, on the same random signed array.
+ * Every result is checked against rearrange (the ArrayList version).
+ * Usage: java -Xmx4g rearrangeAlternatingBenchmark [n]
+ */
+public class rearrangeAlternatingBenchmark {
+    private static final com.sun.management.ThreadMXBean THREADS = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private interface Kernel {
+        void run(int[] arr);
+    }
+
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+        Random random = new Random(18);
+        int[] input = new int[n];
+        for (int i = 0; i < n; i++) {
+            int v = random.nextInt(1_000_000);
+            input[i] = random.nextInt(5) < 3 ? v : -v - 1; // 60% positive, so there is a positive tail
+        }
+        int[] expected = input.clone();
+        rearrangeAlternating.rearrange(expected);
+
+        System.out.printf("%-22s %10s %12s %14s%n", "", "ms", "M elems/s", "MB allocated");
+        for (int round = 0; round < 3; round++) {
+            boolean print = round == 2;
+            time(print, "ArrayList<Integer>", input, expected, rearrangeAlternating::rearrange);
+            time(print, "rearrangeBuffered", input, expected, rearrangeAlternating::rearrangeBuffered);
+            time(print, "rearrangeInPlace", input, expected, rearrangeAlternating::rearrangeInPlace);
+            time(print, "rearrangeParallel", input, expected, rearrangeAlternating::rearrangeParallel);
+        }
+
+        long[] longs = new long[n];
+        for (int i = 0; i < n; i++) {
+            longs[i] = input[i];
+        }
+        long start = System.nanoTime();
+        rearrangeAlternating.rearrangeParallel(longs);
+        System.out.printf("%-22s %10.1f%n", "rearrangeParallel long[]", (System.nanoTime() - start) / 1e6);
+        for (int i = 0; i < n; i++) {
+            if (longs[i] != expected[i]) {
+                throw new IllegalStateException("long[] result differs at " + i);
+            }
+        }
+    }
+
+    private static void time(boolean print, String name, int[] input, int[] expected, Kernel kernel) {
+        int[] arr = input.clone();
+        long allocated = allocatedBytes();
+        long start = System.nanoTime();
+        kernel.run(arr);
+        long nanos = System.nanoTime() - start;
+        allocated = allocatedBytes() - allocated;
+        if (!Arrays.equals(arr, expected)) {
+            throw new IllegalStateException(name + " gave a different order");
+        }
+        if (print) {
+            System.out.printf("%-22s %10.1f %12.1f %14.1f%n", name, nanos / 1e6, arr.length / (nanos / 1e3), allocated / 1e6);
+        }
+    }
+
+    // Bytes allocated by all live threads, fork/join workers included
+    private static long allocatedBytes() {
+        long total = 0;
+        for (long bytes : THREADS.getThreadAllocatedBytes(THREADS.getAllThreadIds())) {
+            total += Math.max(0, bytes);
+        }
+        return total;
+    }
+}
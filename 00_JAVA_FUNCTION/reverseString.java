@@ -1,14 +1,28 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+
 public class reverseString {
+    private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
     public static void main(String[] args){
         String s = "abcdef12345";
         String reversed = reverse(s);
         System.out.println("Reversed string using method 1: " + reversed);
 
-        // Method 2: Direct use char array without StringBuilder
-        char[] charArray = s.toCharArray();
-        for (int i = s.length()-1; i>=0; i--){
-            System.out.print(charArray[i]);
-        }
+        // Method 2: Direct use char array without StringBuilder, printed through one buffer instead of one print per char
+        char[] charArray = new char[s.length()];
+        reverseInto(s, charArray, 0, true);
+        fastOutput out = fastOutput.forClass(reverseString.class);
+        out.println(CharBuffer.wrap(charArray)).flush();
+
+        // Method 3: in place on UTF-8 bytes, multi-byte characters stay intact
+        byte[] utf8 = "héllo wörld".getBytes(StandardCharsets.UTF_8);
+        reverseUtf8(utf8, 0, utf8.length);
+        System.out.println(new String(utf8, StandardCharsets.UTF_8)); // dlröw olléh
     }
 
     /**
@@ -17,7 +31,7 @@ public class reverseString {
      * @return The reversed string.
      * method 1: Using StringBuilder to reverse the string
      */
-    private static String reverse(String s) {
+    static String reverse(String s) {
 //        StringBuilder reversed = new StringBuilder(s);
 //        reversed.reverse();
 //        System.out.println(reversed);
@@ -34,4 +48,105 @@ public class reverseString {
         }
         return new String(chars);
     }
+
+    /**
+     * Reverses any CharSequence straight into dest[off..off + s.length()), reading the source once and allocating nothing.
+     * With codePoints a surrogate pair keeps its order, so an emoji is still an emoji after reversing.
+     */
+    public static void reverseInto(CharSequence s, char[] dest, int off, boolean codePoints) {
+        int n = s.length();
+        if (off < 0 || off + n > dest.length) {
+            throw new IndexOutOfBoundsException("need " + n + " chars at " + off + " in an array of " + dest.length);
+        }
+        int last = off + n - 1;
+        for (int i = 0; i < n; i++) {
+            dest[last - i] = s.charAt(i);
+        }
+        if (codePoints) {
+            for (int i = off; i < last; i++) {
+                // A low surrogate followed by a high surrogate is a pair that came out backwards
+                if (Character.isLowSurrogate(dest[i]) && Character.isHighSurrogate(dest[i + 1])) {
+                    char low = dest[i];
+                    dest[i] = dest[i + 1];
+                    dest[i + 1] = low;
+                    i++;
+                }
+            }
+        }
+    }
+
+    public static String reverse(CharSequence s, boolean codePoints) {
+        char[] chars = new char[s.length()];
+        reverseInto(s, chars, 0, codePoints);
+        return new String(chars);
+    }
+
+    /**
+     * Reverses Latin-1 bytes in place, swapping 8-byte blocks from both ends with one byte swap per block.
+     */
+    public static void reverseLatin1(byte[] bytes, int off, int len) {
+        int left = off;
+        int right = off + len;
+        for (; right - left >= 16; left += 8, right -= 8) {
+            long a = (long) LONGS.get(bytes, left);
+            long b = (long) LONGS.get(bytes, right - 8);
+            LONGS.set(bytes, left, Long.reverseBytes(b));
+            LONGS.set(bytes, right - 8, Long.reverseBytes(a));
+        }
+        while (left < --right) {
+            byte t = bytes[left];
+            bytes[left++] = bytes[right];
+            bytes[right] = t;
+        }
+    }
+
+    /**
+     * Reverses the Latin-1 bytes between the buffer's position and limit in place, the position is not moved.
+     */
+    public static void reverseLatin1(ByteBuffer buffer) {
+        if (buffer.hasArray()) {
+            reverseLatin1(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+            return;
+        }
+        int left = buffer.position();
+        int right = buffer.limit();
+        for (; right - left >= 16; left += 8, right -= 8) {
+            long a = buffer.getLong(left);
+            long b = buffer.getLong(right - 8);
+            buffer.putLong(left, Long.reverseBytes(b));
+            buffer.putLong(right - 8, Long.reverseBytes(a));
+        }
+        while (left < --right) {
+            byte t = buffer.get(left);
+            buffer.put(left++, buffer.get(right));
+            buffer.put(right, t);
+        }
+    }
+
+    /**
+     * Reverses UTF-8 text in place by code point: reverse all bytes, then put each multi-byte sequence, which now reads
+     * continuation bytes first and lead byte last, back in order. Malformed bytes are left as single bytes.
+     */
+    public static void reverseUtf8(byte[] bytes, int off, int len) {
+        reverseLatin1(bytes, off, len);
+        int end = off + len;
+        for (int i = off; i < end; i++) {
+            if ((bytes[i] & 0xC0) != 0x80) {
+                continue;
+            }
+            int lead = i;
+            while (lead < end && lead - i < 3 && (bytes[lead] & 0xC0) == 0x80) {
+                lead++;
+            }
+            if (lead == end || (bytes[lead] & 0xC0) != 0xC0) {
+                continue; // stray continuation byte
+            }
+            for (int a = i, b = lead; a < b; a++, b--) {
+                byte t = bytes[a];
+                bytes[a] = bytes[b];
+                bytes[b] = t;
+            }
+            i = lead;
+        }
+    }
 }
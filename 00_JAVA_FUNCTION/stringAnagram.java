@@ -1,7 +1,13 @@
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
 /**
  * Example: "Write a function to check if a string is an anagram of another."
  */
 public class stringAnagram {
+    private static final int PARTITION_BITS = 6; // signatures are grouped in 64 independent partitions
+
     static boolean isAnagram(String a, String b){
         // Remove spaces and convert to lowercase
         a = a.replaceAll("\\s", "").toLowerCase();
@@ -26,4 +32,244 @@ public class stringAnagram {
         return true; // All counts are zero, so they are anagrams
 
     }
+
+    // Per-thread counting arrays, so the Unicode check allocates nothing once warmed up
+    private static final class Scratch {
+        final int[] latin = new int[256];
+        int[] otherA = new int[16];
+        int[] otherB = new int[16];
+    }
+
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    /**
+     * isAnagram for any text: no regex and no lowercase copy. Whitespace is skipped and case is folded per code point.
+     * Code points below 256 are counted in the usual 256-slot array, the rest (other scripts, emoji) are collected,
+     * sorted and compared, so nothing above 255 can overflow the array.
+     */
+    public static boolean isAnagramUnicode(CharSequence a, CharSequence b){
+        Scratch scratch = SCRATCH.get();
+        int[] latin = scratch.latin;
+        int othersA = 0, othersB = 0;
+        boolean same;
+        try {
+            for (int i = 0, n = a.length(); i < n; ) {
+                int cp = Character.codePointAt(a, i);
+                i += Character.charCount(cp);
+                if (Character.isWhitespace(cp)) {
+                    continue;
+                }
+                cp = fold(cp);
+                if (cp < 256) {
+                    latin[cp]++;
+                } else {
+                    if (othersA == scratch.otherA.length) {
+                        scratch.otherA = Arrays.copyOf(scratch.otherA, othersA << 1);
+                    }
+                    scratch.otherA[othersA++] = cp;
+                }
+            }
+            for (int i = 0, n = b.length(); i < n; ) {
+                int cp = Character.codePointAt(b, i);
+                i += Character.charCount(cp);
+                if (Character.isWhitespace(cp)) {
+                    continue;
+                }
+                cp = fold(cp);
+                if (cp < 256) {
+                    latin[cp]--;
+                } else {
+                    if (othersB == scratch.otherB.length) {
+                        scratch.otherB = Arrays.copyOf(scratch.otherB, othersB << 1);
+                    }
+                    scratch.otherB[othersB++] = cp;
+                }
+            }
+            same = othersA == othersB;
+            for (int c = 0; c < 256; c++) {
+                same &= latin[c] == 0;
+            }
+        } finally {
+            Arrays.fill(latin, 0); // leave the scratch array clean for the next call, also when a or b failed part-way
+        }
+        if (!same) {
+            return false;
+        }
+        Arrays.sort(scratch.otherA, 0, othersA);
+        Arrays.sort(scratch.otherB, 0, othersB);
+        return Arrays.equals(scratch.otherA, 0, othersA, scratch.otherB, 0, othersB);
+    }
+
+    private static int fold(int codePoint){
+        return Character.toLowerCase(Character.toUpperCase(codePoint));
+    }
+
+    /**
+     * Order-independent 64-bit signature: the sum of a strong hash of every (folded, non-whitespace) code point.
+     * Two anagrams always get the same signature. Two non-anagrams collide with probability about 2^-64,
+     * so k distinct classes give about k^2 / 2^65 colliding pairs: 0.03 for a billion classes.
+     */
+    public static long signature(CharSequence word){
+        long sum = 0;
+        for (int i = 0, n = word.length(); i < n; ) {
+            int cp = Character.codePointAt(word, i);
+            i += Character.charCount(cp);
+            if (!Character.isWhitespace(cp)) {
+                sum += mix64(fold(cp));
+            }
+        }
+        return sum;
+    }
+
+    private static long mix64(long x){
+        x = (x + 0x9E3779B97F4A7C15L) * 0xBF58476D1CE4E5B9L;
+        x = (x ^ (x >>> 27)) * 0x94D049BB133111EBL;
+        return x ^ (x >>> 31);
+    }
+
+    /**
+     * Anagram classes of a word list: every word gets a group id, and the members of each group can be listed.
+     * Groups are numbered partition by partition, the members of a group are in input order.
+     */
+    public static final class Groups {
+        private final int[] groupOf;
+        private final int[] start; // members of group g are members[start[g] .. start[g + 1])
+        private final int[] members;
+
+        Groups(int[] groupOf, int[] start, int[] members) {
+            this.groupOf = groupOf;
+            this.start = start;
+            this.members = members;
+        }
+
+        public int groupCount() {
+            return start.length - 1;
+        }
+
+        public int groupOf(int word) {
+            return groupOf[word];
+        }
+
+        public int size(int group) {
+            return start[group + 1] - start[group];
+        }
+
+        /**
+         * Indexes of the words in the group.
+         */
+        public int[] members(int group) {
+            return Arrays.copyOfRange(members, start[group], start[group + 1]);
+        }
+    }
+
+    /**
+     * Groups words into anagram classes. Signatures are computed in parallel, then split by their top bits
+     * into 64 partitions that are grouped in parallel, each in its own open-addressing long-to-int table.
+     * A word whose signature is already in the table is checked against that group's first word with
+     * isAnagramUnicode, so a signature collision opens a separate group instead of merging two classes.
+     */
+    public static Groups groupAnagrams(List<? extends CharSequence> words){
+        int n = words.size();
+        long[] signatures = new long[n];
+        IntStream.range(0, n).parallel().forEach(i -> signatures[i] = signature(words.get(i)));
+
+        int partitions = 1 << PARTITION_BITS;
+        int[] partitionStart = new int[partitions + 1];
+        for (long signature : signatures) {
+            partitionStart[partition(signature) + 1]++;
+        }
+        for (int p = 0; p < partitions; p++) {
+            partitionStart[p + 1] += partitionStart[p];
+        }
+        int[] byPartition = new int[n];
+        int[] fill = Arrays.copyOf(partitionStart, partitions);
+        for (int i = 0; i < n; i++) {
+            byPartition[fill[partition(signatures[i])]++] = i;
+        }
+
+        int[] localGroup = new int[n];
+        int[] groupsIn = new int[partitions + 1];
+        IntStream.range(0, partitions).parallel().forEach(p -> {
+            int from = partitionStart[p], to = partitionStart[p + 1];
+            LongIntTable table = new LongIntTable(to - from);
+            for (int k = from; k < to; k++) {
+                int word = byPartition[k];
+                localGroup[word] = table.idOf(signatures[word], word, words);
+            }
+            groupsIn[p + 1] = table.size;
+        });
+        for (int p = 0; p < partitions; p++) {
+            groupsIn[p + 1] += groupsIn[p];
+        }
+
+        int groups = groupsIn[partitions];
+        int[] groupOf = new int[n];
+        int[] start = new int[groups + 1];
+        for (int i = 0; i < n; i++) {
+            groupOf[i] = groupsIn[partition(signatures[i])] + localGroup[i];
+            start[groupOf[i] + 1]++;
+        }
+        for (int g = 0; g < groups; g++) {
+            start[g + 1] += start[g];
+        }
+        int[] members = new int[n];
+        int[] next = Arrays.copyOf(start, groups);
+        for (int i = 0; i < n; i++) {
+            members[next[groupOf[i]]++] = i;
+        }
+        return new Groups(groupOf, start, members);
+    }
+
+    private static int partition(long signature){
+        return (int) (signature >>> (64 - PARTITION_BITS));
+    }
+
+    // Signature -> dense id in order of first appearance, linear probing, ids of -1 mark empty slots.
+    // Each slot keeps its group's first word; colliding classes with one signature take separate slots.
+    private static final class LongIntTable {
+        final long[] keys;
+        final int[] ids;
+        final int[] firstWords;
+        final int mask;
+        int size;
+
+        LongIntTable(int expected) {
+            int capacity = Integer.highestOneBit(Math.max(2, expected * 2 - 1)) << 1;
+            keys = new long[capacity];
+            ids = new int[capacity];
+            firstWords = new int[capacity];
+            Arrays.fill(ids, -1);
+            mask = capacity - 1;
+        }
+
+        int idOf(long key, int word, List<? extends CharSequence> words) {
+            // The top bits are the partition, equal for every key in this table, so index with the low bits
+            int slot = (int) (key ^ (key >>> 32)) & mask;
+            while (ids[slot] >= 0) {
+                if (keys[slot] == key && isAnagramUnicode(words.get(firstWords[slot]), words.get(word))) {
+                    return ids[slot];
+                }
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            ids[slot] = size;
+            firstWords[slot] = word;
+            return size++;
+        }
+    }
+
+    public static void main(String[] args){
+        System.out.println(isAnagram("Dormitory", "Dirty room")); // true
+        System.out.println(isAnagramUnicode("Dormitory", "Dirty room")); // true
+        System.out.println(isAnagramUnicode("Ωμέγα", "γέμα Ω")); // true, isAnagram would throw
+        List<String> words = List.of("listen", "silent", "enlist", "google", "gooegl", "cat", "act", "dog");
+        Groups groups = groupAnagrams(words);
+        for (int g = 0; g < groups.groupCount(); g++) {
+            StringBuilder line = new StringBuilder();
+            for (int word : groups.members(g)) {
+                line.append(words.get(word)).append(' ');
+            }
+            System.out.println(line.toString().trim());
+        }
+    }
 }
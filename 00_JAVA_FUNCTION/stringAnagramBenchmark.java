@@ -0,0 +1,89 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Anagram grouping of a large word list: the usual HashMap keyed on the sorted lowercase letters,
+ * against stringAnagram.groupAnagrams. Also pairwise isAnagram against isAnagramUnicode.
+ * Usage: java -Xmx2g stringAnagramBenchmark [dictionaryFile, one word per line]
+ * Without a file, 2M random words are generated, with permutations mixed in so classes have several members.
+ */
+public class stringAnagramBenchmark {
+    public static void main(String[] args) throws IOException {
+        List<String> words = args.length > 0 ? Files.readAllLines(Path.of(args[0]), StandardCharsets.UTF_8) : generate(2_000_000);
+        System.out.printf("%,d words%n", words.size());
+
+        for (int round = 0; round < 3; round++) {
+            boolean print = round == 2;
+            long start = System.nanoTime();
+            Map<String, List<Integer>> classic = new HashMap<>();
+            for (int i = 0; i < words.size(); i++) {
+                char[] key = words.get(i).replaceAll("\\s", "").toLowerCase().toCharArray();
+                Arrays.sort(key);
+                classic.computeIfAbsent(new String(key), k -> new ArrayList<>()).add(i);
+            }
+            long classicNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            stringAnagram.Groups groups = stringAnagram.groupAnagrams(words);
+            long groupNanos = System.nanoTime() - start;
+            if (groups.groupCount() != classic.size()) {
+                throw new IllegalStateException(groups.groupCount() + " groups, expected " + classic.size());
+            }
+            if (print) {
+                System.out.printf("%-32s %8.1f ms  %,6.1f M words/s  %,d classes%n", "sorted key + HashMap", classicNanos / 1e6, words.size() / (classicNanos / 1e3), classic.size());
+                System.out.printf("%-32s %8.1f ms  %,6.1f M words/s  %,d classes%n", "groupAnagrams", groupNanos / 1e6, words.size() / (groupNanos / 1e3), groups.groupCount());
+            }
+
+            int pairs = Math.min(words.size() - 1, 1_000_000);
+            start = System.nanoTime();
+            int slow = 0;
+            for (int i = 0; i < pairs; i++) {
+                slow += stringAnagram.isAnagram(words.get(i), words.get(i + 1)) ? 1 : 0;
+            }
+            long slowNanos = System.nanoTime() - start;
+            start = System.nanoTime();
+            int fast = 0;
+            for (int i = 0; i < pairs; i++) {
+                fast += stringAnagram.isAnagramUnicode(words.get(i), words.get(i + 1)) ? 1 : 0;
+            }
+            long fastNanos = System.nanoTime() - start;
+            if (slow != fast) {
+                throw new IllegalStateException("isAnagram found " + slow + " pairs, isAnagramUnicode " + fast);
+            }
+            if (print) {
+                System.out.printf("%-32s %8.1f ms  %,6.1f M pairs/s%n", "isAnagram (regex)", slowNanos / 1e6, pairs / (slowNanos / 1e3));
+                System.out.printf("%-32s %8.1f ms  %,6.1f M pairs/s%n", "isAnagramUnicode", fastNanos / 1e6, pairs / (fastNanos / 1e3));
+            }
+        }
+    }
+
+    // Lowercase ASCII only, isAnagram throws above char 255
+    private static List<String> generate(int n) {
+        Random random = new Random(17);
+        List<String> words = new ArrayList<>(n);
+        while (words.size() < n) {
+            char[] word = new char[4 + random.nextInt(9)];
+            for (int i = 0; i < word.length; i++) {
+                word[i] = (char) ('a' + random.nextInt(26));
+            }
+            for (int copies = random.nextInt(4); copies >= 0 && words.size() < n; copies--) {
+                for (int i = word.length - 1; i > 0; i--) {
+                    int k = random.nextInt(i + 1);
+                    char t = word[i];
+                    word[i] = word[k];
+                    word[k] = t;
+                }
+                words.add(new String(word));
+            }
+        }
+        return words;
+    }
+}
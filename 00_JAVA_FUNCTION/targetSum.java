@@ -1,4 +1,6 @@
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
 public class targetSum {
     public static List<int[]> findPairsWithTargetSum(int[] sums, int target){
@@ -61,6 +63,232 @@ public class targetSum {
         return pairs;
     }
 
+    public interface PairConsumer {
+        void accept(int a, int b);
+    }
+
+    /**
+     * Primitive, unsorted-input version of findPairsWithTargetSumUsingHashSet: same pairs in the same order
+     * (complement, value), but streamed to out instead of collected as int[] objects.
+     * With distinct = true each value pair is reported once. Sums are exact, so int overflow never creates a pair.
+     */
+    public static void findPairsWithTargetSumPrimitive(int[] sums, int target, boolean distinct, PairConsumer out){
+        IntSet seen = new IntSet(sums.length);
+        IntSet reported = distinct ? new IntSet(16) : null;
+        for (int sum : sums) {
+            long complement = (long) target - sum;
+            if (complement >= Integer.MIN_VALUE && complement <= Integer.MAX_VALUE && seen.contains((int) complement)) {
+                // The smaller value identifies a pair for a fixed target
+                if (!distinct || reported.add(Math.min(sum, (int) complement))) {
+                    out.accept((int) complement, sum);
+                }
+            }
+            seen.add(sum);
+        }
+    }
+
+    /**
+     * Same as findPairsWithTargetSumPrimitive, with each pair packed into one long (see first/second).
+     */
+    public static long[] findPairsWithTargetSumPacked(int[] sums, int target, boolean distinct){
+        PairBuffer buffer = new PairBuffer();
+        findPairsWithTargetSumPrimitive(sums, target, distinct, buffer);
+        return buffer.toArray();
+    }
+
+    /**
+     * Distinct pairs (a <= b) for very large arrays, packed and ordered by a.
+     * <p>
+     * Approach: Arrays.parallelSort a copy, then split the left side (values <= target / 2) into fork/join tasks.
+     * Each task walks its left values upwards while a right pointer, found by binary search, walks downwards.
+     */
+    public static long[] findPairsWithTargetSumParallel(int[] sums, int target){
+        int[] sorted = sums.clone();
+        Arrays.parallelSort(sorted);
+        // Left values are those with 2 * value <= target
+        int leftEnd = upperBound(sorted, 0, sorted.length, Math.floorDiv((long) target, 2));
+        return ForkJoinPool.commonPool().invoke(new PairTask(sorted, target, 0, leftEnd)).toArray();
+    }
+
+    public static int first(long pair){
+        return (int) (pair >> 32);
+    }
+
+    public static int second(long pair){
+        return (int) pair;
+    }
+
+    static long pack(int a, int b){
+        return ((long) a << 32) | (b & 0xFFFF_FFFFL);
+    }
+
+    private static final class PairTask extends RecursiveTask<PairBuffer> {
+        private static final long serialVersionUID = 1L;
+        private static final int THRESHOLD = 1 << 16;
+        private final int[] sorted;
+        private final long target;
+        private final int from, to;
+
+        PairTask(int[] sorted, long target, int from, int to){
+            this.sorted = sorted;
+            this.target = target;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected PairBuffer compute(){
+            if (to - from > THRESHOLD) {
+                int mid = (from + to) >>> 1;
+                PairTask right = new PairTask(sorted, target, mid, to);
+                right.fork();
+                PairBuffer left = new PairTask(sorted, target, from, mid).compute();
+                left.addAll(right.join());
+                return left;
+            }
+            PairBuffer out = new PairBuffer();
+            if (from >= to) {
+                return out;
+            }
+            int[] a = sorted;
+            int j = upperBound(a, 0, a.length, target - a[from]) - 1;
+            for (int i = from; i < to; i++) {
+                int v = a[i];
+                if (i > 0 && a[i - 1] == v) {
+                    continue; // duplicate left value, already handled
+                }
+                long want = target - v;
+                while (j > i && a[j] > want) {
+                    j--;
+                }
+                if (j <= i) {
+                    break;
+                }
+                if (a[j] == want) {
+                    out.accept(v, (int) want);
+                }
+            }
+            return out;
+        }
+    }
+
+    /**
+     * First index in [from, to) whose value is greater than key.
+     */
+    private static int upperBound(int[] a, int from, int to, long key){
+        int lo = from, hi = to;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (a[mid] <= key) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * Growable long[] of packed pairs.
+     */
+    static final class PairBuffer implements PairConsumer {
+        private long[] pairs = new long[16];
+        private int size;
+
+        @Override
+        public void accept(int a, int b){
+            if (size == pairs.length) {
+                pairs = Arrays.copyOf(pairs, size << 1);
+            }
+            pairs[size++] = pack(a, b);
+        }
+
+        void addAll(PairBuffer other){
+            if (size + other.size > pairs.length) {
+                pairs = Arrays.copyOf(pairs, Math.max(pairs.length << 1, size + other.size));
+            }
+            System.arraycopy(other.pairs, 0, pairs, size, other.size);
+            size += other.size;
+        }
+
+        long[] toArray(){
+            return Arrays.copyOf(pairs, size);
+        }
+    }
+
+    /**
+     * Open-addressing int set on a plain int[]. 0 marks a free slot, so the value 0 is tracked by a flag.
+     */
+    static final class IntSet {
+        private int[] slots;
+        private int mask;
+        private int size;
+        private boolean hasZero;
+
+        IntSet(int expected){
+            int capacity = Integer.highestOneBit(Math.max(4, expected * 2) - 1) << 1;
+            slots = new int[capacity];
+            mask = capacity - 1;
+        }
+
+        private static int mix(int x){
+            int h = x * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+
+        boolean contains(int x){
+            if (x == 0) {
+                return hasZero;
+            }
+            int i = mix(x) & mask;
+            while (slots[i] != 0) {
+                if (slots[i] == x) {
+                    return true;
+                }
+                i = (i + 1) & mask;
+            }
+            return false;
+        }
+
+        /**
+         * Returns true if x was not in the set.
+         */
+        boolean add(int x){
+            if (x == 0) {
+                boolean added = !hasZero;
+                hasZero = true;
+                return added;
+            }
+            int i = mix(x) & mask;
+            while (slots[i] != 0) {
+                if (slots[i] == x) {
+                    return false;
+                }
+                i = (i + 1) & mask;
+            }
+            slots[i] = x;
+            if (++size > (mask + 1) / 2) {
+                grow();
+            }
+            return true;
+        }
+
+        private void grow(){
+            int[] old = slots;
+            slots = new int[old.length << 1];
+            mask = slots.length - 1;
+            for (int x : old) {
+                if (x != 0) {
+                    int i = mix(x) & mask;
+                    while (slots[i] != 0) {
+                        i = (i + 1) & mask;
+                    }
+                    slots[i] = x;
+                }
+            }
+        }
+    }
+
     public static void main(String[] args) {
         int[] sums = {1, 2, 3, 4, 5};
         int target = 6;
@@ -69,5 +297,13 @@ public class targetSum {
         for (int[] pair : pairs) {
             System.out.println(pair[0] + ", " + pair[1]);
         }
+
+        System.out.println("Distinct pairs, streamed:");
+        findPairsWithTargetSumPrimitive(new int[]{5, 1, 3, 3, 4, 2, 1, 5}, target, true,
+                (a, b) -> System.out.println(a + ", " + b));
+        System.out.println("Distinct pairs, parallel:");
+        for (long pair : findPairsWithTargetSumParallel(new int[]{5, 1, 3, 3, 4, 2, 1, 5}, target)) {
+            System.out.println(first(pair) + ", " + second(pair));
+        }
     }
 }
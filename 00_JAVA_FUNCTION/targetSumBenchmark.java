@@ -0,0 +1,65 @@
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares every targetSum variant on the same unsorted random array.
+ * The O(n^2) brute force only runs on a 20k prefix, and findPairsWithTargetSumOptimized gets a sorted copy
+ * because it silently needs one.
+ * Usage: java targetSumBenchmark [n]
+ */
+public class targetSumBenchmark {
+    private static volatile long sink;
+
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 5_000_000;
+        Random random = new Random(3);
+        int[] values = new int[n];
+        for (int i = 0; i < n; i++) {
+            values[i] = random.nextInt(n * 4) - n * 2;
+        }
+        int target = 12_345;
+        int[] sorted = values.clone();
+        Arrays.sort(sorted);
+        int[] prefix = Arrays.copyOf(values, Math.min(n, 20_000));
+
+        for (int round = 0; round < 3; round++) {
+            boolean print = round == 2;
+            time(print, "brute force (20k prefix)", prefix.length, () -> targetSum.findPairsWithTargetSum(prefix, target).size());
+            time(print, "two pointers (pre-sorted)", n, () -> targetSum.findPairsWithTargetSumOptimized(sorted, target).size());
+            time(print, "HashMap<Integer,Integer>", n, () -> targetSum.findPairsWithTargetSumUsingHashMap(values, target).size());
+            time(print, "HashSet<Integer>", n, () -> targetSum.findPairsWithTargetSumUsingHashSet(values, target).size());
+            time(print, "primitive, callback", n, () -> {
+                long[] count = new long[1];
+                targetSum.findPairsWithTargetSumPrimitive(values, target, false, (a, b) -> count[0]++);
+                return count[0];
+            });
+            time(print, "primitive, packed distinct", n, () -> targetSum.findPairsWithTargetSumPacked(values, target, true).length);
+            time(print, "parallel sort + fork/join", n, () -> targetSum.findPairsWithTargetSumParallel(values, target).length);
+        }
+
+        // Sanity check: the hash and primitive variants agree, and the distinct variants agree with each other
+        List<int[]> boxed = targetSum.findPairsWithTargetSumUsingHashSet(values, target);
+        long[] all = targetSum.findPairsWithTargetSumPacked(values, target, false);
+        long[] distinct = targetSum.findPairsWithTargetSumPacked(values, target, true);
+        long[] parallel = targetSum.findPairsWithTargetSumParallel(values, target);
+        if (boxed.size() != all.length || distinct.length != parallel.length) {
+            throw new IllegalStateException("variants disagree: " + boxed.size() + "/" + all.length + ", "
+                    + distinct.length + "/" + parallel.length);
+        }
+    }
+
+    private interface Run {
+        long run();
+    }
+
+    private static void time(boolean print, String name, int n, Run run) {
+        long start = System.nanoTime();
+        long pairs = run.run();
+        long nanos = System.nanoTime() - start;
+        sink += pairs;
+        if (print) {
+            System.out.printf("%-28s n=%,11d %9.1f ms  %,8d pairs%n", name, n, nanos / 1e6, pairs);
+        }
+    }
+}
@@ -10,7 +10,7 @@ import java.util.Map;
 public class twoSum {
     public static int[] twoSum(int[] nums, int target){
         Map<Integer, Integer> map = new HashMap<>();
-        for(int i = 1; i<nums.length; i++){
+        for(int i = 0; i<nums.length; i++){
             int result = target - nums[i];
             if (map.containsKey(result)){
                 return new int[]{
@@ -0,0 +1,167 @@
+import java.util.Arrays;
+import java.util.concurrent.locks.StampedLock;
+import java.util.stream.IntStream;
+
+/**
+ * Answers many twoSum(target) queries against the same array without rebuilding a HashMap per query.
+ * <p>
+ * Approach:
+ * - The array is indexed once into an open-addressing table from value to the first index holding it
+ *   (two parallel int[] arrays, no boxing).
+ * - A query walks j = 0, 1, 2... and looks up target - nums[j]. The first j whose complement appears earlier wins,
+ *   so it returns the same j as twoSum.twoSum, with the first index of the complement.
+ * - Results are packed into one long, so a query allocates nothing. Batches run in parallel under one read lock.
+ * - append() adds values at the end and updates the index, queries see them once the append returns.
+ */
+public class twoSumIndex {
+    public static final long NOT_FOUND = -1L;
+
+    private int[] values;
+    private int size;
+    private int[] keys;       // indexed values
+    private int[] firstIndex; // -1 for an empty slot
+    private int mask;
+    private int distinct;
+    private final StampedLock lock = new StampedLock();
+
+    public twoSumIndex(int[] nums) {
+        values = Arrays.copyOf(nums, Math.max(16, nums.length));
+        allocate(Integer.highestOneBit(Math.max(16, nums.length * 2) - 1) << 1);
+        for (int i = 0; i < nums.length; i++) {
+            insert(nums[i], i);
+        }
+        size = nums.length;
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        firstIndex = new int[capacity];
+        Arrays.fill(firstIndex, -1);
+        mask = capacity - 1;
+    }
+
+    private static int mix(int x) {
+        int h = x * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private void insert(int value, int index) {
+        int slot = mix(value) & mask;
+        while (firstIndex[slot] >= 0) {
+            if (keys[slot] == value) {
+                return; // keep the first index
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = value;
+        firstIndex[slot] = index;
+        if (++distinct > (mask + 1) / 2) {
+            int[] oldKeys = keys, oldIndex = firstIndex;
+            allocate(keys.length << 1);
+            distinct = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldIndex[i] >= 0) {
+                    insert(oldKeys[i], oldIndex[i]);
+                }
+            }
+        }
+    }
+
+    private int indexOf(long value) {
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            return -1;
+        }
+        int v = (int) value;
+        int slot = mix(v) & mask;
+        while (true) {
+            int index = firstIndex[slot];
+            if (index < 0 || keys[slot] == v) {
+                return index;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /**
+     * Appends a value to the indexed array and returns its index.
+     */
+    public int append(int value) {
+        long stamp = lock.writeLock();
+        try {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size << 1);
+            }
+            values[size] = value;
+            insert(value, size);
+            return size++;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the pair packed as (i << 32 | j) with i < j, or NOT_FOUND. Use first/second to unpack.
+     */
+    public long twoSum(int target) {
+        long stamp = lock.readLock();
+        try {
+            return find(target);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private long find(int target) {
+        int[] v = values;
+        for (int j = 0, n = size; j < n; j++) {
+            int i = indexOf((long) target - v[j]);
+            if (i >= 0 && i < j) {
+                return ((long) i << 32) | j;
+            }
+        }
+        return NOT_FOUND;
+    }
+
+    /**
+     * Answers targets[k] into results[k] for every k, spread over the common fork/join pool.
+     */
+    public void twoSum(int[] targets, long[] results) {
+        if (results.length < targets.length) {
+            throw new IllegalArgumentException("results is shorter than targets");
+        }
+        long stamp = lock.readLock();
+        try {
+            IntStream.range(0, targets.length).parallel().forEach(k -> results[k] = find(targets[k]));
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public static int first(long pair) {
+        return (int) (pair >>> 32);
+    }
+
+    public static int second(long pair) {
+        return (int) pair;
+    }
+
+    public static void main(String[] args) {
+        twoSumIndex index = new twoSumIndex(new int[]{2, 7, 11, 15});
+        long pair = index.twoSum(9);
+        System.out.println("twoSum(9): [" + first(pair) + ", " + second(pair) + "]"); // [0, 1]
+        System.out.println("twoSum(100) found: " + (index.twoSum(100) != NOT_FOUND)); // false
+        index.append(85);
+        pair = index.twoSum(100);
+        System.out.println("after append, twoSum(100): [" + first(pair) + ", " + second(pair) + "]"); // [3, 4]
+
+        long[] results = new long[3];
+        index.twoSum(new int[]{9, 26, 18}, results);
+        for (long r : results) {
+            System.out.println("[" + first(r) + ", " + second(r) + "]"); // [0, 1] [2, 3] [1, 2]
+        }
+    }
+}
@@ -0,0 +1,87 @@
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Single-query latency histogram and batched throughput for twoSumIndex, against calling twoSum.twoSum per query.
+ * 90% of targets have a pair at a random position, 10% have none (a full scan).
+ * Usage: java twoSumIndexBenchmark [n] [queries]
+ */
+public class twoSumIndexBenchmark {
+    private static volatile long sink;
+
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int queries = args.length > 1 ? Integer.parseInt(args[1]) : 5_000;
+        Random random = new Random(11);
+        int[] nums = new int[n];
+        for (int i = 0; i < n; i++) {
+            nums[i] = random.nextInt(Integer.MAX_VALUE / 2);
+        }
+        int[] targets = new int[queries];
+        for (int q = 0; q < queries; q++) {
+            targets[q] = random.nextInt(10) == 0 ? -1 : nums[random.nextInt(n)] + nums[random.nextInt(n)];
+        }
+
+        long start = System.nanoTime();
+        twoSumIndex index = new twoSumIndex(nums);
+        System.out.printf("Index build: %.1f ms for %,d values%n", (System.nanoTime() - start) / 1e6, n);
+
+        // Warm up, then time each query on its own
+        for (int q = 0; q < Math.min(queries, 2_000); q++) {
+            sink += index.twoSum(targets[q]);
+        }
+        long[] latencies = new long[queries];
+        for (int q = 0; q < queries; q++) {
+            long t0 = System.nanoTime();
+            sink += index.twoSum(targets[q]);
+            latencies[q] = System.nanoTime() - t0;
+        }
+        printHistogram("twoSumIndex single query", latencies);
+
+        int baselineQueries = Math.min(queries, 20);
+        long[] baseline = new long[baselineQueries];
+        for (int q = 0; q < baselineQueries; q++) {
+            long t0 = System.nanoTime();
+            sink += twoSum.twoSum(nums, targets[q])[1];
+            baseline[q] = System.nanoTime() - t0;
+        }
+        printHistogram("twoSum.twoSum (HashMap per call)", baseline);
+
+        long[] results = new long[queries];
+        for (int round = 0; round < 3; round++) {
+            start = System.nanoTime();
+            index.twoSum(targets, results);
+            long nanos = System.nanoTime() - start;
+            if (round == 2) {
+                System.out.printf("Batched %,d queries on %d cores: %,.0f queries/s%n",
+                        queries, Runtime.getRuntime().availableProcessors(), queries / (nanos / 1e9));
+            }
+        }
+    }
+
+    /**
+     * Power-of-two microsecond buckets plus percentiles.
+     */
+    private static void printHistogram(String name, long[] nanos) {
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        System.out.printf("%s: p50 %.1f us, p90 %.1f us, p99 %.1f us, p99.9 %.1f us, max %.1f us%n", name,
+                percentile(sorted, 0.50), percentile(sorted, 0.90), percentile(sorted, 0.99),
+                percentile(sorted, 0.999), sorted[sorted.length - 1] / 1e3);
+        int[] buckets = new int[40];
+        for (long ns : nanos) {
+            long us = Math.max(1, ns / 1_000);
+            buckets[63 - Long.numberOfLeadingZeros(us)]++;
+        }
+        for (int b = 0; b < buckets.length; b++) {
+            if (buckets[b] > 0) {
+                int bar = (int) Math.ceil(50.0 * buckets[b] / nanos.length);
+                System.out.printf("  < %,9d us %7d %s%n", 2L << b, buckets[b], "#".repeat(bar));
+            }
+        }
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        return sorted[Math.min(sorted.length - 1, (int) (sorted.length * p))] / 1e3;
+    }
+}
@@ -0,0 +1,314 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.IntStream;
+
+/**
+ * Bulk version of validateIC.validateICDate for batch jobs with millions of ICs.
+ * <p>
+ * Same rules in the same order (hyphens are ignored, then: not empty, only digits, 12 digits, valid YYMMDD in 19xx or 20xx),
+ * but checked in one pass over the characters with no regex, no substring, no LocalDate.parse, no exceptions and no printing.
+ * The date is checked against a calendar table built once. One difference: validateICDate parses in SMART mode,
+ * which clamps day 29-31 to the end of short months (880431 becomes 30 April), while this table only accepts real dates.
+ * <p>
+ * Records are split across threads in blocks of 64 so every block owns exactly one long of the result bitset.
+ */
+public class validateICBulk {
+    public enum Reason { VALID, EMPTY, NOT_DIGITS, WRONG_LENGTH, INVALID_DATE }
+
+    private static final int VALID = 0, EMPTY = 1, NOT_DIGITS = 2, WRONG_LENGTH = 3, INVALID_DATE = 4;
+    private static final int REASONS = 5;
+    private static final int BLOCKS_PER_TASK = 256; // 16k records per parallel task
+
+    // Bit (yy * 12 + (mm - 1)) * 31 + (dd - 1) is set if YYMMDD is a real date in 19yy or 20yy
+    private static final long[] CALENDAR = new long[(100 * 12 * 31 + 63) / 64];
+
+    static {
+        int[] monthDays = {31, 29, 31, 30, 31, 30, 31, 31, 30, 31, 30, 31};
+        for (int yy = 0; yy < 100; yy++) {
+            for (int mm = 1; mm <= 12; mm++) {
+                int days = monthDays[mm - 1];
+                if (mm == 2 && yy % 4 != 0) {
+                    days = 28; // 29 Feb exists in 20yy when yy % 4 == 0 (2000 included), never otherwise
+                }
+                for (int dd = 1; dd <= days; dd++) {
+                    int bit = (yy * 12 + (mm - 1)) * 31 + (dd - 1);
+                    CALENDAR[bit >>> 6] |= 1L << bit;
+                }
+            }
+        }
+    }
+
+    /**
+     * Validity of each record as a bitset, plus how many records failed for each reason.
+     */
+    public static final class Result {
+        private final long[] validBits;
+        private final int size;
+        private final long[] reasonCounts;
+
+        Result(long[] validBits, int size, long[] reasonCounts) {
+            this.validBits = validBits;
+            this.size = size;
+            this.reasonCounts = reasonCounts;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public boolean isValid(int record) {
+            if (record < 0 || record >= size) {
+                throw new IndexOutOfBoundsException("record " + record + " of " + size);
+            }
+            return (validBits[record >>> 6] & (1L << record)) != 0;
+        }
+
+        public long count(Reason reason) {
+            return reasonCounts[reason.ordinal()];
+        }
+
+        /**
+         * The bitset itself, bit i of word i / 64 is record i.
+         */
+        public long[] validBits() {
+            return validBits.clone();
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder("Result{records=").append(size);
+            for (Reason reason : Reason.values()) {
+                sb.append(", ").append(reason).append('=').append(reasonCounts[reason.ordinal()]);
+            }
+            return sb.append('}').toString();
+        }
+    }
+
+    /**
+     * Checks one IC and returns why it failed (or VALID).
+     */
+    public static Reason check(CharSequence ic) {
+        return Reason.values()[code(ic)];
+    }
+
+    static int code(CharSequence ic) {
+        if (ic == null) {
+            return EMPTY;
+        }
+        int digits = 0;
+        int date = 0; // first six digits as a number
+        boolean nonDigit = false;
+        for (int i = 0, n = ic.length(); i < n; i++) {
+            char c = ic.charAt(i);
+            if (c == '-') {
+                continue;
+            }
+            if (c < '0' || c > '9') {
+                nonDigit = true;
+            } else if (digits < 6) {
+                date = date * 10 + (c - '0');
+            }
+            digits++;
+        }
+        return finish(digits, nonDigit, date);
+    }
+
+    private static int finish(int count, boolean nonDigit, int date) {
+        if (count == 0) {
+            return EMPTY;
+        }
+        if (nonDigit) {
+            return NOT_DIGITS;
+        }
+        if (count != 12) {
+            return WRONG_LENGTH;
+        }
+        int yy = date / 10_000, mm = date / 100 % 100, dd = date % 100;
+        if (mm < 1 || mm > 12 || dd < 1 || dd > 31) {
+            return INVALID_DATE;
+        }
+        int bit = (yy * 12 + (mm - 1)) * 31 + (dd - 1);
+        return (CALENDAR[bit >>> 6] & (1L << bit)) != 0 ? VALID : INVALID_DATE;
+    }
+
+    private interface Source {
+        int code(int record);
+    }
+
+    public static Result validateAll(List<? extends CharSequence> ics) {
+        return validate(ics.size(), i -> code(ics.get(i)));
+    }
+
+    public static Result validateAll(CharSequence[] ics) {
+        return validate(ics.length, i -> code(ics[i]));
+    }
+
+    private static Result validate(int size, Source source) {
+        int words = (size + 63) >>> 6;
+        long[] bits = new long[words];
+        AtomicLongArray counts = new AtomicLongArray(REASONS);
+        int tasks = (words + BLOCKS_PER_TASK - 1) / BLOCKS_PER_TASK;
+        IntStream.range(0, tasks).parallel().forEach(t -> {
+            long[] local = new long[REASONS];
+            int lastWord = Math.min(words, (t + 1) * BLOCKS_PER_TASK);
+            for (int w = t * BLOCKS_PER_TASK; w < lastWord; w++) {
+                long word = 0;
+                int end = Math.min(size, (w + 1) << 6);
+                for (int i = w << 6; i < end; i++) {
+                    int code = source.code(i);
+                    local[code]++;
+                    if (code == VALID) {
+                        word |= 1L << i;
+                    }
+                }
+                bits[w] = word; // each word is written by exactly one task
+            }
+            for (int r = 0; r < REASONS; r++) {
+                counts.addAndGet(r, local[r]);
+            }
+        });
+        long[] totals = new long[REASONS];
+        for (int r = 0; r < REASONS; r++) {
+            totals[r] = counts.get(r);
+        }
+        return new Result(bits, size, totals);
+    }
+
+    /**
+     * Validates one column of a CSV file (at most 2 GB), record i being the i-th non-empty line after the optional header.
+     * The file is memory-mapped, cut into chunks at line ends and each chunk is parsed as bytes on its own thread.
+     * Double quotes and '\r' in the field are ignored. Quoted commas are not supported, IC columns never contain them.
+     */
+    public static Result validateCsv(Path file, int column, boolean skipHeader) throws IOException {
+        ByteBuffer data;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("CSV larger than 2 GB, split it first: " + file);
+            }
+            data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        int start = 0;
+        int limit = data.limit();
+        if (skipHeader) {
+            start = nextLine(data, 0, limit);
+        }
+        int chunks = Math.max(1, Math.min(limit / (1 << 20), Runtime.getRuntime().availableProcessors() * 4));
+        int[] bounds = new int[chunks + 1];
+        bounds[0] = start;
+        for (int c = 1; c < chunks; c++) {
+            bounds[c] = nextLine(data, Math.max(bounds[c - 1], start + (int) ((long) (limit - start) * c / chunks)), limit);
+        }
+        bounds[chunks] = limit;
+
+        // Each chunk builds its own bitset starting at bit 0, they are stitched together afterwards
+        long[][] chunkBits = new long[chunks][];
+        int[] chunkRecords = new int[chunks];
+        long[][] chunkCounts = new long[chunks][];
+        IntStream.range(0, chunks).parallel().forEach(c -> {
+            ByteBuffer view = data.duplicate();
+            long[] bits = new long[64];
+            long[] counts = new long[REASONS];
+            int records = 0;
+            int pos = bounds[c];
+            int end = bounds[c + 1];
+            while (pos < end) {
+                int lineEnd = pos;
+                while (lineEnd < end && view.get(lineEnd) != '\n') {
+                    lineEnd++;
+                }
+                if (lineEnd > pos && !(lineEnd == pos + 1 && view.get(pos) == '\r')) {
+                    int code = codeOfField(view, pos, lineEnd, column);
+                    counts[code]++;
+                    if ((records >>> 6) == bits.length) {
+                        bits = Arrays.copyOf(bits, bits.length << 1);
+                    }
+                    if (code == VALID) {
+                        bits[records >>> 6] |= 1L << records;
+                    }
+                    records++;
+                }
+                pos = lineEnd + 1;
+            }
+            chunkBits[c] = bits;
+            chunkRecords[c] = records;
+            chunkCounts[c] = counts;
+        });
+
+        int size = 0;
+        for (int records : chunkRecords) {
+            size += records;
+        }
+        long[] bits = new long[(size + 63) >>> 6];
+        long[] totals = new long[REASONS];
+        int offset = 0;
+        for (int c = 0; c < chunks; c++) {
+            for (int i = 0; i < chunkRecords[c]; i += 64) {
+                long word = chunkBits[c][i >>> 6];
+                int bit = offset + i;
+                bits[bit >>> 6] |= word << bit;
+                if ((bit & 63) != 0 && (bit >>> 6) + 1 < bits.length) {
+                    bits[(bit >>> 6) + 1] |= word >>> (64 - (bit & 63));
+                }
+            }
+            offset += chunkRecords[c];
+            for (int r = 0; r < REASONS; r++) {
+                totals[r] += chunkCounts[c][r];
+            }
+        }
+        return new Result(bits, size, totals);
+    }
+
+    private static int nextLine(ByteBuffer data, int pos, int limit) {
+        while (pos < limit && data.get(pos) != '\n') {
+            pos++;
+        }
+        return Math.min(limit, pos + 1);
+    }
+
+    private static int codeOfField(ByteBuffer line, int from, int to, int column) {
+        int pos = from;
+        for (int col = 0; col < column; col++) {
+            while (pos < to && line.get(pos) != ',') {
+                pos++;
+            }
+            if (pos >= to) {
+                return EMPTY; // the row has no such column
+            }
+            pos++;
+        }
+        int digits = 0;
+        int date = 0;
+        boolean nonDigit = false;
+        for (; pos < to; pos++) {
+            byte b = line.get(pos);
+            if (b == ',') {
+                break;
+            }
+            if (b == '-' || b == '"' || b == '\r') {
+                continue;
+            }
+            if (b < '0' || b > '9') {
+                nonDigit = true;
+            } else if (digits < 6) {
+                date = date * 10 + (b - '0');
+            }
+            digits++;
+        }
+        return finish(digits, nonDigit, date);
+    }
+
+    public static void main(String[] args) {
+        String[] ics = {"880101-01-1234", "880101-01-1234a", "", "8801010112", "881301-01-1234", "000229-14-5678", "010229-14-5678"};
+        Result result = validateAll(ics);
+        for (int i = 0; i < ics.length; i++) {
+            System.out.println("\"" + ics[i] + "\" -> " + (result.isValid(i) ? "valid" : check(ics[i])));
+        }
+        System.out.println(result);
+    }
+}
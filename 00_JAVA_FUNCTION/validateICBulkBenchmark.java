@@ -0,0 +1,97 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * validateIC.validateICDate in a loop versus validateICBulk on a List and on a CSV file.
+ * validateICDate prints every valid IC, so stdout is sent to a null stream while it runs.
+ * Usage: java validateICBulkBenchmark [records]
+ */
+public class validateICBulkBenchmark {
+    public static void main(String[] args) throws IOException {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        String[] ics = generate(n, new Random(9));
+        List<String> list = Arrays.asList(ics);
+        Path csv = Files.createTempFile("ics", ".csv");
+        try (BufferedWriter writer = Files.newBufferedWriter(csv)) {
+            writer.write("id,ic,name\n");
+            for (int i = 0; i < n; i++) {
+                writer.write(i + ",\"" + ics[i] + "\",customer" + i + "\n");
+            }
+        }
+
+        PrintStream stdout = System.out;
+        boolean[] baseline = new boolean[n];
+        long baselineNanos = Long.MAX_VALUE, listNanos = Long.MAX_VALUE, csvNanos = Long.MAX_VALUE;
+        validateICBulk.Result fromList = null, fromCsv = null;
+        for (int round = 0; round < 3; round++) {
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+            long start = System.nanoTime();
+            for (int i = 0; i < n; i++) {
+                baseline[i] = validateIC.validateICDate(ics[i]);
+            }
+            baselineNanos = Math.min(baselineNanos, System.nanoTime() - start);
+            System.setOut(stdout);
+
+            start = System.nanoTime();
+            fromList = validateICBulk.validateAll(list);
+            listNanos = Math.min(listNanos, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            fromCsv = validateICBulk.validateCsv(csv, 1, true);
+            csvNanos = Math.min(csvNanos, System.nanoTime() - start);
+        }
+        Files.delete(csv);
+
+        // The bulk path must agree with validateICDate except for dates SMART parsing clamps (e.g. 31 April)
+        int clamped = 0;
+        for (int i = 0; i < n; i++) {
+            if (fromList.isValid(i) != fromCsv.isValid(i)) {
+                throw new IllegalStateException("list and CSV disagree on record " + i);
+            }
+            if (fromList.isValid(i) != baseline[i]) {
+                if (fromList.isValid(i) || validateICBulk.check(ics[i]) != validateICBulk.Reason.INVALID_DATE) {
+                    throw new IllegalStateException("bulk disagrees with validateICDate on " + ics[i]);
+                }
+                clamped++;
+            }
+        }
+        report("validateICDate loop", n, baselineNanos);
+        report("validateICBulk List", n, listNanos);
+        report("validateICBulk CSV", n, csvNanos);
+        System.out.println(fromList);
+        System.out.println("Clamped day-of-month accepted only by validateICDate: " + clamped);
+    }
+
+    private static void report(String name, int n, long nanos) {
+        System.out.printf("%-22s %8.1f ms  %,12.0f ICs/s%n", name, nanos / 1e6, n / (nanos / 1e9));
+    }
+
+    /**
+     * Mostly well-formed ICs, with some wrong dates, letters, short ones and empties mixed in.
+     */
+    private static String[] generate(int n, Random random) {
+        String[] ics = new String[n];
+        for (int i = 0; i < n; i++) {
+            int kind = random.nextInt(100);
+            String date = String.format("%02d%02d%02d", random.nextInt(100), 1 + random.nextInt(kind < 5 ? 14 : 12),
+                    1 + random.nextInt(kind < 10 ? 31 : 28));
+            String ic = date + "-" + String.format("%02d", random.nextInt(100)) + "-" + String.format("%04d", random.nextInt(10_000));
+            if (kind >= 95 && kind < 97) {
+                ic = ic + "a";
+            } else if (kind == 97) {
+                ic = ic.substring(0, 10);
+            } else if (kind == 98) {
+                ic = "";
+            }
+            ics[i] = ic;
+        }
+        return ics;
+    }
+}
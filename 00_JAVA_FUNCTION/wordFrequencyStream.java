@@ -0,0 +1,368 @@
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Long-lived word counter that takes text as it arrives and answers "top N words in the last M minutes".
+ * <p>
+ * Approach:
+ * - Words are split and lower-cased like duplicateWordsCount (runs of [A-Za-z0-9_]), but with a char scan instead of a regex.
+ * - Time is cut into buckets of slideMillis. A window is the last bucketCount buckets: one bucket gives tumbling windows,
+ *   several give a sliding window that moves by one bucket at a time.
+ * - EXACT mode keeps a count per word per bucket plus a running window total, so an expired bucket is subtracted
+ *   instead of recounting everything.
+ * - HEAVY_HITTERS mode keeps a Space-Saving summary of fixed capacity per bucket. Memory stays bounded however large
+ *   the vocabulary grows, and counts are upper bounds that overestimate by at most (bucket words / capacity) per bucket.
+ *   topN() ranks words by the same upper bound that count() returns.
+ * - Text older than the window is dropped instead of being counted in a bucket it does not belong to, see lateDropped().
+ */
+public class wordFrequencyStream {
+    public enum Mode { EXACT, HEAVY_HITTERS }
+
+    private static final class Counter {
+        final String word;
+        long count;
+        int heapIndex;
+
+        Counter(String word) {
+            this.word = word;
+        }
+    }
+
+    private final Mode mode;
+    private final long slideMillis;
+    private final int bucketCount;
+    private final Map<String, Counter>[] exactBuckets;
+    private final SpaceSaving[] summaries;
+    private final Map<String, Counter> windowTotals = new HashMap<>();
+    private long currentEpoch = Long.MIN_VALUE;
+    private long lateDropped;
+    private char[] scratch = new char[32];
+
+    /**
+     * Tumbling windows: counts reset every windowMillis.
+     */
+    public static wordFrequencyStream tumbling(long windowMillis, Mode mode, int capacity) {
+        return new wordFrequencyStream(windowMillis, 1, mode, capacity);
+    }
+
+    /**
+     * Sliding window of windowMillis that advances every slideMillis.
+     */
+    public static wordFrequencyStream sliding(long windowMillis, long slideMillis, Mode mode, int capacity) {
+        if (windowMillis % slideMillis != 0) {
+            throw new IllegalArgumentException("windowMillis must be a multiple of slideMillis");
+        }
+        return new wordFrequencyStream(slideMillis, (int) (windowMillis / slideMillis), mode, capacity);
+    }
+
+    /**
+     * @param capacity words tracked per bucket in HEAVY_HITTERS mode, ignored in EXACT mode
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public wordFrequencyStream(long slideMillis, int bucketCount, Mode mode, int capacity) {
+        if (slideMillis <= 0 || bucketCount <= 0) {
+            throw new IllegalArgumentException("slideMillis and bucketCount must be positive");
+        }
+        if (mode == Mode.HEAVY_HITTERS && capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive in HEAVY_HITTERS mode");
+        }
+        this.mode = mode;
+        this.slideMillis = slideMillis;
+        this.bucketCount = bucketCount;
+        if (mode == Mode.EXACT) {
+            exactBuckets = new Map[bucketCount];
+            for (int i = 0; i < bucketCount; i++) {
+                exactBuckets[i] = new HashMap<>();
+            }
+            summaries = null;
+        } else {
+            exactBuckets = null;
+            summaries = new SpaceSaving[bucketCount];
+            for (int i = 0; i < bucketCount; i++) {
+                summaries[i] = new SpaceSaving(capacity);
+            }
+        }
+    }
+
+    public void accept(String text) {
+        accept(text, System.currentTimeMillis());
+    }
+
+    /**
+     * Counts every word of text at time nowMillis. Text older than the current window is dropped.
+     */
+    public synchronized void accept(String text, long nowMillis) {
+        int bucket = advanceTo(nowMillis);
+        if (bucket < 0) {
+            lateDropped++;
+            return;
+        }
+        int length = 0;
+        for (int i = 0, n = text.length(); i <= n; i++) {
+            char c = i < n ? text.charAt(i) : ' ';
+            if (c < 128 && (Character.isLetterOrDigit(c) || c == '_')) {
+                if (length == scratch.length) {
+                    scratch = Arrays.copyOf(scratch, length << 1);
+                }
+                scratch[length++] = (c >= 'A' && c <= 'Z') ? (char) (c + 32) : c;
+            } else if (length > 0) {
+                add(bucket, new String(scratch, 0, length));
+                length = 0;
+            }
+        }
+    }
+
+    private void add(int bucket, String word) {
+        if (mode == Mode.EXACT) {
+            exactBuckets[bucket].computeIfAbsent(word, Counter::new).count++;
+            windowTotals.computeIfAbsent(word, Counter::new).count++;
+        } else {
+            summaries[bucket].offer(word);
+        }
+    }
+
+    /**
+     * Number of accept() calls whose text was older than the window and was not counted.
+     */
+    public synchronized long lateDropped() {
+        return lateDropped;
+    }
+
+    /**
+     * Moves the window so it ends at nowMillis, expiring older buckets, and returns the bucket of nowMillis,
+     * or -1 if nowMillis is older than the window.
+     */
+    private int advanceTo(long nowMillis) {
+        long epoch = Math.floorDiv(nowMillis, slideMillis);
+        if (currentEpoch == Long.MIN_VALUE) {
+            currentEpoch = epoch;
+        }
+        if (epoch > currentEpoch) {
+            long steps = Math.min(epoch - currentEpoch, bucketCount);
+            for (long e = epoch - steps + 1; e <= epoch; e++) {
+                expire((int) Math.floorMod(e, (long) bucketCount));
+            }
+            currentEpoch = epoch;
+        }
+        // Late data within the window goes to its own bucket
+        if (epoch <= currentEpoch - bucketCount) {
+            return -1;
+        }
+        return (int) Math.floorMod(epoch, (long) bucketCount);
+    }
+
+    private void expire(int bucket) {
+        if (mode == Mode.EXACT) {
+            for (Counter expired : exactBuckets[bucket].values()) {
+                Counter total = windowTotals.get(expired.word);
+                total.count -= expired.count;
+                if (total.count == 0) {
+                    windowTotals.remove(expired.word);
+                }
+            }
+            exactBuckets[bucket].clear();
+        } else {
+            summaries[bucket].clear();
+        }
+    }
+
+    public List<Map.Entry<String, Long>> topN(int n) {
+        return topN(n, System.currentTimeMillis());
+    }
+
+    /**
+     * The n most frequent words in the window ending at nowMillis, highest count first.
+     */
+    public synchronized List<Map.Entry<String, Long>> topN(int n, long nowMillis) {
+        advanceTo(nowMillis);
+        Map<String, Counter> totals;
+        if (mode == Mode.EXACT) {
+            totals = windowTotals;
+        } else {
+            // The same upper bound as count(): a bucket that does not track a word adds its smallest counter.
+            // Every word starts from the sum of those floors, and a bucket that tracks it swaps its floor for its count.
+            totals = new HashMap<>();
+            long floors = 0;
+            for (SpaceSaving summary : summaries) {
+                long floor = summary.floor();
+                floors += floor;
+                for (int i = 0; i < summary.size; i++) {
+                    Counter c = summary.heap[i];
+                    totals.computeIfAbsent(c.word, Counter::new).count += c.count - floor;
+                }
+            }
+            for (Counter c : totals.values()) {
+                c.count += floors;
+            }
+        }
+        return selectTop(totals, n);
+    }
+
+    /**
+     * Window count of word. Exact in EXACT mode, an upper bound in HEAVY_HITTERS mode.
+     */
+    public synchronized long count(String word, long nowMillis) {
+        advanceTo(nowMillis);
+        String key = word.toLowerCase();
+        if (mode == Mode.EXACT) {
+            Counter c = windowTotals.get(key);
+            return c == null ? 0 : c.count;
+        }
+        long total = 0;
+        for (SpaceSaving summary : summaries) {
+            total += summary.estimate(key);
+        }
+        return total;
+    }
+
+    private static List<Map.Entry<String, Long>> selectTop(Map<String, Counter> totals, int n) {
+        // Bounded min-heap on count, so the cost is O(V log n) rather than sorting the whole vocabulary
+        Counter[] heap = new Counter[Math.max(0, Math.min(n, totals.size()))];
+        int size = 0;
+        for (Counter c : totals.values()) {
+            if (heap.length == 0) {
+                break;
+            }
+            if (size < heap.length) {
+                heap[size] = c;
+                SpaceSaving.siftUp(heap, size++);
+            } else if (c.count > heap[0].count) {
+                heap[0] = c;
+                SpaceSaving.siftDown(heap, 0, size);
+            }
+        }
+        List<Map.Entry<String, Long>> result = new ArrayList<>(size);
+        while (size > 0) {
+            Counter top = heap[0];
+            heap[0] = heap[--size];
+            SpaceSaving.siftDown(heap, 0, size);
+            result.add(new AbstractMap.SimpleImmutableEntry<>(top.word, top.count));
+        }
+        Collections.reverse(result);
+        return result;
+    }
+
+    /**
+     * Space-Saving heavy-hitters summary (Metwally et al.): at most capacity counters,
+     * kept in an indexed min-heap so the smallest one can be replaced in O(log capacity).
+     */
+    static final class SpaceSaving {
+        final Counter[] heap;
+        final Map<String, Counter> index;
+        int size;
+
+        SpaceSaving(int capacity) {
+            heap = new Counter[capacity];
+            index = new HashMap<>(capacity * 2);
+        }
+
+        void offer(String word) {
+            Counter c = index.get(word);
+            if (c != null) {
+                c.count++;
+                siftDown(heap, c.heapIndex, size);
+            } else if (size < heap.length) {
+                c = new Counter(word);
+                c.count = 1;
+                index.put(word, c);
+                heap[size] = c;
+                c.heapIndex = size;
+                siftUp(heap, size++);
+            } else {
+                // Replace the smallest counter: the new word inherits its count, which is the possible overestimate
+                Counter min = heap[0];
+                index.remove(min.word);
+                c = new Counter(word);
+                c.count = min.count + 1;
+                index.put(word, c);
+                heap[0] = c;
+                c.heapIndex = 0;
+                siftDown(heap, 0, size);
+            }
+        }
+
+        long estimate(String word) {
+            Counter c = index.get(word);
+            if (c != null) {
+                return c.count;
+            }
+            return floor();
+        }
+
+        // An untracked word may still have been seen up to min-count times
+        long floor() {
+            return size == heap.length ? heap[0].count : 0;
+        }
+
+        void clear() {
+            Arrays.fill(heap, 0, size, null);
+            index.clear();
+            size = 0;
+        }
+
+        static void siftUp(Counter[] heap, int i) {
+            Counter c = heap[i];
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (heap[parent].count <= c.count) {
+                    break;
+                }
+                heap[i] = heap[parent];
+                heap[i].heapIndex = i;
+                i = parent;
+            }
+            heap[i] = c;
+            c.heapIndex = i;
+        }
+
+        static void siftDown(Counter[] heap, int i, int size) {
+            Counter c = heap[i];
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && heap[child + 1].count < heap[child].count) {
+                    child++;
+                }
+                if (heap[child].count >= c.count) {
+                    break;
+                }
+                heap[i] = heap[child];
+                heap[i].heapIndex = i;
+                i = child;
+            }
+            heap[i] = c;
+            c.heapIndex = i;
+        }
+    }
+
+    public static void main(String[] args) {
+        // 1 minute sliding window that moves every 10 seconds
+        wordFrequencyStream stream = sliding(60_000, 10_000, Mode.EXACT, 0);
+        stream.accept("Today is a wonderful day, today is shiny day.", 0);
+        stream.accept("Tomorrow is another day.", 30_000);
+        System.out.println("Top 3 at t=30s: " + stream.topN(3, 30_000)); // [is=3, day=3, today=2]
+        System.out.println("Top 3 at t=65s: " + stream.topN(3, 65_000)); // first text has expired
+        stream.accept("Today today today", 1_000); // older than the window that now ends at 65s
+        System.out.println("Top 3 at t=65s: " + stream.topN(3, 65_000) + ", late texts dropped: " + stream.lateDropped()); // unchanged, 1
+
+        // Tumbling windows: a late event must not be counted in the current window
+        wordFrequencyStream tumbling = tumbling(60_000, Mode.HEAVY_HITTERS, 2);
+        tumbling.accept("alpha beta beta gamma gamma gamma", 0);
+        tumbling.accept("delta delta", 60_000);
+        tumbling.accept("delta", 59_999); // belongs to the window that has closed
+        System.out.println("Tumbling top 2: " + tumbling.topN(2, 60_000) + ", count(delta) " + tumbling.count("delta", 60_000)); // [delta=2], 2
+
+        // HEAVY_HITTERS: b is evicted from the first bucket by c, so both topN and count() add that bucket's floor (2)
+        wordFrequencyStream hitters = sliding(20_000, 10_000, Mode.HEAVY_HITTERS, 2);
+        hitters.accept("a a a b c", 0);
+        hitters.accept("b b b", 10_000);
+        System.out.println("Heavy hitters top 2: " + hitters.topN(2, 10_000) + ", count(b) " + hitters.count("b", 10_000)); // [b=5, a=3], 5
+    }
+}
@@ -0,0 +1,100 @@
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Ingest throughput and top-10 query latency for wordFrequencyStream (EXACT and HEAVY_HITTERS),
+ * compared with re-running duplicateWordsCounting over every document in the window for each query.
+ * Usage: java wordFrequencyStreamBenchmark [documents]
+ */
+public class wordFrequencyStreamBenchmark {
+    private static final long WINDOW = 60_000;
+    private static final long SLIDE = 1_000;
+    private static final long DOC_INTERVAL = 5; // simulated ms between documents
+    private static volatile Object sink;
+
+    public static void main(String[] args) {
+        int documents = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        String[] docs = generate(documents, 200_000, new Random(7));
+        long words = 0;
+        for (String doc : docs) {
+            words += doc.split(" ").length;
+        }
+
+        for (wordFrequencyStream.Mode mode : wordFrequencyStream.Mode.values()) {
+            wordFrequencyStream stream = wordFrequencyStream.sliding(WINDOW, SLIDE, mode, 2_000);
+            long start = System.nanoTime();
+            for (int i = 0; i < docs.length; i++) {
+                stream.accept(docs[i], i * DOC_INTERVAL);
+            }
+            long nanos = System.nanoTime() - start;
+            System.out.printf("%-14s ingest %,12.0f words/s%n", mode, words / (nanos / 1e9));
+
+            long now = (docs.length - 1) * DOC_INTERVAL;
+            long[] latencies = new long[2_000];
+            for (int q = 0; q < latencies.length; q++) {
+                long t0 = System.nanoTime();
+                stream.topN(10, now);
+                latencies[q] = System.nanoTime() - t0;
+            }
+            printLatencies(mode + " top-10", latencies);
+            List<Map.Entry<String, Long>> top = stream.topN(5, now);
+            for (Map.Entry<String, Long> entry : top) {
+                if (entry.getValue() != stream.count(entry.getKey(), now)) {
+                    throw new IllegalStateException(mode + ": topN has " + entry + ", count() " + stream.count(entry.getKey(), now));
+                }
+            }
+            System.out.println("  " + top);
+        }
+
+        // Baseline: keep the window's documents and recount them for every query
+        Deque<String> window = new ArrayDeque<>();
+        int first = (int) Math.max(0, docs.length - WINDOW / DOC_INTERVAL);
+        for (int i = first; i < docs.length; i++) {
+            window.add(docs[i]);
+        }
+        long[] latencies = new long[20];
+        for (int q = 0; q < latencies.length; q++) {
+            long t0 = System.nanoTime();
+            StringBuilder text = new StringBuilder();
+            for (String doc : window) {
+                text.append(doc).append(' ');
+            }
+            Map<String, Integer> counts = duplicateWordsCount.duplicateWordsCounting(text.toString());
+            List<Map.Entry<String, Integer>> top = counts.entrySet().stream()
+                    .sorted(Map.Entry.<String, Integer>comparingByValue().reversed()).limit(10).toList();
+            sink = top;
+            latencies[q] = System.nanoTime() - t0;
+        }
+        printLatencies("recount top-10", latencies);
+    }
+
+    private static void printLatencies(String name, long[] nanos) {
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        System.out.printf("%-22s p50 %,10.1f us  p99 %,10.1f us  max %,10.1f us%n", name,
+                sorted[sorted.length / 2] / 1e3, sorted[(int) (sorted.length * 0.99)] / 1e3, sorted[sorted.length - 1] / 1e3);
+    }
+
+    /**
+     * Documents of 10-40 words drawn from a skewed vocabulary, so a few words dominate and the tail keeps growing.
+     */
+    private static String[] generate(int documents, int vocabularySize, Random random) {
+        String[] docs = new String[documents];
+        StringBuilder sb = new StringBuilder();
+        for (int d = 0; d < documents; d++) {
+            sb.setLength(0);
+            int length = 10 + random.nextInt(31);
+            for (int w = 0; w < length; w++) {
+                double u = random.nextDouble();
+                int rank = (int) (vocabularySize * u * u * u * u);
+                sb.append('w').append(Integer.toString(rank, 36)).append(w % 7 == 6 ? ". " : " ");
+            }
+            docs[d] = sb.toString();
+        }
+        return docs;
+    }
+}
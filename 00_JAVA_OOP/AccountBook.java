@@ -0,0 +1,256 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+
+/**
+ * Columnar store for millions of Inheritance accounts, for end-of-day batch jobs.
+ * <p>
+ * Each field is one primitive array indexed by account id (numbers, balances, interest rates, overdraft limits),
+ * so a nightly pass streams through a few flat arrays instead of chasing one heap object per account.
+ * Checking accounts get an interest rate of 0, which makes the interest loop branch-free:
+ * balance + balance * 0 is the balance itself, and C2 can vectorize the loop.
+ * Bulk passes are split into fixed blocks that run as a parallel stream.
+ */
+public class AccountBook {
+    public static final byte SAVINGS = 0, CHECKING = 1;
+
+    private static final int BLOCK = 1 << 16;
+
+    private String[] numbers;
+    private byte[] kinds;
+    private double[] balances;
+    private double[] rates;
+    private double[] overdraftLimits;
+    private int size;
+    private int skippedFees;
+
+    public AccountBook(int capacity) {
+        capacity = Math.max(1, capacity);
+        numbers = new String[capacity];
+        kinds = new byte[capacity];
+        balances = new double[capacity];
+        rates = new double[capacity];
+        overdraftLimits = new double[capacity];
+    }
+
+    /**
+     * Copies the accounts in, account i of the list becomes id i.
+     */
+    public static AccountBook of(List<? extends Inheritance.Account> accounts) {
+        AccountBook book = new AccountBook(accounts.size());
+        for (Inheritance.Account account : accounts) {
+            book.add(account);
+        }
+        return book;
+    }
+
+    public int add(Inheritance.Account account) {
+        if (account instanceof Inheritance.SavingsAccount) {
+            return add(account.getAccountNumber(), SAVINGS, account.getBalance(),
+                    ((Inheritance.SavingsAccount) account).getInterestRate(), 0);
+        }
+        if (account instanceof Inheritance.CheckingAccount) {
+            return add(account.getAccountNumber(), CHECKING, account.getBalance(),
+                    0, ((Inheritance.CheckingAccount) account).getOverdraftLimit());
+        }
+        throw new IllegalArgumentException("Unsupported account type: " + account.getClass().getName());
+    }
+
+    public int add(String accountNumber, byte kind, double balance, double interestRate, double overdraftLimit) {
+        if (kind != SAVINGS && kind != CHECKING) {
+            throw new IllegalArgumentException("Unknown kind: " + kind);
+        }
+        if (size == balances.length) {
+            int capacity = size << 1;
+            numbers = Arrays.copyOf(numbers, capacity);
+            kinds = Arrays.copyOf(kinds, capacity);
+            balances = Arrays.copyOf(balances, capacity);
+            rates = Arrays.copyOf(rates, capacity);
+            overdraftLimits = Arrays.copyOf(overdraftLimits, capacity);
+        }
+        numbers[size] = accountNumber;
+        kinds[size] = kind;
+        balances[size] = balance;
+        rates[size] = kind == SAVINGS ? interestRate : 0;
+        overdraftLimits[size] = kind == CHECKING ? overdraftLimit : 0;
+        return size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public String accountNumber(int id) {
+        checkId(id);
+        return numbers[id];
+    }
+
+    public double balance(int id) {
+        checkId(id);
+        return balances[id];
+    }
+
+    private void checkId(int id) {
+        if (id < 0 || id >= size) {
+            throw new IndexOutOfBoundsException("account " + id + " of " + size);
+        }
+    }
+
+    private interface BlockTask {
+        double run(int from, int to);
+    }
+
+    private double forEachBlock(BlockTask task) {
+        int blocks = (size + BLOCK - 1) / BLOCK;
+        return IntStream.range(0, blocks).parallel()
+                .mapToDouble(b -> task.run(b * BLOCK, Math.min(size, (b + 1) * BLOCK)))
+                .sum();
+    }
+
+    /**
+     * Same as calling addInterest() on every SavingsAccount, with bit-identical results. Returns the total interest paid.
+     */
+    public double applyInterest() {
+        double[] balances = this.balances, rates = this.rates;
+        return forEachBlock((from, to) -> {
+            double paid = 0;
+            for (int i = from; i < to; i++) {
+                double interest = balances[i] * rates[i];
+                balances[i] += interest;
+                paid += interest;
+            }
+            return paid;
+        });
+    }
+
+    /**
+     * Charges fee to every account whose balance is below minimumBalance. Returns the total collected.
+     * As with withdraw(), a fee is only charged if it fits in the balance plus the overdraft limit (0 for savings),
+     * so no account ends up past its limit. The accounts left uncharged are counted in skippedFees().
+     */
+    public double applyFees(double minimumBalance, double fee) {
+        double[] balances = this.balances, limits = this.overdraftLimits;
+        LongAdder skipped = new LongAdder();
+        double collected = forEachBlock((from, to) -> {
+            double sum = 0;
+            int cannotPay = 0;
+            for (int i = from; i < to; i++) {
+                double balance = balances[i];
+                double charge = balance < minimumBalance ? fee : 0;
+                if (charge > balance + limits[i]) {
+                    charge = 0;
+                    cannotPay++;
+                }
+                balances[i] = balance - charge;
+                sum += charge;
+            }
+            skipped.add(cannotPay);
+            return sum;
+        });
+        skippedFees = skipped.intValue();
+        return collected;
+    }
+
+    /**
+     * Interest then fees in one pass over the columns, so each balance is loaded and stored once.
+     * Fees follow the same overdraft rule as applyFees. Returns the number of accounts that could not pay the fee.
+     */
+    public int endOfDay(double minimumBalance, double fee) {
+        double[] balances = this.balances, rates = this.rates, limits = this.overdraftLimits;
+        skippedFees = (int) forEachBlock((from, to) -> {
+            int cannotPay = 0;
+            for (int i = from; i < to; i++) {
+                double balance = balances[i];
+                balance += balance * rates[i];
+                if (balance < minimumBalance) {
+                    if (fee <= balance + limits[i]) {
+                        balance -= fee;
+                    } else {
+                        cannotPay++;
+                    }
+                }
+                balances[i] = balance;
+            }
+            return cannotPay;
+        });
+        return skippedFees;
+    }
+
+    /**
+     * Number of accounts the last applyFees or endOfDay left uncharged because the fee would exceed their overdraft limit.
+     */
+    public int skippedFees() {
+        return skippedFees;
+    }
+
+    public double totalBalance() {
+        double[] balances = this.balances;
+        return forEachBlock((from, to) -> {
+            double total = 0;
+            for (int i = from; i < to; i++) {
+                total += balances[i];
+            }
+            return total;
+        });
+    }
+
+    /**
+     * Number of checking accounts currently using their overdraft.
+     */
+    public int overdrawnCount() {
+        return (int) forEachBlock((from, to) -> {
+            int count = 0;
+            for (int i = from; i < to; i++) {
+                if (kinds[i] == CHECKING && balances[i] < 0) {
+                    count++;
+                }
+            }
+            return count;
+        });
+    }
+
+    /**
+     * Builds new account objects from the columns.
+     */
+    public List<Inheritance.Account> toAccounts() {
+        List<Inheritance.Account> accounts = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            accounts.add(kinds[i] == SAVINGS
+                    ? new Inheritance.SavingsAccount(numbers[i], balances[i], rates[i])
+                    : new Inheritance.CheckingAccount(numbers[i], balances[i], overdraftLimits[i]));
+        }
+        return accounts;
+    }
+
+    /**
+     * Writes the balances back into the objects this book was built from, account i getting the balance of id i.
+     */
+    public void exportTo(List<? extends Inheritance.Account> accounts) {
+        if (accounts.size() != size) {
+            throw new IllegalArgumentException("Expected " + size + " accounts, got " + accounts.size());
+        }
+        for (int i = 0; i < size; i++) {
+            Inheritance.Account account = accounts.get(i);
+            if (!account.getAccountNumber().equals(numbers[i])) {
+                throw new IllegalArgumentException("Account " + i + " is " + account.getAccountNumber() + ", expected " + numbers[i]);
+            }
+            account.balance = balances[i];
+        }
+    }
+
+    public static void main(String[] args) {
+        List<Inheritance.Account> accounts = List.of(
+                new Inheritance.SavingsAccount("S-1", 1000.0, 0.05),
+                new Inheritance.CheckingAccount("C-1", 20.0, 100.0));
+        AccountBook book = AccountBook.of(accounts);
+        System.out.println("Interest paid: " + book.applyInterest()); // 50.0
+        System.out.println("Fees collected: " + book.applyFees(50.0, 25.0)); // 25.0
+        book.exportTo(accounts);
+        System.out.println("Savings: " + accounts.get(0).getBalance()); // 1050.0
+        System.out.println("Checking: " + accounts.get(1).getBalance()); // -5.0
+        System.out.println("Overdrawn: " + book.overdrawnCount()); // 1
+        System.out.println("Fees collected: " + book.applyFees(50.0, 100.0) + ", skipped " + book.skippedFees()); // 0.0, skipped 1
+    }
+}
@@ -0,0 +1,65 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Nightly interest run over millions of accounts: a loop of addInterest() calls on Account objects
+ * against AccountBook's columnar pass. The resulting balances must match bit for bit.
+ * Usage: java -Xmx4g AccountBookBenchmark [accounts] [days]
+ */
+public class AccountBookBenchmark {
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 5_000_000;
+        int days = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        Random random = new Random(13);
+        List<Inheritance.Account> accounts = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            double balance = random.nextInt(1_000_000) / 100.0;
+            accounts.add(random.nextBoolean()
+                    ? new Inheritance.SavingsAccount("S" + i, balance, 0.0001 * (1 + random.nextInt(5)))
+                    : new Inheritance.CheckingAccount("C" + i, balance, 500.0));
+        }
+        // Objects allocated in order sit next to each other, a real heap after years of churn does not
+        Collections.shuffle(accounts, random);
+
+        long start = System.nanoTime();
+        AccountBook book = AccountBook.of(accounts);
+        System.out.printf("Import: %.1f ms%n", (System.nanoTime() - start) / 1e6);
+
+        for (int round = 0; round < 3; round++) {
+            boolean print = round == 2;
+            start = System.nanoTime();
+            for (int day = 0; day < days; day++) {
+                for (Inheritance.Account account : accounts) {
+                    if (account instanceof Inheritance.SavingsAccount) {
+                        ((Inheritance.SavingsAccount) account).addInterest();
+                    }
+                }
+            }
+            long objects = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int day = 0; day < days; day++) {
+                book.applyInterest();
+            }
+            long columns = System.nanoTime() - start;
+            if (print) {
+                System.out.printf("%-24s %10.1f ms  %,8.0f M accounts/s%n", "Account objects", objects / 1e6, (double) n * days / (objects / 1e3));
+                System.out.printf("%-24s %10.1f ms  %,8.0f M accounts/s%n", "AccountBook.applyInterest", columns / 1e6, (double) n * days / (columns / 1e3));
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            if (book.balance(i) != accounts.get(i).getBalance()) {
+                throw new IllegalStateException("account " + i + ": " + book.balance(i) + " vs " + accounts.get(i).getBalance());
+            }
+        }
+
+        start = System.nanoTime();
+        int skipped = book.endOfDay(100.0, 2.5);
+        System.out.printf("%-24s %10.1f ms  %,d fees skipped%n", "AccountBook.endOfDay", (System.nanoTime() - start) / 1e6, skipped);
+        start = System.nanoTime();
+        book.exportTo(accounts);
+        System.out.printf("Export: %.1f ms, total balance %.2f%n", (System.nanoTime() - start) / 1e6, book.totalBalance());
+    }
+}
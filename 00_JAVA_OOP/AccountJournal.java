@@ -0,0 +1,342 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Durable event log for Inheritance.Account balances, so deposits, withdrawals and interest can be audited and recovered.
+ * <p>
+ * Layout of the directory:
+ * - accounts.dir: one line per registered account (id, type, account number, rate or overdraft limit).
+ * - journal-&lt;first sequence&gt;.log: memory-mapped segments of fixed-width 40-byte records
+ *   (sequence, account id, type, amount, balance after, checksum).
+ * - snapshot.bin: every balance as of one sequence number, replaced atomically.
+ * <p>
+ * Appends go straight into the mapped segment. They are forced to disk once every groupCommit records, or on sync().
+ * On restart the latest snapshot is loaded and only the records after it are replayed. Replay stops at the first record
+ * with a bad checksum or sequence, which is where a crash tore the tail. Segments fully covered by a snapshot are deleted.
+ */
+public class AccountJournal implements Closeable {
+    public static final int OPEN = 1, DEPOSIT = 2, WITHDRAW = 3, INTEREST = 4;
+
+    static final int RECORD_BYTES = 40;
+    public static final int MAX_RECORDS_PER_SEGMENT = Integer.MAX_VALUE / RECORD_BYTES;
+    private static final int SNAPSHOT_MAGIC = 0x534E4150; // "SNAP"
+
+    private final Path dir;
+    private final int recordsPerSegment;
+    private final int groupCommit;
+    private final long snapshotEvery;
+    private final List<Inheritance.Account> accounts = new ArrayList<>();
+    private FileChannel directory;
+    private MappedByteBuffer segment;
+    private long segmentFirstSeq;
+    private int dirtyFrom;
+    private long lastSeq;
+    private long snapshotSeq;
+    private long recoveredRecords;
+
+    public AccountJournal(Path dir) throws IOException {
+        this(dir, 1 << 20, 1024, 0);
+    }
+
+    /**
+     * @param recordsPerSegment records per journal file, at most MAX_RECORDS_PER_SEGMENT (one mapping of under 2 GB)
+     * @param groupCommit       records appended between two forces to disk (1 = force every record),
+     *                          at most MAX_RECORDS_PER_SEGMENT
+     * @param snapshotEvery     take a snapshot every this many records, 0 to only snapshot on request
+     */
+    public AccountJournal(Path dir, int recordsPerSegment, int groupCommit, long snapshotEvery) throws IOException {
+        if (recordsPerSegment <= 0 || groupCommit <= 0 || snapshotEvery < 0) {
+            throw new IllegalArgumentException("recordsPerSegment and groupCommit must be positive, snapshotEvery >= 0");
+        }
+        // Byte offsets in a segment are ints
+        if (recordsPerSegment > MAX_RECORDS_PER_SEGMENT || groupCommit > MAX_RECORDS_PER_SEGMENT) {
+            throw new IllegalArgumentException("recordsPerSegment and groupCommit must be at most " + MAX_RECORDS_PER_SEGMENT);
+        }
+        this.dir = dir;
+        this.recordsPerSegment = recordsPerSegment;
+        this.groupCommit = groupCommit;
+        this.snapshotEvery = snapshotEvery;
+        Files.createDirectories(dir);
+        recover();
+    }
+
+    public synchronized int register(Inheritance.Account account) throws IOException {
+        String kind;
+        double parameter;
+        if (account instanceof Inheritance.SavingsAccount) {
+            kind = "S";
+            parameter = ((Inheritance.SavingsAccount) account).getInterestRate();
+        } else if (account instanceof Inheritance.CheckingAccount) {
+            kind = "C";
+            parameter = ((Inheritance.CheckingAccount) account).getOverdraftLimit();
+        } else {
+            throw new IllegalArgumentException("Unsupported account type: " + account.getClass().getName());
+        }
+        int id = accounts.size();
+        String line = id + "," + kind + "," + account.getAccountNumber() + "," + Double.toString(parameter) + "\n";
+        directory.write(ByteBuffer.wrap(line.getBytes(StandardCharsets.UTF_8)));
+        directory.force(false);
+        accounts.add(account);
+        append(id, OPEN, account.getBalance(), account.getBalance());
+        return id;
+    }
+
+    public synchronized Inheritance.Account account(int id) {
+        return accounts.get(id);
+    }
+
+    public synchronized int accountCount() {
+        return accounts.size();
+    }
+
+    public synchronized void deposit(int id, double amount) throws IOException {
+        Inheritance.Account account = accounts.get(id);
+        account.deposit(amount);
+        append(id, DEPOSIT, amount, account.getBalance());
+    }
+
+    /**
+     * Only successful withdrawals are journaled, a rejected one leaves no trace.
+     */
+    public synchronized boolean withdraw(int id, double amount) throws IOException {
+        Inheritance.Account account = accounts.get(id);
+        if (!account.withdraw(amount)) {
+            return false;
+        }
+        append(id, WITHDRAW, amount, account.getBalance());
+        return true;
+    }
+
+    public synchronized void addInterest(int id) throws IOException {
+        Inheritance.Account account = accounts.get(id);
+        if (!(account instanceof Inheritance.SavingsAccount)) {
+            throw new IllegalArgumentException("Account " + id + " is not a savings account");
+        }
+        double before = account.getBalance();
+        ((Inheritance.SavingsAccount) account).addInterest();
+        append(id, INTEREST, account.getBalance() - before, account.getBalance());
+    }
+
+    public synchronized long lastSequence() {
+        return lastSeq;
+    }
+
+    /**
+     * Number of journal records replayed by the last recovery (records after the snapshot).
+     */
+    public synchronized long recoveredRecords() {
+        return recoveredRecords;
+    }
+
+    private void append(int id, int type, double amount, double balanceAfter) throws IOException {
+        long seq = lastSeq + 1;
+        if (segment == null || seq - segmentFirstSeq >= recordsPerSegment) {
+            roll(seq);
+        }
+        int pos = (int) (seq - segmentFirstSeq) * RECORD_BYTES;
+        segment.putLong(pos, seq);
+        segment.putInt(pos + 8, id);
+        segment.putInt(pos + 12, type);
+        segment.putDouble(pos + 16, amount);
+        segment.putDouble(pos + 24, balanceAfter);
+        segment.putLong(pos + 32, checksum(seq, id, type, amount, balanceAfter));
+        lastSeq = seq;
+        if (pos + RECORD_BYTES - dirtyFrom >= groupCommit * RECORD_BYTES) {
+            flushSegment();
+        }
+        if (snapshotEvery > 0 && seq - snapshotSeq >= snapshotEvery) {
+            snapshot();
+        }
+    }
+
+    private void flushSegment() {
+        int end = (int) (lastSeq + 1 - segmentFirstSeq) * RECORD_BYTES;
+        if (end > dirtyFrom) {
+            segment.force(dirtyFrom, end - dirtyFrom);
+            dirtyFrom = end;
+        }
+    }
+
+    /**
+     * Forces every appended record to disk.
+     */
+    public synchronized void sync() {
+        if (segment != null) {
+            flushSegment();
+        }
+    }
+
+    private void roll(long firstSeq) throws IOException {
+        if (segment != null) {
+            flushSegment();
+        }
+        segment = map(segmentPath(firstSeq));
+        segmentFirstSeq = firstSeq;
+        dirtyFrom = 0;
+    }
+
+    private MappedByteBuffer map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) recordsPerSegment * RECORD_BYTES);
+        }
+    }
+
+    private Path segmentPath(long firstSeq) {
+        return dir.resolve(String.format("journal-%020d.log", firstSeq));
+    }
+
+    /**
+     * Writes every balance as of lastSequence() to snapshot.bin and deletes journal segments it fully covers.
+     */
+    public synchronized void snapshot() throws IOException {
+        sync();
+        Path tmp = dir.resolve("snapshot.bin.tmp");
+        ByteBuffer buffer = ByteBuffer.allocate(16 + accounts.size() * 8);
+        buffer.putInt(SNAPSHOT_MAGIC).putLong(lastSeq).putInt(accounts.size());
+        for (Inheritance.Account account : accounts) {
+            buffer.putDouble(account.getBalance());
+        }
+        buffer.flip();
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(tmp, dir.resolve("snapshot.bin"), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        snapshotSeq = lastSeq;
+        List<Long> firsts = segmentStarts();
+        for (int i = 0; i + 1 < firsts.size(); i++) {
+            // Segment i ends just before segment i + 1 starts
+            if (firsts.get(i + 1) - 1 <= snapshotSeq && firsts.get(i) != segmentFirstSeq) {
+                Files.deleteIfExists(segmentPath(firsts.get(i)));
+            }
+        }
+    }
+
+    private List<Long> segmentStarts() throws IOException {
+        List<Long> firsts = new ArrayList<>();
+        try (Stream<Path> files = Files.list(dir)) {
+            files.map(p -> p.getFileName().toString())
+                    .filter(name -> name.startsWith("journal-") && name.endsWith(".log"))
+                    .forEach(name -> firsts.add(Long.parseLong(name.substring(8, name.length() - 4))));
+        }
+        firsts.sort(null);
+        return firsts;
+    }
+
+    private void recover() throws IOException {
+        Path directoryFile = dir.resolve("accounts.dir");
+        if (Files.exists(directoryFile)) {
+            for (String line : Files.readAllLines(directoryFile, StandardCharsets.UTF_8)) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                String[] parts = line.split(",", 4);
+                double parameter = Double.parseDouble(parts[3]);
+                accounts.add(parts[1].equals("S")
+                        ? new Inheritance.SavingsAccount(parts[2], 0, parameter)
+                        : new Inheritance.CheckingAccount(parts[2], 0, parameter));
+            }
+        }
+        directory = FileChannel.open(directoryFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+
+        Path snapshotFile = dir.resolve("snapshot.bin");
+        if (Files.exists(snapshotFile)) {
+            ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(snapshotFile));
+            if (buffer.getInt() != SNAPSHOT_MAGIC) {
+                throw new IOException("Not a snapshot file: " + snapshotFile);
+            }
+            snapshotSeq = buffer.getLong();
+            int count = buffer.getInt();
+            for (int id = 0; id < count; id++) {
+                accounts.get(id).balance = buffer.getDouble();
+            }
+        }
+        lastSeq = snapshotSeq;
+
+        List<Long> firsts = segmentStarts();
+        for (int i = 0; i < firsts.size(); i++) {
+            long first = firsts.get(i);
+            boolean last = i + 1 == firsts.size();
+            if (!last && firsts.get(i + 1) - 1 <= snapshotSeq) {
+                continue; // covered by the snapshot
+            }
+            MappedByteBuffer mapped = map(segmentPath(first));
+            long seq = Math.max(first, lastSeq + 1);
+            for (; seq - first < recordsPerSegment; seq++) {
+                int pos = (int) (seq - first) * RECORD_BYTES;
+                long recordSeq = mapped.getLong(pos);
+                int id = mapped.getInt(pos + 8);
+                int type = mapped.getInt(pos + 12);
+                double amount = mapped.getDouble(pos + 16);
+                double balanceAfter = mapped.getDouble(pos + 24);
+                if (recordSeq != seq || mapped.getLong(pos + 32) != checksum(recordSeq, id, type, amount, balanceAfter)) {
+                    break; // end of the log, or a record torn by a crash
+                }
+                accounts.get(id).balance = balanceAfter;
+                lastSeq = seq;
+                recoveredRecords++;
+            }
+            if (lastSeq + 1 < first) {
+                throw new IOException("Journal gap: no records between " + lastSeq + " and " + first);
+            }
+            if (last) {
+                segment = mapped;
+                segmentFirstSeq = first;
+                dirtyFrom = (int) (lastSeq + 1 - first) * RECORD_BYTES;
+                // Pages can reach the disk out of order, so records from before the crash may survive past the torn one.
+                // Wipe them, otherwise they would look valid again once new appends fill the gap.
+                for (int pos = dirtyFrom; pos + 8 <= mapped.capacity(); pos += 8) {
+                    if (mapped.getLong(pos) != 0) {
+                        mapped.putLong(pos, 0);
+                    }
+                }
+                mapped.force();
+            }
+        }
+    }
+
+    static long checksum(long seq, int id, int type, double amount, double balanceAfter) {
+        long h = seq * 0x9E3779B97F4A7C15L;
+        h = (h ^ ((long) id << 32 | type & 0xFFFF_FFFFL)) * 0xBF58476D1CE4E5B9L;
+        h = (h ^ Double.doubleToRawLongBits(amount)) * 0x94D049BB133111EBL;
+        h = (h ^ Double.doubleToRawLongBits(balanceAfter)) * 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 31);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        sync();
+        directory.close();
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path dir = Files.createTempDirectory("journal");
+        try (AccountJournal journal = new AccountJournal(dir)) {
+            int savings = journal.register(new Inheritance.SavingsAccount("S-1", 1000.0, 0.05));
+            int checking = journal.register(new Inheritance.CheckingAccount("C-1", 100.0, 50.0));
+            journal.deposit(savings, 500.0);
+            journal.addInterest(savings);
+            journal.withdraw(checking, 120.0); // within the overdraft limit
+            journal.snapshot();
+            journal.deposit(checking, 20.0);
+        }
+        try (AccountJournal recovered = new AccountJournal(dir)) {
+            System.out.println("Savings after recovery: " + recovered.account(0).getBalance()); // 1575.0
+            System.out.println("Checking after recovery: " + recovered.account(1).getBalance()); // 0.0
+            System.out.println("Replayed after snapshot: " + recovered.recoveredRecords()); // 1
+        }
+    }
+}
@@ -0,0 +1,98 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * Sustained events/s of AccountJournal for several group commit sizes, then recovery time from a long journal
+ * with and without a recent snapshot. Balances after recovery are checked against the live ones.
+ * Usage: java AccountJournalBenchmark [events] [accounts]  (100M events needs about 4 GB of disk)
+ */
+public class AccountJournalBenchmark {
+    public static void main(String[] args) throws IOException {
+        long events = args.length > 0 ? Long.parseLong(args[0]) : 5_000_000;
+        int accounts = args.length > 1 ? Integer.parseInt(args[1]) : 10_000;
+
+        System.out.printf("%-14s %16s%n", "group commit", "events/s");
+        for (int groupCommit : new int[]{16, 256, 4096}) {
+            Path dir = Files.createTempDirectory("journal");
+            try (AccountJournal journal = new AccountJournal(dir, 1 << 20, groupCommit, 0)) {
+                open(journal, accounts);
+                long n = Math.min(events, 1_000_000);
+                long start = System.nanoTime();
+                run(journal, accounts, n, 1);
+                journal.sync();
+                double seconds = (System.nanoTime() - start) / 1e9;
+                System.out.printf("%-14d %,16.0f%n", groupCommit, n / seconds);
+            }
+            delete(dir);
+        }
+
+        Path dir = Files.createTempDirectory("journal");
+        double[] expected = new double[accounts];
+        try (AccountJournal journal = new AccountJournal(dir, 1 << 20, 4096, 0)) {
+            open(journal, accounts);
+            run(journal, accounts, events, 7);
+            for (int id = 0; id < accounts; id++) {
+                expected[id] = journal.account(id).getBalance();
+            }
+        }
+        recover("full replay", dir, expected);
+
+        try (AccountJournal journal = new AccountJournal(dir, 1 << 20, 4096, 0)) {
+            journal.snapshot();
+            run(journal, accounts, Math.min(events, 100_000), 11);
+            for (int id = 0; id < accounts; id++) {
+                expected[id] = journal.account(id).getBalance();
+            }
+        }
+        recover("snapshot + tail", dir, expected);
+        delete(dir);
+    }
+
+    private static void open(AccountJournal journal, int accounts) throws IOException {
+        for (int i = 0; i < accounts; i++) {
+            journal.register(i % 2 == 0
+                    ? new Inheritance.SavingsAccount("S" + i, 1000.0, 0.0001)
+                    : new Inheritance.CheckingAccount("C" + i, 1000.0, 500.0));
+        }
+    }
+
+    private static void run(AccountJournal journal, int accounts, long events, long seed) throws IOException {
+        long x = seed * 0x9E3779B97F4A7C15L;
+        for (long e = 0; e < events; e++) {
+            x ^= x << 13; x ^= x >>> 7; x ^= x << 17;
+            int id = (int) ((x >>> 1) % accounts);
+            double amount = 1 + (x >>> 40) % 100;
+            int op = (int) ((x >>> 20) & 7);
+            if (op == 0 && id % 2 == 0) {
+                journal.addInterest(id);
+            } else if (op < 4) {
+                journal.withdraw(id, amount);
+            } else {
+                journal.deposit(id, amount);
+            }
+        }
+    }
+
+    private static void recover(String name, Path dir, double[] expected) throws IOException {
+        long start = System.nanoTime();
+        try (AccountJournal journal = new AccountJournal(dir, 1 << 20, 4096, 0)) {
+            double millis = (System.nanoTime() - start) / 1e6;
+            for (int id = 0; id < expected.length; id++) {
+                if (journal.account(id).getBalance() != expected[id]) {
+                    throw new IllegalStateException(name + ": account " + id + " recovered " + journal.account(id).getBalance()
+                            + ", expected " + expected[id]);
+                }
+            }
+            System.out.printf("Recovery (%s): %,d records replayed in %.1f ms%n", name, journal.recoveredRecords(), millis);
+        }
+    }
+
+    private static void delete(Path dir) throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+}
@@ -0,0 +1,225 @@
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe store for thousands of accounts, the concurrent counterpart of Encapsulation.BankAccount.
+ * <p>
+ * - Balances are fixed-point long cents in one AtomicLongArray, so there is no double rounding and no object per account.
+ * - deposit/withdraw on one account are lock-free: a CAS loop checks the rule and swaps the balance in one step.
+ * - transfer locks the two accounts' stripes in index order, so two transfers can never wait on each other in a cycle.
+ *   The balances are still updated with CAS, because single-account operations do not take the stripe locks.
+ * - totalBalance() takes every stripe, so it never sees a transfer half done.
+ * - Deposits and credits stop at MAX_BALANCE, half the long range. If a transfer's credit fails after its debit,
+ *   the debit is undone with a plain add that cannot fail: at worst it leaves the source above MAX_BALANCE,
+ *   never past Long.MAX_VALUE, so no money is lost to a deposit racing the undo.
+ * - Rejections come back as return codes, nothing is printed.
+ */
+public class AccountRegistry {
+    public static final int OK = 0;
+    public static final int INVALID_AMOUNT = 1;
+    public static final int INSUFFICIENT_FUNDS = 2;
+    public static final int UNKNOWN_ACCOUNT = 3;
+    public static final int SAME_ACCOUNT = 4;
+    public static final int BALANCE_OVERFLOW = 5;
+
+    public static final long MAX_BALANCE = Long.MAX_VALUE / 2;
+
+    private final AtomicLongArray balances;
+    private final String[] accountNumbers;
+    private final String[] holders;
+    private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+    private final AtomicInteger nextId = new AtomicInteger();
+    private final Object[] stripes;
+    private final int stripeMask;
+
+    public AccountRegistry(int capacity) {
+        this(capacity, 64);
+    }
+
+    public AccountRegistry(int capacity, int stripeCount) {
+        if (capacity <= 0 || stripeCount <= 0) {
+            throw new IllegalArgumentException("capacity and stripeCount must be positive");
+        }
+        balances = new AtomicLongArray(capacity);
+        accountNumbers = new String[capacity];
+        holders = new String[capacity];
+        int n = Integer.highestOneBit(Math.max(1, stripeCount - 1)) << 1;
+        stripes = new Object[n];
+        for (int i = 0; i < n; i++) {
+            stripes[i] = new Object();
+        }
+        stripeMask = n - 1;
+    }
+
+    public static long toCents(double amount) {
+        return Math.round(amount * 100);
+    }
+
+    /**
+     * Opens an account and returns its id, or -1 if the number is taken, the registry is full
+     * or initialCents is outside 0..MAX_BALANCE.
+     */
+    public int open(String accountNumber, String accountHolder, long initialCents) {
+        if (initialCents < 0 || initialCents > MAX_BALANCE) {
+            return -1;
+        }
+        int[] opened = {-1};
+        ids.computeIfAbsent(accountNumber, number -> {
+            int id = nextId.getAndIncrement();
+            if (id >= balances.length()) {
+                nextId.decrementAndGet();
+                return null;
+            }
+            accountNumbers[id] = number;
+            holders[id] = accountHolder;
+            balances.set(id, initialCents); // volatile write publishes the names too
+            opened[0] = id;
+            return id;
+        });
+        return opened[0];
+    }
+
+    /**
+     * Copies an Encapsulation.BankAccount in, converting its double balance to cents.
+     */
+    public int open(Encapsulation.BankAccount account) {
+        return open(account.getAccountNumber(), account.getAccountHolder(), toCents(account.getBalance()));
+    }
+
+    public int id(String accountNumber) {
+        Integer id = ids.get(accountNumber);
+        return id == null ? -1 : id;
+    }
+
+    public int size() {
+        return Math.min(nextId.get(), balances.length());
+    }
+
+    public String accountNumber(int id) {
+        return exists(id) ? accountNumbers[id] : null;
+    }
+
+    public String accountHolder(int id) {
+        return exists(id) ? holders[id] : null;
+    }
+
+    public long balance(int id) {
+        return exists(id) ? balances.get(id) : 0;
+    }
+
+    private boolean exists(int id) {
+        return id >= 0 && id < size() && accountNumbers[id] != null;
+    }
+
+    public int deposit(int id, long cents) {
+        if (!exists(id)) {
+            return UNKNOWN_ACCOUNT;
+        }
+        if (cents <= 0 || cents > MAX_BALANCE) {
+            return INVALID_AMOUNT;
+        }
+        return credit(id, cents);
+    }
+
+    public int withdraw(int id, long cents) {
+        if (!exists(id)) {
+            return UNKNOWN_ACCOUNT;
+        }
+        if (cents <= 0 || cents > MAX_BALANCE) {
+            return INVALID_AMOUNT;
+        }
+        return debit(id, cents);
+    }
+
+    private int credit(int id, long cents) {
+        while (true) {
+            long balance = balances.get(id);
+            if (balance > MAX_BALANCE - cents) {
+                return BALANCE_OVERFLOW;
+            }
+            if (balances.compareAndSet(id, balance, balance + cents)) {
+                return OK;
+            }
+        }
+    }
+
+    private int debit(int id, long cents) {
+        while (true) {
+            long balance = balances.get(id);
+            if (cents > balance) {
+                return INSUFFICIENT_FUNDS;
+            }
+            if (balances.compareAndSet(id, balance, balance - cents)) {
+                return OK;
+            }
+        }
+    }
+
+    /**
+     * Moves cents from one account to another, all or nothing.
+     */
+    public int transfer(int from, int to, long cents) {
+        if (!exists(from) || !exists(to)) {
+            return UNKNOWN_ACCOUNT;
+        }
+        if (from == to) {
+            return SAME_ACCOUNT;
+        }
+        if (cents <= 0 || cents > MAX_BALANCE) {
+            return INVALID_AMOUNT;
+        }
+        int a = from & stripeMask;
+        int b = to & stripeMask;
+        // Always lock the lower stripe first: every transfer takes locks in the same global order
+        Object first = stripes[Math.min(a, b)];
+        Object second = stripes[Math.max(a, b)];
+        synchronized (first) {
+            synchronized (second) {
+                int result = debit(from, cents);
+                if (result != OK) {
+                    return result;
+                }
+                result = credit(to, cents);
+                if (result != OK) {
+                    // Undo without the MAX_BALANCE check, which a deposit since the debit could trip. Deposits stop at
+                    // MAX_BALANCE and withdrawals only lower it, so the sum is at most the balance before the debit
+                    // or MAX_BALANCE + cents: it cannot overflow, and the money goes back where it came from
+                    balances.getAndAdd(from, cents);
+                }
+                return result;
+            }
+        }
+    }
+
+    /**
+     * Sum of all balances with no transfer in flight. Lock-free deposits and withdrawals may still land during the scan.
+     */
+    public long totalBalance() {
+        return totalBalance(0);
+    }
+
+    private long totalBalance(int stripe) {
+        if (stripe == stripes.length) {
+            long total = 0;
+            for (int id = 0, n = size(); id < n; id++) {
+                total += balances.get(id);
+            }
+            return total;
+        }
+        synchronized (stripes[stripe]) {
+            return totalBalance(stripe + 1);
+        }
+    }
+
+    public static void main(String[] args) {
+        AccountRegistry registry = new AccountRegistry(10);
+        int alice = registry.open(new Encapsulation.BankAccount("123456789", "John Doe", 1000.0));
+        int bob = registry.open("987654321", "Jane Doe", toCents(250.50));
+        System.out.println("Deposit: " + registry.deposit(alice, toCents(1000.0))); // 0 (OK)
+        System.out.println("Transfer: " + registry.transfer(alice, bob, toCents(500.0))); // 0 (OK)
+        System.out.println("Overdraw: " + registry.withdraw(bob, toCents(10_000.0))); // 2 (INSUFFICIENT_FUNDS)
+        System.out.println("Balances in cents: " + registry.balance(alice) + ", " + registry.balance(bob)); // 150000, 75050
+        System.out.println("Total in cents: " + registry.totalBalance()); // 225050
+    }
+}
@@ -0,0 +1,99 @@
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Random transfers between 10k accounts at 1..16 threads. Checks that money is conserved and reports transfers per second.
+ * Also runs concurrent deposits on a shared Encapsulation.BankAccount, which loses updates on multi-core machines.
+ * Usage: java AccountRegistryBenchmark [accounts] [millisPerRun]
+ */
+public class AccountRegistryBenchmark {
+    private static volatile boolean running;
+
+    public static void main(String[] args) throws InterruptedException {
+        int accounts = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        long millis = args.length > 1 ? Long.parseLong(args[1]) : 1000;
+
+        lostUpdateDemo();
+
+        AccountRegistry registry = new AccountRegistry(accounts, 256);
+        for (int i = 0; i < accounts; i++) {
+            registry.open("ACC" + i, "Holder " + i, AccountRegistry.toCents(1000.0));
+        }
+        long expectedTotal = registry.totalBalance();
+
+        System.out.printf("%-8s %18s %12s%n", "threads", "transfers/s", "rejected");
+        for (int threads = 1; threads <= 16; threads <<= 1) {
+            LongAdder done = new LongAdder();
+            LongAdder rejected = new LongAdder();
+            CountDownLatch ready = new CountDownLatch(threads);
+            Thread[] workers = new Thread[threads];
+            running = true;
+            for (int t = 0; t < threads; t++) {
+                long seed = 0x9E3779B97F4A7C15L * (t + 1);
+                workers[t] = new Thread(() -> {
+                    long x = seed, ok = 0, failed = 0;
+                    ready.countDown();
+                    while (running) {
+                        x ^= x << 13; x ^= x >>> 7; x ^= x << 17;
+                        int from = (int) ((x >>> 1) % accounts);
+                        int to = (int) ((x >>> 21) % accounts);
+                        long cents = 1 + ((x >>> 41) % 50_000);
+                        if (registry.transfer(from, to, cents) == AccountRegistry.OK) {
+                            ok++;
+                        } else {
+                            failed++;
+                        }
+                    }
+                    done.add(ok + failed);
+                    rejected.add(failed);
+                });
+                workers[t].start();
+            }
+            ready.await();
+            long start = System.nanoTime();
+            try {
+                // Audit while transfers are running: the total must never move
+                long deadline = start + millis * 1_000_000L;
+                while (System.nanoTime() < deadline) {
+                    if (registry.totalBalance() != expectedTotal) {
+                        throw new IllegalStateException("total balance changed during transfers");
+                    }
+                    Thread.sleep(50);
+                }
+            } finally {
+                // Also when the audit fails: the workers are not daemons and would keep the JVM alive
+                running = false;
+                for (Thread worker : workers) {
+                    worker.join();
+                }
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            if (registry.totalBalance() != expectedTotal) {
+                throw new IllegalStateException("total balance not conserved");
+            }
+            System.out.printf("%-8d %,18.0f %12d%n", threads, done.sum() / seconds, rejected.sum());
+        }
+        System.out.println("Total balance conserved: " + expectedTotal + " cents");
+    }
+
+    private static void lostUpdateDemo() throws InterruptedException {
+        Encapsulation.BankAccount shared = new Encapsulation.BankAccount("1", "Shared", 0.0);
+        AccountRegistry registry = new AccountRegistry(1);
+        int id = registry.open("1", "Shared", 0);
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 1_000_000; i++) {
+                    shared.deposit(1.0);
+                    registry.deposit(id, 100);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        System.out.printf("4 threads x 1,000,000 deposits of 1.00 (expected 4000000.00): BankAccount %.2f, AccountRegistry %.2f%n",
+                shared.getBalance(), registry.balance(id) / 100.0);
+    }
+}
@@ -0,0 +1,308 @@
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Random;
+
+/**
+ * Cost of one call at a hot call site, in ns, on the repo's own hierarchies:
+ * Polymorphism.Animal/Dog/Cat.sound() and Abstraction.Payment.pay().
+ * <p>
+ * - virtual: animal.sound() with 1 (Dog), 2 (Dog, Cat) or 3 (Animal, Dog, Cat) receiver classes at the site.
+ *   C2 inlines a site that has seen one or two receiver classes and falls back to a vtable call after that.
+ * - sealed dispatch: Polymorphism.sound(animal), an instanceof chain over the permitted subclasses.
+ * - interface default method: an interface call, on a default method for Animal and overrides for Dog and Cat.
+ * - lambda: a Runnable method reference per element, one lambda class per receiver class.
+ * - MethodHandle: one virtual handle on Animal.sound, and an exact handle per receiver class.
+ * - payment.pay() with CreditCardPayment, then PayPalPayment, then PaymentDispatcher.FakeProvider added.
+ * <p>
+ * These methods print, so System.out is swapped for a sink that only counts characters while measuring:
+ * the numbers are the dispatch plus the method body, without the console. Every variant has its own loop method,
+ * so one variant's type profile never leaks into another's call site. The best of 10 runs is reported.
+ * <p>
+ * With --inlining the benchmark runs itself again in a child JVM with -XX:+PrintInlining: the table goes to stderr
+ * and the inlining decisions for the measured classes to stdout. A megamorphic animal.sound() site logs
+ * "virtual call", the sealed dispatch logs Dog::sound and Cat::sound as "inline (hot)".
+ * Usage: java DispatchBenchmark [callsPerRound] [--inlining]
+ */
+public class DispatchBenchmark {
+    private static final int ELEMENTS = 1024;
+
+    private static final class CountingOut extends PrintStream {
+        long chars;
+
+        CountingOut() {
+            super(OutputStream.nullOutputStream());
+        }
+
+        @Override
+        public void println(String line) {
+            chars += line.length();
+        }
+    }
+
+    interface Speaker {
+        default void speak(Polymorphism.Animal animal) {
+            animal.sound();
+        }
+    }
+
+    static final class AnimalSpeaker implements Speaker {
+    }
+
+    static final class DogSpeaker implements Speaker {
+        @Override
+        public void speak(Polymorphism.Animal animal) {
+            ((Polymorphism.Dog) animal).sound();
+        }
+    }
+
+    static final class CatSpeaker implements Speaker {
+        @Override
+        public void speak(Polymorphism.Animal animal) {
+            ((Polymorphism.Cat) animal).sound();
+        }
+    }
+
+    private static final MethodHandle SOUND;
+    private static final MethodHandle[] SOUND_BY_TYPE = new MethodHandle[3];
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            MethodType type = MethodType.methodType(void.class);
+            SOUND = lookup.findVirtual(Polymorphism.Animal.class, "sound", type);
+            Class<?>[] classes = {Polymorphism.Animal.class, Polymorphism.Dog.class, Polymorphism.Cat.class};
+            for (int t = 0; t < 3; t++) {
+                SOUND_BY_TYPE[t] = lookup.findVirtual(classes[t], "sound", type)
+                        .asType(MethodType.methodType(void.class, Polymorphism.Animal.class));
+            }
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private interface Variant {
+        void run() throws Throwable;
+    }
+
+    public static void main(String[] args) throws Throwable {
+        int calls = 20_000_000;
+        boolean inlining = false;
+        for (String arg : args) {
+            if (arg.equals("--inlining")) {
+                inlining = true;
+            } else {
+                calls = Integer.parseInt(arg);
+            }
+        }
+        if (inlining) {
+            printInlining(calls);
+            return;
+        }
+        int rounds = Math.max(1, calls / ELEMENTS);
+
+        int[] types = new int[ELEMENTS];
+        Random random = new Random(15);
+        for (int i = 0; i < ELEMENTS; i++) {
+            types[i] = random.nextInt(3);
+        }
+        Polymorphism.Animal[] mono = animals(types, 1);
+        Polymorphism.Animal[] bi = animals(types, 2);
+        Polymorphism.Animal[] mega = animals(types, 3);
+        Speaker[] speakers = new Speaker[ELEMENTS];
+        Runnable[] lambdas = new Runnable[ELEMENTS];
+        for (int i = 0; i < ELEMENTS; i++) {
+            speakers[i] = new Speaker[]{new AnimalSpeaker(), new DogSpeaker(), new CatSpeaker()}[types[i]];
+            lambdas[i] = lambda(mega[i]);
+        }
+        Abstraction.Payment[] card = payments(types, 1);
+        Abstraction.Payment[] twoProviders = payments(types, 2);
+        Abstraction.Payment[] threeProviders = payments(types, 3);
+
+        // Under --inlining the table goes to stderr, apart from the VM's inlining log on stdout
+        PrintStream console = Boolean.getBoolean("DispatchBenchmark.child") ? System.err : System.out;
+        CountingOut sink = new CountingOut();
+        System.setOut(sink);
+        try {
+            console.printf("%-40s %10s%n", "", "ns/call");
+            run(console, sink, "sound(), monomorphic", rounds, () -> virtualMono(mono, rounds));
+            run(console, sink, "sound(), bimorphic", rounds, () -> virtualBi(bi, rounds));
+            run(console, sink, "sound(), megamorphic (3 types)", rounds, () -> virtualMega(mega, rounds));
+            run(console, sink, "sealed dispatch, 3 types", rounds, () -> sealedDispatch(mega, rounds));
+            run(console, sink, "interface default method, 3 types", rounds, () -> defaultMethod(speakers, mega, rounds));
+            run(console, sink, "lambda, 3 types", rounds, () -> lambdas(lambdas, rounds));
+            run(console, sink, "MethodHandle (one virtual), 3 types", rounds, () -> virtualHandle(mega, rounds));
+            run(console, sink, "MethodHandle (one per type), 3 types", rounds, () -> handleByType(mega, types, rounds));
+            run(console, sink, "pay(), monomorphic", rounds, () -> payMono(card, rounds));
+            run(console, sink, "pay(), bimorphic", rounds, () -> payBi(twoProviders, rounds));
+            run(console, sink, "pay(), megamorphic (3 types)", rounds, () -> payMega(threeProviders, rounds));
+        } finally {
+            System.setOut(console);
+        }
+    }
+
+    // With 3 classes element i is an Animal, Dog or Cat by types[i]; with 1 all are Dogs, with 2 Dogs and Cats
+    private static Polymorphism.Animal[] animals(int[] types, int classes) {
+        Polymorphism.Animal[] animals = new Polymorphism.Animal[types.length];
+        for (int i = 0; i < types.length; i++) {
+            int type = classes == 3 ? types[i] : 1 + types[i] % classes;
+            animals[i] = type == 0 ? new Polymorphism.Animal() : type == 1 ? new Polymorphism.Dog() : new Polymorphism.Cat();
+        }
+        return animals;
+    }
+
+    private static Abstraction.Payment[] payments(int[] types, int classes) {
+        Abstraction.Payment[] payments = new Abstraction.Payment[types.length];
+        for (int i = 0; i < types.length; i++) {
+            switch (types[i] % classes) {
+                case 0: payments[i] = new Abstraction.CreditCardPayment(); break;
+                case 1: payments[i] = new Abstraction.PayPalPayment(); break;
+                default: payments[i] = new PaymentDispatcher.FakeProvider(0); break;
+            }
+        }
+        return payments;
+    }
+
+    private static Runnable lambda(Polymorphism.Animal animal) {
+        if (animal instanceof Polymorphism.Dog) {
+            return ((Polymorphism.Dog) animal)::sound;
+        }
+        if (animal instanceof Polymorphism.Cat) {
+            return ((Polymorphism.Cat) animal)::sound;
+        }
+        return animal::sound;
+    }
+
+    private static void run(PrintStream console, CountingOut sink, String name, int rounds, Variant variant) throws Throwable {
+        long best = Long.MAX_VALUE;
+        long before = sink.chars;
+        for (int i = 0; i < 10; i++) { // the first runs warm up and get compiled
+            long start = System.nanoTime();
+            variant.run();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        if (sink.chars == before) {
+            throw new IllegalStateException(name + " did no work");
+        }
+        console.printf("%-40s %10.2f%n", name, (double) best / ((long) rounds * ELEMENTS));
+    }
+
+    // The virtual loops are identical on purpose, each call site keeps its own type profile
+
+    private static void virtualMono(Polymorphism.Animal[] animals, int rounds) {
+        for (int r = 0; r < rounds; r++) {
+            for (Polymorphism.Animal animal : animals) {
+                animal.sound();
+            }
+        }
+    }
+
+    private static void virtualBi(Polymorphism.Animal[] animals, int rounds) {
+        for (int r = 0; r < rounds; r++) {
+            for (Polymorphism.Animal animal : animals) {
+                animal.sound();
+            }
+        }
+    }
+
+    private static void virtualMega(Polymorphism.Animal[] animals, int rounds) {
+        for (int r = 0; r < rounds; r++) {
+            for (Polymorphism.Animal animal : animals) {
+                animal.sound();
+            }
+        }
+    }
+
+    private static void sealedDispatch(Polymorphism.Animal[] animals, int rounds) {
+        for (int r = 0; r < rounds; r++) {
+            for (Polymorphism.Animal animal : animals) {
+                Polymorphism.sound(animal);
+            }
+        }
+    }
+
+    private static void defaultMethod(Speaker[] speakers, Polymorphism.Animal[] animals, int rounds) {
+        for (int r = 0; r < rounds; r++) {
+            for (int i = 0; i < animals.length; i++) {
+                speakers[i].speak(animals[i]);
+            }
+        }
+    }
+
+    private static void lambdas(Runnable[] lambdas, int rounds) {
+        for (int r = 0; r < rounds; r++) {
+            for (Runnable lambda : lambdas) {
+                lambda.run();
+            }
+        }
+    }
+
+    private static void virtualHandle(Polymorphism.Animal[] animals, int rounds) throws Throwable {
+        for (int r = 0; r < rounds; r++) {
+            for (Polymorphism.Animal animal : animals) {
+                SOUND.invokeExact(animal);
+            }
+        }
+    }
+
+    private static void handleByType(Polymorphism.Animal[] animals, int[] types, int rounds) throws Throwable {
+        for (int r = 0; r < rounds; r++) {
+            for (int i = 0; i < animals.length; i++) {
+                SOUND_BY_TYPE[types[i]].invokeExact(animals[i]);
+            }
+        }
+    }
+
+    private static void payMono(Abstraction.Payment[] payments, int rounds) {
+        for (int r = 0; r < rounds; r++) {
+            for (Abstraction.Payment payment : payments) {
+                payment.pay(10.0);
+            }
+        }
+    }
+
+    private static void payBi(Abstraction.Payment[] payments, int rounds) {
+        for (int r = 0; r < rounds; r++) {
+            for (Abstraction.Payment payment : payments) {
+                payment.pay(10.0);
+            }
+        }
+    }
+
+    private static void payMega(Abstraction.Payment[] payments, int rounds) {
+        for (int r = 0; r < rounds; r++) {
+            for (Abstraction.Payment payment : payments) {
+                payment.pay(10.0);
+            }
+        }
+    }
+
+    // Runs the benchmark in a child JVM with -XX:+PrintInlining and keeps the log lines for the hierarchies measured
+    private static void printInlining(int calls) throws IOException, InterruptedException {
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        Process child = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                "-XX:+UnlockDiagnosticVMOptions", "-XX:+PrintInlining", "-DDispatchBenchmark.child=true",
+                DispatchBenchmark.class.getName(), Integer.toString(calls))
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+        try (BufferedReader lines = new BufferedReader(new InputStreamReader(child.getInputStream()))) {
+            String line;
+            while ((line = lines.readLine()) != null) {
+                boolean measured = line.contains("Polymorphism") || line.contains("Abstraction$")
+                        || line.contains("FakeProvider") || line.contains("Speaker") || line.contains("$$Lambda");
+                if (measured && !line.contains("::<init>")) {
+                    System.out.println(line.strip());
+                }
+            }
+        }
+        if (child.waitFor() != 0) {
+            throw new IllegalStateException("child JVM exited with " + child.exitValue());
+        }
+    }
+}
@@ -24,6 +24,10 @@ class Inheritance {
         public double getBalance() {
             return balance;
         }
+
+        public String getAccountNumber() {
+            return accountNumber;
+        }
     }
 
     public static class SavingsAccount extends Account {
@@ -37,6 +41,10 @@ class Inheritance {
         public void addInterest() {
             balance += balance * interestRate;
         }
+
+        public double getInterestRate() {
+            return interestRate;
+        }
     }
 
     public static class CheckingAccount extends Account {
@@ -47,6 +55,10 @@ class Inheritance {
             this.overdraftLimit = overdraftLimit;
         }
 
+        public double getOverdraftLimit() {
+            return overdraftLimit;
+        }
+
         @Override
         public boolean withdraw(double amount) {
             if (amount > balance + overdraftLimit) return false;
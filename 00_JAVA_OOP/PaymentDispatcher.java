@@ -0,0 +1,321 @@
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Asynchronous front for Abstraction.Payment providers whose pay() is a slow remote call.
+ * <p>
+ * - submit() queues the payment and returns a CompletableFuture that completes once the provider has been called.
+ * - Each provider has its own bounded queue and a batcher thread.
+ * - Providers implementing BatchPayment get a whole batch in one payAll() call. A batch is cut when it reaches
+ *   maxBatch payments or maxDelayMillis after its first payment, whichever comes first.
+ * - Other providers get each payment as its own pay() task as soon as a permit is free, so no payment waits behind
+ *   the rest of a batch.
+ * - At most maxConcurrency provider calls per provider run at once on the given Executor. When all are busy the batcher
+ *   waits, the queue fills up, and then submit() blocks while trySubmit() fails fast. That is the backpressure.
+ * <p>
+ * Provider calls spend their time waiting on I/O, so the executor should have plenty of cheap threads:
+ * a cached thread pool here, Executors.newVirtualThreadPerTaskExecutor() on Java 21.
+ */
+public class PaymentDispatcher implements Closeable {
+    /**
+     * A provider that can take many payments in one remote call.
+     */
+    public interface BatchPayment {
+        void payAll(double[] amounts, int count);
+    }
+
+    private static final class Request {
+        final double amount;
+        final CompletableFuture<Void> result = new CompletableFuture<>();
+
+        Request(double amount) {
+            this.amount = amount;
+        }
+    }
+
+    private final class Provider {
+        final String name;
+        final Abstraction.Payment payment;
+        final boolean batching;
+        final BlockingQueue<Request> queue;
+        final Semaphore permits;
+        final int maxConcurrency;
+        final Thread batcher;
+
+        Provider(String name, Abstraction.Payment payment, int maxConcurrency) {
+            this.name = name;
+            this.payment = payment;
+            this.batching = payment instanceof BatchPayment;
+            this.queue = new ArrayBlockingQueue<>(queueCapacity);
+            this.maxConcurrency = maxConcurrency;
+            this.permits = new Semaphore(maxConcurrency);
+            this.batcher = new Thread(this::batchLoop, "payment-batcher-" + name);
+            batcher.setDaemon(true);
+        }
+
+        private void batchLoop() {
+            List<Request> batch = new ArrayList<>(maxBatch);
+            try {
+                while (true) {
+                    Request first = queue.poll(10, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        if (closed) {
+                            return; // closed and drained
+                        }
+                        continue;
+                    }
+                    batch.add(first);
+                    long deadline = System.nanoTime() + maxDelayNanos;
+                    while (batching && batch.size() < maxBatch) { // pay() takes one payment, nothing to gather
+                        if (queue.drainTo(batch, maxBatch - batch.size()) > 0) {
+                            continue;
+                        }
+                        long wait = deadline - System.nanoTime();
+                        Request next = wait > 0 ? queue.poll(wait, TimeUnit.NANOSECONDS) : null;
+                        if (next == null) {
+                            break;
+                        }
+                        batch.add(next);
+                    }
+                    permits.acquire();
+                    Request[] requests = batch.toArray(new Request[0]);
+                    batch.clear();
+                    try {
+                        executor.execute(() -> run(requests));
+                    } catch (RejectedExecutionException e) {
+                        permits.release();
+                        fail(requests, e);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                batch.addAll(queue);
+                fail(batch.toArray(new Request[0]), new RejectedExecutionException("Dispatcher interrupted"));
+            }
+        }
+
+        private void run(Request[] requests) {
+            try {
+                if (batching) {
+                    double[] amounts = new double[requests.length];
+                    for (int i = 0; i < requests.length; i++) {
+                        amounts[i] = requests[i].amount;
+                    }
+                    ((BatchPayment) payment).payAll(amounts, amounts.length);
+                    for (Request request : requests) {
+                        request.result.complete(null);
+                    }
+                } else {
+                    payment.pay(requests[0].amount); // the batcher sends these one at a time
+                    requests[0].result.complete(null);
+                }
+                batches.increment();
+            } catch (RuntimeException e) {
+                fail(requests, e);
+            } finally {
+                permits.release();
+            }
+        }
+    }
+
+    private final Executor executor;
+    private final int maxBatch;
+    private final long maxDelayNanos;
+    private final int queueCapacity;
+    private final Map<String, Provider> providers = new ConcurrentHashMap<>();
+    private final LongAdder batches = new LongAdder();
+    private volatile boolean closed;
+
+    public PaymentDispatcher(Executor executor, int maxBatch, long maxDelayMillis, int queueCapacity) {
+        if (maxBatch <= 0 || maxDelayMillis < 0 || queueCapacity <= 0) {
+            throw new IllegalArgumentException("maxBatch and queueCapacity must be positive, maxDelayMillis >= 0");
+        }
+        this.executor = executor;
+        this.maxBatch = maxBatch;
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMillis);
+        this.queueCapacity = queueCapacity;
+    }
+
+    public void register(String name, Abstraction.Payment payment, int maxConcurrency) {
+        if (maxConcurrency <= 0) {
+            throw new IllegalArgumentException("maxConcurrency must be positive");
+        }
+        if (closed) {
+            throw new IllegalStateException("Dispatcher is closed");
+        }
+        Provider provider = new Provider(name, payment, maxConcurrency);
+        if (providers.putIfAbsent(name, provider) != null) {
+            throw new IllegalArgumentException("Provider already registered: " + name);
+        }
+        provider.batcher.start();
+    }
+
+    /**
+     * Queues a payment, blocking while the provider's queue is full.
+     * Throws RejectedExecutionException if the dispatcher is closed before the payment is queued.
+     */
+    public CompletableFuture<Void> submit(String provider, double amount) throws InterruptedException {
+        Provider p = provider(provider);
+        Request request = new Request(amount);
+        // Not put(): once closed the batcher stops taking from a full queue, so re-check closed while waiting
+        while (!p.queue.offer(request, 10, TimeUnit.MILLISECONDS)) {
+            if (closed) {
+                throw new RejectedExecutionException("Dispatcher is closed");
+            }
+        }
+        if (withdrawIfClosed(p, request)) {
+            throw new RejectedExecutionException("Dispatcher is closed");
+        }
+        return request.result;
+    }
+
+    /**
+     * Queues a payment, or returns a future already failed with RejectedExecutionException if the queue is full.
+     */
+    public CompletableFuture<Void> trySubmit(String provider, double amount) {
+        Provider p = provider(provider);
+        Request request = new Request(amount);
+        if (!p.queue.offer(request)) {
+            request.result.completeExceptionally(new RejectedExecutionException("Queue full for provider " + provider));
+        } else if (withdrawIfClosed(p, request)) {
+            request.result.completeExceptionally(new RejectedExecutionException("Dispatcher is closed"));
+        }
+        return request.result;
+    }
+
+    // A payment queued while close() runs may land after the batcher's last poll and close()'s final drain.
+    // If it is still in the queue take it back; if it is gone, the batcher has it and will dispatch it.
+    private boolean withdrawIfClosed(Provider p, Request request) {
+        return closed && p.queue.remove(request);
+    }
+
+    private Provider provider(String name) {
+        if (closed) {
+            throw new RejectedExecutionException("Dispatcher is closed");
+        }
+        return registered(name);
+    }
+
+    private Provider registered(String name) {
+        Provider p = providers.get(name);
+        if (p == null) {
+            throw new IllegalArgumentException("Unknown provider: " + name);
+        }
+        return p;
+    }
+
+    public int queued(String provider) {
+        return registered(provider).queue.size();
+    }
+
+    /**
+     * Provider calls made so far: one per batch for BatchPayment providers, one per payment for the others.
+     */
+    public long batchCount() {
+        return batches.sum();
+    }
+
+    private static void fail(Request[] requests, Throwable cause) {
+        for (Request request : requests) {
+            request.result.completeExceptionally(cause);
+        }
+    }
+
+    /**
+     * Stops taking payments, dispatches everything already queued and waits for every batch to finish.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        boolean interrupted = false;
+        for (Provider provider : providers.values()) {
+            while (true) {
+                try {
+                    provider.batcher.join();
+                    // A submit racing with close() can land after the batcher's last poll
+                    List<Request> stranded = new ArrayList<>();
+                    provider.queue.drainTo(stranded);
+                    fail(stranded.toArray(new Request[0]), new RejectedExecutionException("Dispatcher is closed"));
+                    provider.permits.acquire(provider.maxConcurrency);
+                    provider.permits.release(provider.maxConcurrency);
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Stand-in for a remote provider: every call, single or batch, takes latencyMicros.
+     */
+    public static class FakeProvider extends Abstraction.Payment implements BatchPayment {
+        private final long latencyNanos;
+        private final DoubleAdder total = new DoubleAdder();
+        private final LongAdder calls = new LongAdder();
+
+        public FakeProvider(long latencyMicros) {
+            this.latencyNanos = TimeUnit.MICROSECONDS.toNanos(latencyMicros);
+        }
+
+        @Override
+        public void pay(double amount) {
+            LockSupport.parkNanos(latencyNanos);
+            total.add(amount);
+            calls.increment();
+        }
+
+        @Override
+        public void payAll(double[] amounts, int count) {
+            LockSupport.parkNanos(latencyNanos);
+            for (int i = 0; i < count; i++) {
+                total.add(amounts[i]);
+            }
+            calls.increment();
+        }
+
+        public double total() {
+            return total.sum();
+        }
+
+        public long calls() {
+            return calls.sum();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        ExecutorService executor = Executors.newCachedThreadPool();
+        PaymentDispatcher dispatcher = new PaymentDispatcher(executor, 32, 5, 1024);
+        dispatcher.register("credit-card", new Abstraction.CreditCardPayment(), 2);
+        FakeProvider bank = new FakeProvider(2_000);
+        dispatcher.register("bank", bank, 4);
+        CompletableFuture<Void> card = dispatcher.submit("credit-card", 1000.0); // prints "Paying 1000.0 using Credit Card."
+        List<CompletableFuture<Void>> transfers = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            transfers.add(dispatcher.submit("bank", 10.0));
+        }
+        CompletableFuture.allOf(transfers.toArray(new CompletableFuture<?>[0])).join();
+        card.join();
+        dispatcher.close();
+        executor.shutdown();
+        System.out.println("Bank total: " + bank.total() + " in " + bank.calls() + " calls"); // 1000.0 in a handful of calls
+    }
+}
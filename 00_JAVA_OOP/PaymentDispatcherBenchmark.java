@@ -0,0 +1,120 @@
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Throughput and latency percentiles of payments against a FakeProvider with a fixed remote latency:
+ * callers invoking pay() directly, against the same callers going through PaymentDispatcher: first waiting for each
+ * payment on a provider that only has pay(), then submitting freely with batches of 1, 16 and 128 through payAll().
+ * Usage: java PaymentDispatcherBenchmark [payments] [latencyMicros] [callers]
+ */
+public class PaymentDispatcherBenchmark {
+    public static void main(String[] args) throws Exception {
+        int payments = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        long latencyMicros = args.length > 1 ? Long.parseLong(args[1]) : 2_000;
+        int callers = args.length > 2 ? Integer.parseInt(args[2]) : 16;
+
+        System.out.printf("%-34s %12s %10s %10s%n", "", "payments/s", "p50 ms", "p99 ms");
+        PaymentDispatcher.FakeProvider direct = new PaymentDispatcher.FakeProvider(latencyMicros);
+        long[] latencies = new long[payments];
+        int directPayments = Math.min(payments, (int) (callers * 2_000_000L / latencyMicros)); // about 2 s
+        long start = System.nanoTime();
+        runCallers(callers, directPayments, i -> {
+            long t = System.nanoTime();
+            direct.pay(1.0);
+            latencies[i] = System.nanoTime() - t;
+        });
+        report("direct pay(), " + callers + " callers", directPayments, System.nanoTime() - start, latencies);
+        check(direct, directPayments);
+
+        // A provider with only pay(), callers waiting for each payment like the direct ones: no payment may be held
+        // behind the others of a batch, so p99 has to stay near the provider latency
+        ExecutorService singles = Executors.newCachedThreadPool();
+        PaymentDispatcher single = new PaymentDispatcher(singles, 128, 2, 4096);
+        PaymentDispatcher.FakeProvider payOnly = new PaymentDispatcher.FakeProvider(latencyMicros);
+        single.register("fake", new PayOnly(payOnly), callers);
+        start = System.nanoTime();
+        runCallers(callers, directPayments, i -> {
+            long t = System.nanoTime();
+            single.submit("fake", 1.0).join();
+            latencies[i] = System.nanoTime() - t;
+        });
+        long singleElapsed = System.nanoTime() - start;
+        single.close();
+        singles.shutdown();
+        report("dispatcher, pay() only, waiting", directPayments, singleElapsed, latencies);
+        check(payOnly, directPayments);
+
+        for (int batch : new int[]{1, 16, 128}) {
+            ExecutorService executor = Executors.newCachedThreadPool();
+            PaymentDispatcher dispatcher = new PaymentDispatcher(executor, batch, 2, 4096);
+            PaymentDispatcher.FakeProvider provider = new PaymentDispatcher.FakeProvider(latencyMicros);
+            dispatcher.register("fake", provider, 8);
+            int n = batch == 1 ? directPayments : payments;
+            CompletableFuture<?>[] results = new CompletableFuture<?>[n];
+            start = System.nanoTime();
+            runCallers(callers, n, i -> {
+                long t = System.nanoTime();
+                results[i] = dispatcher.submit("fake", 1.0).whenComplete((ok, error) -> latencies[i] = System.nanoTime() - t);
+            });
+            CompletableFuture.allOf(results).join();
+            long elapsed = System.nanoTime() - start;
+            dispatcher.close();
+            executor.shutdown();
+            report("dispatcher, batch " + batch + ", 8 in flight", n, elapsed, latencies);
+            check(provider, n);
+        }
+    }
+
+    // Hides FakeProvider's BatchPayment, like CreditCardPayment and PayPalPayment
+    private static final class PayOnly extends Abstraction.Payment {
+        private final PaymentDispatcher.FakeProvider provider;
+
+        PayOnly(PaymentDispatcher.FakeProvider provider) {
+            this.provider = provider;
+        }
+
+        @Override
+        public void pay(double amount) {
+            provider.pay(amount);
+        }
+    }
+
+    private interface Call {
+        void run(int i) throws Exception;
+    }
+
+    private static void runCallers(int callers, int payments, Call call) throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(callers);
+        for (int c = 0; c < callers; c++) {
+            int first = c;
+            new Thread(() -> {
+                try {
+                    for (int i = first; i < payments; i += callers) {
+                        call.run(i);
+                    }
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                } finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+        done.await();
+    }
+
+    private static void report(String name, int n, long elapsed, long[] latencies) {
+        long[] sorted = Arrays.copyOf(latencies, n);
+        Arrays.sort(sorted);
+        System.out.printf("%-34s %,12.0f %10.2f %10.2f%n", name, n / (elapsed / 1e9),
+                sorted[n / 2] / 1e6, sorted[(int) (n * 0.99)] / 1e6);
+    }
+
+    private static void check(PaymentDispatcher.FakeProvider provider, int n) {
+        if (provider.total() != n) {
+            throw new IllegalStateException("provider received " + provider.total() + ", expected " + n);
+        }
+    }
+}
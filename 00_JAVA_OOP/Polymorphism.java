@@ -16,26 +16,42 @@ public class Polymorphism {
     }
 
     // Example of Runtime polymorphism (Method Overriding)
-    static class Animal {
+    // Sealed: Dog and Cat are the only subclasses, so sound(Animal) below can dispatch by type
+    static sealed class Animal permits Dog, Cat {
         void sound() {
             System.out.println("Animal makes a sound");
         }
     }
 
-    static class Dog extends Animal {
+    static final class Dog extends Animal {
         @Override
         void sound() {
             System.out.println("Dog barks");
         }
     }
 
-    static class Cat extends Animal {
+    static final class Cat extends Animal {
         @Override
         void sound() {
             System.out.println("Cat meows");
         }
     }
 
+    /**
+     * Same as animal.sound(), dispatched by type over the sealed hierarchy. At a call site that sees Animal, Dog and Cat,
+     * animal.sound() is megamorphic and compiles to a vtable call; here every branch calls one known class's method,
+     * which the JIT inlines. Any Animal that is neither a Dog nor a Cat is exactly an Animal, because of the permits list.
+     */
+    static void sound(Animal animal) {
+        if (animal instanceof Dog) {
+            ((Dog) animal).sound();
+        } else if (animal instanceof Cat) {
+            ((Cat) animal).sound();
+        } else {
+            animal.sound();
+        }
+    }
+
     public static void main(String [] args){
         Polymorphism p = new Polymorphism();
         p.display(10); // Calls the method with integer parameter
@@ -49,5 +65,10 @@ public class Polymorphism {
         // Using the parent class reference to call overridden methods
         Animal myAnimal = new Animal();
         myAnimal.sound(); // Outputs: Animal makes a sound
+
+        // Demonstrating dispatch by type over the sealed hierarchy
+        for (Animal animal : new Animal[]{myDog, myCat, myAnimal}) {
+            sound(animal); // Outputs: Dog barks, Cat meows, Animal makes a sound
+        }
     }
 }
@@ -0,0 +1,431 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * File-based word count for corpora much larger than the heap.
+ * <p>
+ * Approach:
+ * - The file is split into chunks that start and end on word boundaries, each chunk is memory-mapped with FileChannel.map.
+ * - Worker threads take chunks one at a time and tokenize the mapped bytes directly: a word is a run of [A-Za-z0-9_]
+ *   (the same as split("\\W+") for ASCII text), lower-cased while it is copied into a reusable scratch array.
+ * - Each worker counts into its own WordTable (open addressing over a byte arena), no String or Integer per word.
+ * - The private tables are merged once at the end. Strings are only created for the words you ask for.
+ */
+public class MappedWordCount {
+    // Largest region mapped at once. MappedByteBuffer is int-indexed, and smaller chunks balance better across threads.
+    private static final long MAX_CHUNK = 64L << 20;
+    private static final int BLOCK = 64 << 10;
+    private static final int FNV_OFFSET = 0x811C9DC5;
+    private static final int FNV_PRIME = 0x01000193;
+
+    // Lower-cased byte for word characters, 0 for separators
+    private static final byte[] WORD_BYTE = new byte[256];
+
+    static {
+        for (int c = 'a'; c <= 'z'; c++) {
+            WORD_BYTE[c] = (byte) c;
+            WORD_BYTE[c - 'a' + 'A'] = (byte) c;
+        }
+        for (int c = '0'; c <= '9'; c++) {
+            WORD_BYTE[c] = (byte) c;
+        }
+        WORD_BYTE['_'] = '_';
+    }
+
+    /**
+     * Open-addressing table from word bytes to a long count. Words are stored back to back in one byte arena.
+     */
+    static final class WordTable {
+        private byte[] arena = new byte[1 << 16];
+        private int arenaSize;
+        private int[] offsets;   // arena offset of the word, -1 for an empty slot
+        private int[] lengths;
+        private int[] hashes;
+        private long[] counts;
+        private int mask;
+        private int size;
+        private long total;
+
+        WordTable() {
+            allocate(1 << 12);
+        }
+
+        private void allocate(int capacity) {
+            offsets = new int[capacity];
+            Arrays.fill(offsets, -1);
+            lengths = new int[capacity];
+            hashes = new int[capacity];
+            counts = new long[capacity];
+            mask = capacity - 1;
+        }
+
+        void add(byte[] word, int from, int length, int hash, long count) {
+            total += count;
+            int slot = spread(hash) & mask;
+            while (true) {
+                int offset = offsets[slot];
+                if (offset < 0) {
+                    break;
+                }
+                if (hashes[slot] == hash && lengths[slot] == length
+                        && Arrays.equals(arena, offset, offset + length, word, from, from + length)) {
+                    counts[slot] += count;
+                    return;
+                }
+                slot = (slot + 1) & mask;
+            }
+            if (arenaSize + length > arena.length) {
+                arena = Arrays.copyOf(arena, Math.max(arena.length << 1, arenaSize + length));
+            }
+            System.arraycopy(word, from, arena, arenaSize, length);
+            offsets[slot] = arenaSize;
+            lengths[slot] = length;
+            hashes[slot] = hash;
+            counts[slot] = count;
+            arenaSize += length;
+            if (++size > (mask + 1) * 3 / 4) {
+                rehash();
+            }
+        }
+
+        private void rehash() {
+            int[] oldOffsets = offsets, oldLengths = lengths, oldHashes = hashes;
+            long[] oldCounts = counts;
+            allocate(offsets.length << 1);
+            for (int i = 0; i < oldOffsets.length; i++) {
+                if (oldOffsets[i] >= 0) {
+                    int slot = spread(oldHashes[i]) & mask;
+                    while (offsets[slot] >= 0) {
+                        slot = (slot + 1) & mask;
+                    }
+                    offsets[slot] = oldOffsets[i];
+                    lengths[slot] = oldLengths[i];
+                    hashes[slot] = oldHashes[i];
+                    counts[slot] = oldCounts[i];
+                }
+            }
+        }
+
+        void mergeFrom(WordTable other) {
+            for (int i = 0; i < other.offsets.length; i++) {
+                if (other.offsets[i] >= 0) {
+                    add(other.arena, other.offsets[i], other.lengths[i], other.hashes[i], other.counts[i]);
+                }
+            }
+        }
+
+        long count(byte[] word) {
+            int hash = hash(word, word.length);
+            int slot = spread(hash) & mask;
+            while (offsets[slot] >= 0) {
+                if (hashes[slot] == hash && lengths[slot] == word.length
+                        && Arrays.equals(arena, offsets[slot], offsets[slot] + word.length, word, 0, word.length)) {
+                    return counts[slot];
+                }
+                slot = (slot + 1) & mask;
+            }
+            return 0;
+        }
+
+        String word(int slot) {
+            return new String(arena, offsets[slot], lengths[slot], StandardCharsets.ISO_8859_1);
+        }
+
+        private static int spread(int hash) {
+            return hash ^ (hash >>> 16);
+        }
+    }
+
+    /**
+     * Merged counts for a whole file.
+     */
+    public static final class Result {
+        private final WordTable table;
+
+        Result(WordTable table) {
+            this.table = table;
+        }
+
+        public int distinctWords() {
+            return table.size;
+        }
+
+        public long totalWords() {
+            return table.total;
+        }
+
+        /**
+         * Count for a word, case-insensitive for ASCII letters.
+         */
+        public long count(String word) {
+            byte[] bytes = word.getBytes(StandardCharsets.ISO_8859_1);
+            for (int i = 0; i < bytes.length; i++) {
+                bytes[i] = WORD_BYTE[bytes[i] & 0xFF];
+                if (bytes[i] == 0) {
+                    return 0; // contains a separator, so it can never be a word
+                }
+            }
+            return table.count(bytes);
+        }
+
+        /**
+         * The k most frequent words, highest count first. Uses a bounded min-heap of slot indices.
+         */
+        public List<Map.Entry<String, Long>> topK(int k) {
+            long[] counts = table.counts;
+            int[] heap = new int[Math.max(0, Math.min(k, table.size))];
+            int heapSize = 0;
+            for (int slot = 0; slot < counts.length && heap.length > 0; slot++) {
+                if (table.offsets[slot] < 0) {
+                    continue;
+                }
+                if (heapSize < heap.length) {
+                    heap[heapSize] = slot;
+                    siftUp(heap, heapSize++, counts);
+                } else if (counts[slot] > counts[heap[0]]) {
+                    heap[0] = slot;
+                    siftDown(heap, heapSize, counts);
+                }
+            }
+            List<Map.Entry<String, Long>> result = new ArrayList<>(heapSize);
+            while (heapSize > 0) {
+                int slot = heap[0];
+                heap[0] = heap[--heapSize];
+                siftDown(heap, heapSize, counts);
+                result.add(new AbstractMap.SimpleImmutableEntry<>(table.word(slot), counts[slot]));
+            }
+            Collections.reverse(result);
+            return result;
+        }
+
+        public Map<String, Long> toMap() {
+            Map<String, Long> map = new HashMap<>(table.size * 2);
+            for (int slot = 0; slot < table.offsets.length; slot++) {
+                if (table.offsets[slot] >= 0) {
+                    map.put(table.word(slot), table.counts[slot]);
+                }
+            }
+            return map;
+        }
+
+        private static void siftUp(int[] heap, int i, long[] counts) {
+            int slot = heap[i];
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (counts[heap[parent]] <= counts[slot]) {
+                    break;
+                }
+                heap[i] = heap[parent];
+                i = parent;
+            }
+            heap[i] = slot;
+        }
+
+        private static void siftDown(int[] heap, int size, long[] counts) {
+            int i = 0;
+            int slot = heap[0];
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && counts[heap[child + 1]] < counts[heap[child]]) {
+                    child++;
+                }
+                if (counts[heap[child]] >= counts[slot]) {
+                    break;
+                }
+                heap[i] = heap[child];
+                i = child;
+            }
+            heap[i] = slot;
+        }
+    }
+
+    public static Result count(Path file) throws IOException, InterruptedException {
+        return count(file, Runtime.getRuntime().availableProcessors());
+    }
+
+    public static Result count(Path file, int threads) throws IOException, InterruptedException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long[] bounds = chunkBounds(channel, Math.max(1, threads));
+            int chunks = bounds.length - 1;
+            WordTable[] tables = new WordTable[Math.max(1, Math.min(threads, chunks))];
+            AtomicInteger nextChunk = new AtomicInteger();
+            Throwable[] failure = new Throwable[1];
+            Thread[] workers = new Thread[tables.length];
+            for (int t = 0; t < workers.length; t++) {
+                Tokenizer tokenizer = new Tokenizer();
+                tables[t] = tokenizer.table;
+                workers[t] = new Thread(() -> {
+                    int c;
+                    try {
+                        while ((c = nextChunk.getAndIncrement()) < chunks) {
+                            long start = bounds[c];
+                            tokenizer.tokenize(channel.map(FileChannel.MapMode.READ_ONLY, start, bounds[c + 1] - start));
+                        }
+                    } catch (Throwable e) {
+                        // Not only IOException: a worker that dies any other way would leave its chunks uncounted
+                        nextChunk.set(chunks); // the others stop after their current chunk
+                        synchronized (failure) {
+                            if (failure[0] == null) {
+                                failure[0] = e;
+                            } else {
+                                failure[0].addSuppressed(e);
+                            }
+                        }
+                    }
+                }, "word-count-" + t);
+                workers[t].start();
+            }
+            for (Thread worker : workers) {
+                worker.join();
+            }
+            Throwable f = failure[0];
+            if (f instanceof IOException) {
+                throw (IOException) f;
+            }
+            if (f instanceof RuntimeException) {
+                throw (RuntimeException) f;
+            }
+            if (f instanceof Error) {
+                throw (Error) f;
+            }
+            if (f != null) {
+                throw new IllegalStateException(f);
+            }
+            // Merge the private tables into the largest one
+            int largest = 0;
+            for (int t = 1; t < tables.length; t++) {
+                if (tables[t].size > tables[largest].size) {
+                    largest = t;
+                }
+            }
+            for (int t = 0; t < tables.length; t++) {
+                if (t != largest) {
+                    tables[largest].mergeFrom(tables[t]);
+                }
+            }
+            return new Result(tables[largest]);
+        }
+    }
+
+    /**
+     * Splits the file into about 4 chunks per thread, each at most MAX_CHUNK, and moves every boundary forward
+     * to the end of the word it falls in so no word is split between chunks.
+     */
+    static long[] chunkBounds(FileChannel channel, int threads) throws IOException {
+        long size = channel.size();
+        long chunkSize = Math.max(1 << 20, Math.min(MAX_CHUNK, size / (threads * 4L) + 1));
+        List<Long> bounds = new ArrayList<>();
+        bounds.add(0L);
+        ByteBuffer probe = ByteBuffer.allocate(256);
+        long pos = chunkSize;
+        while (pos < size) {
+            pos = nextSeparator(channel, pos, probe);
+            if (pos >= size) {
+                break;
+            }
+            bounds.add(pos);
+            pos += chunkSize;
+        }
+        bounds.add(size);
+        long[] result = new long[bounds.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = bounds.get(i);
+        }
+        return result;
+    }
+
+    private static long nextSeparator(FileChannel channel, long pos, ByteBuffer probe) throws IOException {
+        while (true) {
+            probe.clear();
+            int read = channel.read(probe, pos);
+            if (read <= 0) {
+                return channel.size();
+            }
+            for (int i = 0; i < read; i++) {
+                if (WORD_BYTE[probe.get(i) & 0xFF] == 0) {
+                    return pos + i;
+                }
+            }
+            pos += read;
+        }
+    }
+
+    /**
+     * Per-thread tokenizer state: a reusable copy block, the current word and the thread's private table.
+     */
+    private static final class Tokenizer {
+        final WordTable table = new WordTable();
+        private final byte[] block = new byte[BLOCK];
+        private byte[] scratch = new byte[64];
+
+        /**
+         * A chunk always ends on a separator or at end of file, so the word in progress at the end is complete.
+         */
+        void tokenize(ByteBuffer chunk) {
+            int length = 0;
+            int hash = FNV_OFFSET;
+            int remaining = chunk.remaining();
+            while (remaining > 0) {
+                int n = Math.min(block.length, remaining);
+                chunk.get(block, 0, n);
+                remaining -= n;
+                for (int i = 0; i < n; i++) {
+                    byte c = WORD_BYTE[block[i] & 0xFF];
+                    if (c != 0) {
+                        if (length == scratch.length) {
+                            scratch = Arrays.copyOf(scratch, length << 1);
+                        }
+                        scratch[length++] = c;
+                        hash = (hash ^ c) * FNV_PRIME;
+                    } else if (length > 0) {
+                        table.add(scratch, 0, length, hash, 1);
+                        length = 0;
+                        hash = FNV_OFFSET;
+                    }
+                }
+            }
+            if (length > 0) {
+                table.add(scratch, 0, length, hash, 1);
+            }
+        }
+    }
+
+    static int hash(byte[] word, int length) {
+        int hash = FNV_OFFSET;
+        for (int i = 0; i < length; i++) {
+            hash = (hash ^ word[i]) * FNV_PRIME;
+        }
+        return hash;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length == 0) {
+            System.out.println("Usage: java MappedWordCount <file> [topK] [threads]");
+            return;
+        }
+        int k = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        long start = System.nanoTime();
+        Result result = count(Path.of(args[0]), threads);
+        long nanos = System.nanoTime() - start;
+        System.out.printf("%,d words, %,d distinct, %.1f ms%n", result.totalWords(), result.distinctWords(), nanos / 1e6);
+        for (Map.Entry<String, Long> entry : result.topK(k)) {
+            System.out.println(entry.getKey() + " : " + entry.getValue());
+        }
+    }
+}
@@ -0,0 +1,96 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Generates a text corpus and compares MappedWordCount with the line-by-line split("\\W+") + HashMap approach.
+ * Usage: java MappedWordCountBenchmark [sizeMB] [file]
+ */
+public class MappedWordCountBenchmark {
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int sizeMb = args.length > 0 ? Integer.parseInt(args[0]) : 256;
+        Path file = args.length > 1 ? Path.of(args[1]) : Files.createTempFile("wordcount", ".txt");
+        if (Files.size(file) == 0) {
+            generate(file, sizeMb * (1L << 20));
+        }
+        System.out.printf("Corpus: %s (%,d bytes)%n", file, Files.size(file));
+
+        for (int round = 0; round < 2; round++) {
+            long start = System.nanoTime();
+            MappedWordCount.Result mapped = MappedWordCount.count(file);
+            long mappedNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            Map<String, Integer> baseline = splitAndCount(file);
+            long baselineNanos = System.nanoTime() - start;
+
+            if (mapped.distinctWords() != baseline.size()) {
+                throw new IllegalStateException("distinct words differ: " + mapped.distinctWords() + " vs " + baseline.size());
+            }
+            for (Map.Entry<String, Integer> entry : baseline.entrySet()) {
+                if (mapped.count(entry.getKey()) != entry.getValue()) {
+                    throw new IllegalStateException("count differs for " + entry.getKey());
+                }
+            }
+            report("MappedWordCount", Files.size(file), mappedNanos);
+            report("split + HashMap", Files.size(file), baselineNanos);
+        }
+        if (args.length < 2) {
+            Files.delete(file);
+        }
+    }
+
+    private static Map<String, Integer> splitAndCount(Path file) throws IOException {
+        Map<String, Integer> counts = new HashMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.ISO_8859_1)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                for (String word : line.toLowerCase().split("\\W+")) {
+                    if (!word.isEmpty()) {
+                        counts.put(word, counts.getOrDefault(word, 0) + 1);
+                    }
+                }
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Zipf-like vocabulary of 50k words with mixed case and punctuation.
+     */
+    private static void generate(Path file, long bytes) throws IOException {
+        Random random = new Random(42);
+        String[] vocabulary = new String[50_000];
+        for (int i = 0; i < vocabulary.length; i++) {
+            StringBuilder word = new StringBuilder();
+            int length = 2 + random.nextInt(9);
+            for (int j = 0; j < length; j++) {
+                char c = (char) ('a' + random.nextInt(26));
+                word.append(random.nextInt(8) == 0 ? Character.toUpperCase(c) : c);
+            }
+            vocabulary[i] = word.toString();
+        }
+        String[] separators = {" ", " ", " ", ", ", ". ", "\n"};
+        long written = 0;
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.ISO_8859_1)) {
+            while (written < bytes) {
+                double u = random.nextDouble();
+                String word = vocabulary[(int) (vocabulary.length * u * u * u)];
+                String separator = separators[random.nextInt(separators.length)];
+                writer.write(word);
+                writer.write(separator);
+                written += word.length() + separator.length();
+            }
+        }
+    }
+
+    private static void report(String name, long bytes, long nanos) {
+        System.out.printf("%-18s %8.1f ms  %8.1f MB/s%n", name, nanos / 1e6, bytes / (1 << 20) / (nanos / 1e9));
+    }
+}
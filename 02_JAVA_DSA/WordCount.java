@@ -1,14 +1,45 @@
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Random;
+import queue.workStealingPool;
 
 public class WordCount {
 
-    public static void main(String[] args){
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length > 1 && args[0].equals("--parallel")) {
+            // In-memory mode on N generated words, counted on one thread and on a workStealingPool
+            String[] generated = generateWords(Integer.parseInt(args[1]));
+            long start = System.nanoTime();
+            Map<String, Integer> sequential = countWords(generated);
+            long sequentialNanos = System.nanoTime() - start;
+            try (workStealingPool pool = new workStealingPool()) {
+                start = System.nanoTime();
+                Map<String, Integer> parallel = countWordsParallel(generated, pool);
+                long parallelNanos = System.nanoTime() - start;
+                System.out.printf("%d distinct words, same counts: %b, sequential %.1f ms, workStealingPool(%d) %.1f ms%n",
+                        parallel.size(), parallel.equals(sequential), sequentialNanos / 1e6, pool.parallelism(), parallelNanos / 1e6);
+            }
+            return;
+        }
+        if (args.length > 0) {
+            // File mode: memory-mapped and counted on all cores, see MappedWordCount
+            MappedWordCount.Result fileResult = MappedWordCount.count(Path.of(args[0]));
+            StringBuilder lines = new StringBuilder();
+            for (Map.Entry<String, Long> entry : fileResult.topK(10)){
+                lines.append(entry.getKey()).append(" : ").append(entry.getValue()).append('\n');
+            }
+            System.out.print(lines);
+            return;
+        }
         String[] words = {"apple", "banana", "Apple", "orange", "Banana", "apple"};
         Map<String, Integer> result = countWords(words);
+        StringBuilder lines = new StringBuilder();
         for (Map.Entry<String, Integer> entry : result.entrySet()){
-            System.out.println(entry.getKey() + " : " + entry.getValue());
+            lines.append(entry.getKey()).append(" : ").append(entry.getValue()).append('\n');
         }
+        System.out.print(lines);
     }
 
     private static Map<String, Integer> countWords(String[] words) {
@@ -19,5 +50,60 @@ public class WordCount {
         }
         return wordCountMap;
     }
-}
 
+    /**
+     * countWords split over the pool: halves are forked down to about eight leaves per worker (merging maps costs more
+     * than counting, so leaves stay large), each leaf counts into its own map, and the maps are merged on the way back up,
+     * the smaller into the larger.
+     */
+    static Map<String, Integer> countWordsParallel(String[] words, workStealingPool pool) {
+        int grain = Math.max(4096, words.length / (8 * pool.parallelism()));
+        return pool.invoke(new CountTask(words, 0, words.length, grain));
+    }
+
+    private static final class CountTask extends workStealingPool.Task<Map<String, Integer>> {
+        private final String[] words;
+        private final int from, to, grain;
+
+        CountTask(String[] words, int from, int to, int grain) {
+            this.words = words;
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+        }
+
+        @Override
+        protected Map<String, Integer> compute() {
+            if (to - from <= grain) {
+                Map<String, Integer> counts = new HashMap<>();
+                for (int i = from; i < to; i++) {
+                    counts.merge(words[i].toLowerCase(), 1, Integer::sum);
+                }
+                return counts;
+            }
+            int mid = (from + to) >>> 1;
+            CountTask left = new CountTask(words, from, mid, grain);
+            left.fork();
+            Map<String, Integer> right = new CountTask(words, mid, to, grain).compute();
+            Map<String, Integer> leftCounts = left.join();
+            Map<String, Integer> into = leftCounts.size() >= right.size() ? leftCounts : right;
+            Map<String, Integer> other = into == leftCounts ? right : leftCounts;
+            other.forEach((word, count) -> into.merge(word, count, Integer::sum));
+            return into;
+        }
+    }
+
+    private static String[] generateWords(int n) {
+        String[] vocabulary = new String[50_000];
+        Random random = new Random(5);
+        for (int i = 0; i < vocabulary.length; i++) {
+            vocabulary[i] = (random.nextBoolean() ? "Word" : "word") + i;
+        }
+        String[] words = new String[n];
+        for (int i = 0; i < n; i++) {
+            // Skewed like text: low indexes are far more frequent
+            words[i] = vocabulary[(int) (vocabulary.length * Math.pow(random.nextDouble(), 3))];
+        }
+        return words;
+    }
+}
@@ -9,10 +9,12 @@ public class arrayString {
     }
 
     public static void printArray(String[] arr) {
+        // Build the line first and print it once, instead of one synchronized print per element
+        StringBuilder line = new StringBuilder();
         for (String str : arr) {
-            System.out.print(str + " ");
+            line.append(str).append(' ');
         }
-        System.out.println();
+        System.out.println(line);
     }
 
     public static int getArrayLength(String[] arr) {
@@ -0,0 +1,396 @@
+package hashmap;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Concurrent version of hashMap with the same int -> int API.
+ * <p>
+ * Approach:
+ * - Reads never lock or write: they probe the key array and read one value word.
+ * - A key is bound to a slot once with CAS and stays there until the table is replaced.
+ * - Each value word packs a state and the int value, so put/addTo/remove are a single CAS on that word.
+ * - Resize is cooperative: every writer copies one chunk of the old table before doing its own work.
+ *   A slot being copied is FROZEN (still readable), then MOVED (look in the next table), so no writer waits for the whole copy.
+ */
+public class concurrentHashMap {
+    // value word = state << 32 | value
+    private static final long EMPTY = 0L;          // never written since the slot was created
+    private static final long PRESENT = 1L << 32;
+    private static final long DELETED = 2L << 32;  // removed, the slot stays bound to its key
+    private static final long FROZEN = 3L << 32;   // being copied to the next table, value still valid
+    private static final long MOVED = 4L << 32;    // copied, the next table is authoritative
+    private static final long STATE_MASK = 0xFFFF_FFFF_0000_0000L;
+
+    private static final int PUT = 0, ADD = 1, REMOVE = 2, COPY = 3;
+    private static final int NOT_FOUND = -1, FULL = -2;
+    private static final int COPY_CHUNK = 1024;
+    private static final float LOAD_FACTOR = 0.75f;
+
+    private static final class Table {
+        final AtomicIntegerArray keys;
+        final AtomicLongArray values;
+        final int length;
+        final int mask;
+        final int threshold;
+        final AtomicInteger claimed = new AtomicInteger();
+        final AtomicInteger copyIndex = new AtomicInteger();
+        final AtomicInteger copyDone = new AtomicInteger();
+        volatile Table next;
+
+        Table(int capacity) {
+            keys = new AtomicIntegerArray(capacity);
+            values = new AtomicLongArray(capacity);
+            length = capacity;
+            mask = capacity - 1;
+            threshold = (int) (capacity * LOAD_FACTOR);
+        }
+    }
+
+    private static final AtomicReferenceFieldUpdater<concurrentHashMap, Table> TABLE =
+            AtomicReferenceFieldUpdater.newUpdater(concurrentHashMap.class, Table.class, "table");
+    private static final AtomicReferenceFieldUpdater<Table, Table> NEXT =
+            AtomicReferenceFieldUpdater.newUpdater(Table.class, Table.class, "next");
+
+    private volatile Table table;
+    // Key 0 marks a free slot, so it is kept outside the table
+    private final AtomicLong zeroSlot = new AtomicLong(EMPTY);
+    private final LongAdder size = new LongAdder();
+
+    public concurrentHashMap() {
+        this(16);
+    }
+
+    public concurrentHashMap(int expectedSize) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("expectedSize must be >= 0: " + expectedSize);
+        }
+        table = new Table(hashMap.tableSizeFor((int) Math.ceil(expectedSize / LOAD_FACTOR)));
+    }
+
+    private static long state(long word) {
+        return word & STATE_MASK;
+    }
+
+    private static long present(int value) {
+        return PRESENT | (value & 0xFFFF_FFFFL);
+    }
+
+    private static boolean hasValue(long word) {
+        long s = state(word);
+        return s == PRESENT || s == FROZEN;
+    }
+
+    public int get(int key) {
+        return getOrDefault(key, 0);
+    }
+
+    public int getOrDefault(int key, int defaultValue) {
+        long word = lookup(key);
+        return hasValue(word) ? (int) word : defaultValue;
+    }
+
+    public boolean containsKey(int key) {
+        return hasValue(lookup(key));
+    }
+
+    /**
+     * Returns the previous value, or 0 if absent.
+     */
+    public int put(int key, int value) {
+        long previous = key == 0 ? updateZero(PUT, value) : update(table, key, PUT, value);
+        return hasValue(previous) ? (int) previous : 0;
+    }
+
+    /**
+     * Atomically adds delta to the value of key (starting from 0 if absent) and returns the new value.
+     */
+    public int addTo(int key, int delta) {
+        long previous = key == 0 ? updateZero(ADD, delta) : update(table, key, ADD, delta);
+        return hasValue(previous) ? (int) previous + delta : delta;
+    }
+
+    /**
+     * Removes key and returns its value, or 0 if it was absent.
+     */
+    public int remove(int key) {
+        long previous = key == 0 ? updateZero(REMOVE, 0) : update(table, key, REMOVE, 0);
+        return hasValue(previous) ? (int) previous : 0;
+    }
+
+    public int size() {
+        return (int) size.sum();
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Weakly consistent: entries present before the call are visited, concurrent updates may or may not be.
+     */
+    public void forEach(hashMap.IntIntConsumer action) {
+        long zero = zeroSlot.get();
+        if (hasValue(zero)) {
+            action.accept(0, (int) zero);
+        }
+        Table t = finishResize();
+        for (int i = 0; i < t.length; i++) {
+            long word = t.values.get(i);
+            if (state(word) == MOVED) {
+                // A new resize started while iterating, read the entry from where it went
+                int key = t.keys.get(i);
+                word = key == 0 ? EMPTY : lookupFrom(t.next, key);
+            }
+            if (hasValue(word)) {
+                action.accept(t.keys.get(i), (int) word);
+            }
+        }
+    }
+
+    private long lookup(int key) {
+        return key == 0 ? zeroSlot.get() : lookupFrom(table, key);
+    }
+
+    private long lookupFrom(Table t, int key) {
+        while (true) {
+            int slot = probe(t, key, false);
+            if (slot >= 0) {
+                long word = t.values.get(slot);
+                if (state(word) != MOVED) {
+                    return word;
+                }
+            } else if (t.next == null) {
+                return EMPTY;
+            }
+            t = t.next;
+        }
+    }
+
+    /**
+     * Finds the slot bound to key, optionally binding a free one. Returns NOT_FOUND or FULL otherwise.
+     */
+    private int probe(Table t, int key, boolean claim) {
+        AtomicIntegerArray keys = t.keys;
+        int slot = hashMap.mix(key) & t.mask;
+        for (int probes = 0; probes < t.length; probes++) {
+            int current = keys.get(slot);
+            if (current == key) {
+                return slot;
+            }
+            if (current == 0) {
+                if (!claim) {
+                    return NOT_FOUND;
+                }
+                if (keys.compareAndSet(slot, 0, key)) {
+                    if (t.claimed.incrementAndGet() > t.threshold) {
+                        startResize(t);
+                    }
+                    return slot;
+                }
+                if (keys.get(slot) == key) {
+                    return slot; // another thread bound the same key
+                }
+            }
+            slot = (slot + 1) & t.mask;
+        }
+        return FULL;
+    }
+
+    /**
+     * Applies op to key starting at table t and returns the value word that was replaced.
+     */
+    private long update(Table t, int key, int op, int arg) {
+        outer:
+        while (true) {
+            Table next = t.next;
+            if (next != null && op != COPY) {
+                helpCopy(t, next);
+            }
+            int slot = probe(t, key, op != REMOVE);
+            if (slot == NOT_FOUND) {
+                if (t.next == null) {
+                    return EMPTY;
+                }
+                t = t.next;
+                continue;
+            }
+            if (slot == FULL) {
+                t = startResize(t);
+                continue;
+            }
+            AtomicLongArray values = t.values;
+            while (true) {
+                long word = values.get(slot);
+                long s = state(word);
+                if (s == MOVED || s == FROZEN) {
+                    if (s == FROZEN) {
+                        copySlot(t, slot, t.next);
+                    }
+                    t = t.next;
+                    continue outer;
+                }
+                long replacement;
+                if (op == PUT) {
+                    replacement = present(arg);
+                } else if (op == ADD) {
+                    replacement = present(s == PRESENT ? (int) word + arg : arg);
+                } else if (op == REMOVE) {
+                    if (s != PRESENT) {
+                        return word;
+                    }
+                    replacement = DELETED;
+                } else {
+                    // COPY only fills a slot that was never written in the new table
+                    if (s != EMPTY) {
+                        return word;
+                    }
+                    replacement = present(arg);
+                }
+                if (values.compareAndSet(slot, word, replacement)) {
+                    if (op != COPY) {
+                        if (s != PRESENT && op != REMOVE) {
+                            size.increment();
+                        } else if (op == REMOVE) {
+                            size.decrement();
+                        }
+                    }
+                    return word;
+                }
+            }
+        }
+    }
+
+    private long updateZero(int op, int arg) {
+        while (true) {
+            long word = zeroSlot.get();
+            boolean had = state(word) == PRESENT;
+            long replacement;
+            if (op == PUT) {
+                replacement = present(arg);
+            } else if (op == ADD) {
+                replacement = present(had ? (int) word + arg : arg);
+            } else {
+                if (!had) {
+                    return word;
+                }
+                replacement = DELETED;
+            }
+            if (zeroSlot.compareAndSet(word, replacement)) {
+                if (!had && op != REMOVE) {
+                    size.increment();
+                } else if (op == REMOVE) {
+                    size.decrement();
+                }
+                return word;
+            }
+        }
+    }
+
+    private Table startResize(Table t) {
+        Table next = t.next;
+        if (next == null) {
+            // Grow when live entries fill a quarter of the slots, otherwise rebuild at the same size to drop deleted slots
+            long live = size.sum();
+            int capacity = live > t.length / 4 ? t.length << 1 : t.length;
+            if (capacity <= 0) {
+                throw new IllegalStateException("Table too large");
+            }
+            next = new Table(capacity);
+            if (!NEXT.compareAndSet(t, null, next)) {
+                next = t.next;
+            }
+        }
+        return next;
+    }
+
+    /**
+     * Copies one chunk of t into next and promotes next once every chunk is done.
+     */
+    private void helpCopy(Table t, Table next) {
+        // Read before claiming so the index cannot overflow while a slow chunk delays promotion
+        int start = t.copyIndex.get() < t.length ? t.copyIndex.getAndAdd(COPY_CHUNK) : t.length;
+        if (start < t.length) {
+            int end = Math.min(start + COPY_CHUNK, t.length);
+            for (int i = start; i < end; i++) {
+                copySlot(t, i, next);
+            }
+            if (t.copyDone.addAndGet(end - start) == t.length) {
+                TABLE.compareAndSet(this, t, next);
+            }
+        } else if (t.copyDone.get() == t.length) {
+            TABLE.compareAndSet(this, t, next);
+        }
+    }
+
+    /**
+     * Returns once slot i of t is MOVED, copying its value into next if needed.
+     */
+    private void copySlot(Table t, int i, Table next) {
+        AtomicLongArray values = t.values;
+        while (true) {
+            long word = values.get(i);
+            long s = state(word);
+            if (s == MOVED) {
+                return;
+            }
+            if (s == EMPTY || s == DELETED) {
+                if (values.compareAndSet(i, word, MOVED)) {
+                    return;
+                }
+                continue;
+            }
+            if (s == PRESENT) {
+                long frozen = FROZEN | (word & 0xFFFF_FFFFL);
+                if (!values.compareAndSet(i, word, frozen)) {
+                    continue;
+                }
+                word = frozen;
+            }
+            update(next, t.keys.get(i), COPY, (int) word);
+            values.compareAndSet(i, word, MOVED);
+            return;
+        }
+    }
+
+    /**
+     * Completes any resize in progress and returns a table with no successor at the time of the call.
+     */
+    private Table finishResize() {
+        while (true) {
+            Table t = table;
+            Table next = t.next;
+            if (next == null) {
+                return t;
+            }
+            for (int i = 0; i < t.length; i++) {
+                copySlot(t, i, next);
+            }
+            TABLE.compareAndSet(this, t, next);
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        concurrentHashMap map = new concurrentHashMap();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 100_000; i++) {
+                    map.addTo(i % 1000, 1);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        System.out.println("size: " + map.size()); // 1000
+        System.out.println("get(7): " + map.get(7)); // 400
+        System.out.println("remove(7): " + map.remove(7)); // 400
+        System.out.println("getOrDefault(7, -1): " + map.getOrDefault(7, -1)); // -1
+    }
+}
@@ -0,0 +1,91 @@
+package hashmap;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Mixed 90% get / 10% addTo workload on concurrentHashMap and ConcurrentHashMap<Integer, Integer> at 1..16 threads.
+ * Usage: java hashmap.concurrentHashMapBenchmark [keys] [millisPerRun]
+ */
+public class concurrentHashMapBenchmark {
+    private interface Workload {
+        long run(long seed, int keyCount);
+    }
+
+    private static volatile boolean running;
+    private static volatile long sink;
+
+    public static void main(String[] args) throws InterruptedException {
+        int keyCount = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        long millis = args.length > 1 ? Long.parseLong(args[1]) : 1000;
+
+        concurrentHashMap primitive = new concurrentHashMap();
+        ConcurrentHashMap<Integer, Integer> boxed = new ConcurrentHashMap<>();
+        for (int i = 0; i < keyCount; i++) {
+            primitive.put(i, i);
+            boxed.put(i, i);
+        }
+
+        Workload primitiveLoad = (seed, keys) -> {
+            long ops = 0, sum = 0, x = seed;
+            while (running) {
+                x ^= x << 13; x ^= x >>> 7; x ^= x << 17; // xorshift64
+                int key = (int) ((x >>> 1) % keys);
+                if ((x & 0xFF) < 26) { // ~10% writes
+                    primitive.addTo(key, 1);
+                } else {
+                    sum += primitive.get(key);
+                }
+                ops++;
+            }
+            sink = sum;
+            return ops;
+        };
+        Workload boxedLoad = (seed, keys) -> {
+            long ops = 0, sum = 0, x = seed;
+            while (running) {
+                x ^= x << 13; x ^= x >>> 7; x ^= x << 17;
+                int key = (int) ((x >>> 1) % keys);
+                if ((x & 0xFF) < 26) {
+                    boxed.merge(key, 1, Integer::sum);
+                } else {
+                    sum += boxed.get(key);
+                }
+                ops++;
+            }
+            sink = sum;
+            return ops;
+        };
+
+        System.out.printf("%-8s %22s %22s%n", "threads", "concurrentHashMap", "ConcurrentHashMap");
+        for (int threads = 1; threads <= 16; threads <<= 1) {
+            double a = measure(primitiveLoad, threads, keyCount, millis);
+            double b = measure(boxedLoad, threads, keyCount, millis);
+            System.out.printf("%-8d %,18.0f op/s %,18.0f op/s%n", threads, a, b);
+        }
+    }
+
+    private static double measure(Workload workload, int threads, int keyCount, long millis) throws InterruptedException {
+        LongAdder total = new LongAdder();
+        CountDownLatch ready = new CountDownLatch(threads);
+        Thread[] workers = new Thread[threads];
+        running = true;
+        for (int t = 0; t < threads; t++) {
+            long seed = 0x9E3779B97F4A7C15L * (t + 1);
+            workers[t] = new Thread(() -> {
+                ready.countDown();
+                total.add(workload.run(seed, keyCount));
+            });
+            workers[t].start();
+        }
+        ready.await();
+        long start = System.nanoTime();
+        Thread.sleep(millis);
+        running = false;
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return total.sum() / ((System.nanoTime() - start) / 1e9);
+    }
+}
@@ -1,25 +1,290 @@
 package hashmap;
 
+/**
+ * Primitive int -> int hash map using open addressing.
+ * <p>
+ * Approach:
+ * Keys and values live in two parallel int[] arrays, so there is no boxing and no node object per entry.
+ * Collisions are resolved with linear probing, and remove uses backward-shift deletion so no tombstones are left behind.
+ * Key 0 marks a free slot, so the real key 0 is stored in separate fields.
+ */
 public class hashMap {
-    private static class Entry{
-        final int key;
-        int value;
-        Entry next;
-        Entry(int key, int value){
-            this.key = key;
-            this.value = value;
+    public interface IntIntConsumer {
+        void accept(int key, int value);
+    }
+
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final float DEFAULT_LOAD_FACTOR = 0.75f;
+
+    private final float loadFactor;
+    private int[] keys;
+    private int[] values;
+    private int mask;
+    private int size;
+    private int threshold;
+
+    // Key 0 is the free-slot marker, so it is kept outside the table
+    private boolean hasZeroKey;
+    private int zeroValue;
+
+    public hashMap() {
+        this(DEFAULT_CAPACITY, DEFAULT_LOAD_FACTOR);
+    }
+
+    public hashMap(int expectedSize) {
+        this(expectedSize, DEFAULT_LOAD_FACTOR);
+    }
+
+    public hashMap(int expectedSize, float loadFactor) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("expectedSize must be >= 0: " + expectedSize);
+        }
+        if (!(loadFactor > 0f && loadFactor < 1f)) {
+            throw new IllegalArgumentException("loadFactor must be in (0, 1): " + loadFactor);
+        }
+        this.loadFactor = loadFactor;
+        allocate(tableSizeFor((int) Math.ceil(expectedSize / loadFactor)));
+    }
+
+    /**
+     * Murmur3 finalizer, so sequential keys are spread over the whole table instead of clustering.
+     */
+    static int mix(int key) {
+        int h = key;
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    static int tableSizeFor(int n) {
+        int cap = Integer.highestOneBit(Math.max(n, 2) - 1) << 1;
+        if (cap <= 0) {
+            throw new IllegalArgumentException("Table too large: " + n);
+        }
+        return Math.max(cap, 2);
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+        threshold = Math.min(capacity - 1, (int) (capacity * loadFactor));
+    }
+
+    /**
+     * Returns the slot holding the key, or the free slot where it would be inserted (encoded as -(slot + 1)).
+     */
+    private int findSlot(int key) {
+        int[] k = keys;
+        int slot = mix(key) & mask;
+        while (true) {
+            int current = k[slot];
+            if (current == key) {
+                return slot;
+            }
+            if (current == 0) {
+                return -(slot + 1);
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    public int put(int key, int value) {
+        if (key == 0) {
+            int previous = zeroValue;
+            if (!hasZeroKey) {
+                hasZeroKey = true;
+                size++;
+                previous = 0;
+            }
+            zeroValue = value;
+            return previous;
+        }
+        int slot = findSlot(key);
+        if (slot >= 0) {
+            int previous = values[slot];
+            values[slot] = value;
+            return previous;
+        }
+        insertAt(-slot - 1, key, value);
+        return 0;
+    }
+
+    /**
+     * Adds delta to the value of key (starting from 0 if absent) and returns the new value.
+     */
+    public int addTo(int key, int delta) {
+        if (key == 0) {
+            if (!hasZeroKey) {
+                hasZeroKey = true;
+                size++;
+                zeroValue = 0;
+            }
+            return zeroValue += delta;
+        }
+        int slot = findSlot(key);
+        if (slot >= 0) {
+            return values[slot] += delta;
         }
+        insertAt(-slot - 1, key, delta);
+        return delta;
     }
 
-    private final int size = 1000;
-    private final Entry[] table = new Entry[size];
+    private void insertAt(int slot, int key, int value) {
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size > threshold) {
+            rehash(keys.length << 1);
+        }
+    }
+
+    /**
+     * Returns the value for key, or 0 if absent.
+     */
+    public int get(int key) {
+        return getOrDefault(key, 0);
+    }
+
+    public int getOrDefault(int key, int defaultValue) {
+        if (key == 0) {
+            return hasZeroKey ? zeroValue : defaultValue;
+        }
+        int[] k = keys;
+        int slot = mix(key) & mask;
+        while (true) {
+            int current = k[slot];
+            if (current == key) {
+                return values[slot];
+            }
+            if (current == 0) {
+                return defaultValue;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    public boolean containsKey(int key) {
+        if (key == 0) {
+            return hasZeroKey;
+        }
+        return findSlot(key) >= 0;
+    }
+
+    /**
+     * Removes key and returns its value, or 0 if it was absent.
+     */
+    public int remove(int key) {
+        if (key == 0) {
+            if (!hasZeroKey) {
+                return 0;
+            }
+            hasZeroKey = false;
+            size--;
+            int previous = zeroValue;
+            zeroValue = 0;
+            return previous;
+        }
+        int slot = findSlot(key);
+        if (slot < 0) {
+            return 0;
+        }
+        int previous = values[slot];
+        shiftKeys(slot);
+        size--;
+        return previous;
+    }
 
-    public void put(int key, int value){
-        int index = key % size;
-        Entry entry = table[index];
+    /**
+     * Backward-shift deletion: pull later entries of the probe chain into the hole so lookups never need tombstones.
+     */
+    private void shiftKeys(int hole) {
+        int[] k = keys;
+        int[] v = values;
+        int slot = hole;
+        while (true) {
+            slot = (slot + 1) & mask;
+            int current = k[slot];
+            if (current == 0) {
+                break;
+            }
+            int home = mix(current) & mask;
+            // Move the entry only if its home slot is not in (hole, slot]
+            boolean movable = hole <= slot ? (home <= hole || home > slot) : (home <= hole && home > slot);
+            if (movable) {
+                k[hole] = current;
+                v[hole] = v[slot];
+                hole = slot;
+            }
+        }
+        k[hole] = 0;
+        v[hole] = 0;
+    }
 
-        if (entry == null){
+    private void rehash(int newCapacity) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(newCapacity);
+        int[] k = keys;
+        int[] v = values;
+        for (int i = 0; i < oldKeys.length; i++) {
+            int key = oldKeys[i];
+            if (key != 0) {
+                int slot = mix(key) & mask;
+                while (k[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                k[slot] = key;
+                v[slot] = oldValues[i];
+            }
+        }
+    }
 
+    /**
+     * Visits every entry without allocating an iterator or entry objects.
+     */
+    public void forEach(IntIntConsumer action) {
+        if (hasZeroKey) {
+            action.accept(0, zeroValue);
+        }
+        int[] k = keys;
+        int[] v = values;
+        for (int i = 0; i < k.length; i++) {
+            if (k[i] != 0) {
+                action.accept(k[i], v[i]);
+            }
         }
     }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        java.util.Arrays.fill(keys, 0);
+        java.util.Arrays.fill(values, 0);
+        hasZeroKey = false;
+        zeroValue = 0;
+        size = 0;
+    }
+
+    public static void main(String[] args) {
+        hashMap map = new hashMap();
+        map.put(1, 100);
+        map.put(-7, 70);
+        map.addTo(1, 5);
+        map.addTo(0, 3);
+        System.out.println("get(1): " + map.get(1)); // 105
+        System.out.println("get(-7): " + map.get(-7)); // 70
+        System.out.println("get(0): " + map.get(0)); // 3
+        System.out.println("remove(-7): " + map.remove(-7)); // 70
+        System.out.println("getOrDefault(-7, -1): " + map.getOrDefault(-7, -1)); // -1
+        map.forEach((k, v) -> System.out.println(k + " -> " + v));
+    }
 }
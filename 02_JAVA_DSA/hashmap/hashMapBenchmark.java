@@ -0,0 +1,96 @@
+package hashmap;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Compares hashMap with HashMap<Integer, Integer> on put/get/addTo throughput and retained heap.
+ * Run with a fixed heap for stable numbers, e.g. java -Xms2g -Xmx2g hashmap.hashMapBenchmark 5000000
+ */
+public class hashMapBenchmark {
+    private static volatile Object sink;
+
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        int[] keys = new int[n];
+        for (int i = 0; i < n; i++) {
+            keys[i] = i * 31 - n; // mix of negative and positive, sequential-ish keys
+        }
+
+        // Warm up both code paths before measuring
+        for (int round = 0; round < 3; round++) {
+            runPrimitive(keys);
+            runBoxed(keys);
+        }
+
+        System.out.println("Entries: " + n);
+        long start = System.nanoTime();
+        long checksum = runPrimitive(keys);
+        report("hashMap", n, System.nanoTime() - start, checksum);
+
+        start = System.nanoTime();
+        checksum = runBoxed(keys);
+        report("HashMap<Integer,Integer>", n, System.nanoTime() - start, checksum);
+
+        long before = usedHeap();
+        hashMap primitive = new hashMap();
+        for (int key : keys) {
+            primitive.put(key, key);
+        }
+        sink = primitive;
+        System.out.printf("hashMap retained heap: %,d bytes%n", usedHeap() - before);
+        sink = null;
+
+        before = usedHeap();
+        Map<Integer, Integer> boxed = new HashMap<>();
+        for (int key : keys) {
+            boxed.put(key, key);
+        }
+        sink = boxed;
+        System.out.printf("HashMap<Integer,Integer> retained heap: %,d bytes%n", usedHeap() - before);
+        sink = null;
+    }
+
+    private static long runPrimitive(int[] keys) {
+        hashMap map = new hashMap();
+        for (int key : keys) {
+            map.put(key, key);
+        }
+        for (int key : keys) {
+            map.addTo(key, 1);
+        }
+        long sum = 0;
+        for (int key : keys) {
+            sum += map.get(key);
+        }
+        return sum;
+    }
+
+    private static long runBoxed(int[] keys) {
+        Map<Integer, Integer> map = new HashMap<>();
+        for (int key : keys) {
+            map.put(key, key);
+        }
+        for (int key : keys) {
+            map.merge(key, 1, Integer::sum);
+        }
+        long sum = 0;
+        for (int key : keys) {
+            sum += map.get(key);
+        }
+        return sum;
+    }
+
+    private static void report(String name, int n, long nanos, long checksum) {
+        double opsPerSec = 3.0 * n / (nanos / 1e9);
+        System.out.printf("%-26s %8.1f ms  %,15.0f ops/s  (checksum %d)%n", name, nanos / 1e6, opsPerSec, checksum);
+    }
+
+    private static long usedHeap() {
+        Runtime rt = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return rt.totalMemory() - rt.freeMemory();
+    }
+}
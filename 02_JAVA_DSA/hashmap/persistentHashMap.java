@@ -0,0 +1,392 @@
+package hashmap;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Persistent int -> int hash map: hashMap's open-addressing table kept in a memory-mapped file instead of the heap.
+ * <p>
+ * Approach:
+ * - A slot is one aligned 8-byte word, key in the high half and value in the low half. Every put, addTo and remove is
+ *   a single 8-byte store, so a crash leaves each slot either before or after the write, never half written.
+ * - Because of that, remove leaves a tombstone instead of hashMap's backward shift, which moves several slots and
+ *   could lose or duplicate an entry if interrupted. Tombstones are cleared whenever the table is rebuilt.
+ * - Key 0 marks a free slot and Integer.MIN_VALUE a tombstone, so those two real keys live in the header, also as single words.
+ * - A 4 KB header holds a magic number, the format, the table size, counters, a generation bumped on every open,
+ *   and a clean-shutdown flag. After a crash the counters may be stale, so opening an unclean file recounts them.
+ * - Growing or compacting builds the new table in a side file, forces it and renames it over the old one,
+ *   so a crash during a rebuild leaves the old table intact.
+ * - The table is mapped in 1 GB chunks, so it can be far larger than the heap (up to 2^30 slots, 8 GB).
+ * Restarting only maps the file: the OS pages the table in as lookups touch it.
+ * Not thread-safe, like hashMap.
+ */
+public class persistentHashMap implements Closeable {
+    private static final long MAGIC = 0x5048_4D41_5031_0001L; // "PHMAP1" + format
+    private static final int HEADER = 4096;
+    private static final int SIZE = 16, TOMBSTONES = 24, ZERO_KEY = 32, MIN_KEY = 40, CLEAN = 48, GENERATION = 56, CAPACITY_LOG2 = 12;
+    private static final int TOMBSTONE_KEY = Integer.MIN_VALUE;
+    private static final int CHUNK_BITS = 27; // 2^27 slots of 8 bytes = 1 GB per mapping
+    private static final float LOAD_FACTOR = 0.7f;
+
+    private final Path path;
+    private FileChannel channel;
+    private MappedByteBuffer header;
+    private MappedByteBuffer[] chunks;
+    private int mask;
+    private long size;
+    private long tombstones;
+    private long threshold;
+
+    /**
+     * Opens the map stored at path, or creates it with room for expectedSize entries.
+     */
+    public persistentHashMap(Path path, int expectedSize) throws IOException {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("expectedSize must be >= 0: " + expectedSize);
+        }
+        this.path = path;
+        if (!Files.exists(path) || Files.size(path) == 0) {
+            create(path, hashMap.tableSizeFor((int) Math.min(1 << 30, (long) Math.ceil(expectedSize / LOAD_FACTOR))));
+        }
+        map();
+        header.putLong(GENERATION, header.getLong(GENERATION) + 1);
+        if (header.getLong(CLEAN) != 1) {
+            recount();
+        }
+        header.putLong(CLEAN, 0);
+        header.force();
+    }
+
+    private static void create(Path file, int capacity) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            // Extending the file makes it sparse: untouched slots read as zero (free) and take no disk space
+            MappedByteBuffer h = ch.map(FileChannel.MapMode.READ_WRITE, 0, HEADER);
+            h.order(ByteOrder.nativeOrder());
+            h.putLong(0, MAGIC);
+            h.putInt(CAPACITY_LOG2, Integer.numberOfTrailingZeros(capacity));
+            h.putLong(CLEAN, 1);
+            ch.write(ByteBuffer.allocate(1), HEADER + (long) capacity * 8 - 1);
+            h.force();
+        }
+    }
+
+    private void map() throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER);
+        header.order(ByteOrder.nativeOrder());
+        if (header.getLong(0) != MAGIC) {
+            throw new IOException("Not a persistentHashMap file: " + path);
+        }
+        int capacity = 1 << header.getInt(CAPACITY_LOG2);
+        if (channel.size() < HEADER + (long) capacity * 8) {
+            throw new IOException("Truncated persistentHashMap file: " + path);
+        }
+        int chunkCount = Math.max(1, capacity >>> CHUNK_BITS);
+        chunks = new MappedByteBuffer[chunkCount];
+        long chunkBytes = Math.min(capacity, 1 << CHUNK_BITS) * 8L;
+        for (int c = 0; c < chunkCount; c++) {
+            chunks[c] = channel.map(FileChannel.MapMode.READ_WRITE, HEADER + c * chunkBytes, chunkBytes);
+            chunks[c].order(ByteOrder.nativeOrder());
+        }
+        mask = capacity - 1;
+        threshold = (long) (capacity * LOAD_FACTOR);
+        size = header.getLong(SIZE);
+        tombstones = header.getLong(TOMBSTONES);
+    }
+
+    // The counters are written lazily, so after a crash they are rebuilt from the slots
+    private void recount() {
+        long live = 0, dead = 0;
+        for (int slot = 0; slot <= mask; slot++) {
+            long word = word(slot);
+            if (word != 0) {
+                if (keyOf(word) == TOMBSTONE_KEY) {
+                    dead++;
+                } else {
+                    live++;
+                }
+            }
+        }
+        live += (header.getLong(ZERO_KEY) != 0 ? 1 : 0) + (header.getLong(MIN_KEY) != 0 ? 1 : 0);
+        size = live;
+        tombstones = dead;
+        header.putLong(SIZE, size);
+        header.putLong(TOMBSTONES, tombstones);
+    }
+
+    private long word(int slot) {
+        return chunks[slot >>> CHUNK_BITS].getLong((slot & ((1 << CHUNK_BITS) - 1)) << 3);
+    }
+
+    private void setWord(int slot, long word) {
+        chunks[slot >>> CHUNK_BITS].putLong((slot & ((1 << CHUNK_BITS) - 1)) << 3, word);
+    }
+
+    private static long pack(int key, int value) {
+        return (long) key << 32 | (value & 0xFFFF_FFFFL);
+    }
+
+    private static int keyOf(long word) {
+        return (int) (word >>> 32);
+    }
+
+    private static int valueOf(long word) {
+        return (int) word;
+    }
+
+    // Header word for key 0 or Integer.MIN_VALUE: 1 in the high half when present, the value in the low half
+    private static int specialOffset(int key) {
+        return key == 0 ? ZERO_KEY : key == TOMBSTONE_KEY ? MIN_KEY : -1;
+    }
+
+    /**
+     * Returns the slot holding the key, or the slot where it would be inserted (the first tombstone or free slot
+     * on its probe chain) encoded as -(slot + 1).
+     */
+    private int findSlot(int key) {
+        int slot = hashMap.mix(key) & mask;
+        int firstTombstone = -1;
+        while (true) {
+            long word = word(slot);
+            if (word == 0) {
+                return -((firstTombstone >= 0 ? firstTombstone : slot) + 1);
+            }
+            int current = keyOf(word);
+            if (current == key) {
+                return slot;
+            }
+            if (current == TOMBSTONE_KEY && firstTombstone < 0) {
+                firstTombstone = slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    public int put(int key, int value) throws IOException {
+        return update(key, value, false);
+    }
+
+    /**
+     * Adds delta to the value of key (starting from 0 if absent) and returns the new value.
+     */
+    public int addTo(int key, int delta) throws IOException {
+        return update(key, delta, true);
+    }
+
+    private int update(int key, int value, boolean add) throws IOException {
+        int special = specialOffset(key);
+        if (special >= 0) {
+            long word = header.getLong(special);
+            if (word == 0) {
+                size++;
+            }
+            int result = add ? valueOf(word) + value : value;
+            header.putLong(special, pack(1, result));
+            return add ? result : valueOf(word);
+        }
+        int slot = findSlot(key);
+        if (slot >= 0) {
+            int previous = valueOf(word(slot));
+            int result = add ? previous + value : value;
+            setWord(slot, pack(key, result));
+            return add ? result : previous;
+        }
+        slot = -slot - 1;
+        if (keyOf(word(slot)) == TOMBSTONE_KEY) {
+            tombstones--;
+        }
+        setWord(slot, pack(key, value));
+        if (++size + tombstones > threshold) {
+            // Mostly tombstones: rebuild at the same size, otherwise double
+            rebuild(tombstones > size / 2 ? mask + 1L : (mask + 1L) << 1); // long: doubling 2^30 slots overflows int
+        }
+        return add ? value : 0;
+    }
+
+    /**
+     * Returns the value for key, or 0 if absent.
+     */
+    public int get(int key) {
+        return getOrDefault(key, 0);
+    }
+
+    public int getOrDefault(int key, int defaultValue) {
+        int special = specialOffset(key);
+        if (special >= 0) {
+            long word = header.getLong(special);
+            return word != 0 ? valueOf(word) : defaultValue;
+        }
+        int slot = hashMap.mix(key) & mask;
+        while (true) {
+            long word = word(slot);
+            if (word == 0) {
+                return defaultValue;
+            }
+            if (keyOf(word) == key) {
+                return valueOf(word);
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    public boolean containsKey(int key) {
+        int special = specialOffset(key);
+        return special >= 0 ? header.getLong(special) != 0 : findSlot(key) >= 0;
+    }
+
+    /**
+     * Removes key and returns its value, or 0 if it was absent.
+     */
+    public int remove(int key) {
+        int special = specialOffset(key);
+        if (special >= 0) {
+            long word = header.getLong(special);
+            if (word == 0) {
+                return 0;
+            }
+            header.putLong(special, 0);
+            size--;
+            return valueOf(word);
+        }
+        int slot = findSlot(key);
+        if (slot < 0) {
+            return 0;
+        }
+        int previous = valueOf(word(slot));
+        setWord(slot, pack(TOMBSTONE_KEY, 0));
+        size--;
+        tombstones++;
+        return previous;
+    }
+
+    private void rebuild(long newCapacity) throws IOException {
+        if (newCapacity > 1 << 30) {
+            throw new IllegalStateException("persistentHashMap is full: " + size + " entries");
+        }
+        int capacity = (int) newCapacity;
+        Path tmp = path.resolveSibling(path.getFileName() + ".rebuild");
+        create(tmp, capacity);
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer h = ch.map(FileChannel.MapMode.READ_WRITE, 0, HEADER);
+            h.order(ByteOrder.nativeOrder());
+            int newMask = capacity - 1;
+            int chunkCount = Math.max(1, capacity >>> CHUNK_BITS);
+            long chunkBytes = Math.min(capacity, 1 << CHUNK_BITS) * 8L;
+            MappedByteBuffer[] target = new MappedByteBuffer[chunkCount];
+            for (int c = 0; c < chunkCount; c++) {
+                target[c] = ch.map(FileChannel.MapMode.READ_WRITE, HEADER + c * chunkBytes, chunkBytes);
+                target[c].order(ByteOrder.nativeOrder());
+            }
+            for (int slot = 0; slot <= mask; slot++) {
+                long word = word(slot);
+                int key = keyOf(word);
+                if (word != 0 && key != TOMBSTONE_KEY) {
+                    int s = hashMap.mix(key) & newMask;
+                    while (target[s >>> CHUNK_BITS].getLong((s & ((1 << CHUNK_BITS) - 1)) << 3) != 0) {
+                        s = (s + 1) & newMask;
+                    }
+                    target[s >>> CHUNK_BITS].putLong((s & ((1 << CHUNK_BITS) - 1)) << 3, word);
+                }
+            }
+            h.putLong(SIZE, size);
+            h.putLong(ZERO_KEY, header.getLong(ZERO_KEY));
+            h.putLong(MIN_KEY, header.getLong(MIN_KEY));
+            h.putLong(GENERATION, header.getLong(GENERATION));
+            h.putLong(CLEAN, 0);
+            for (MappedByteBuffer chunk : target) {
+                chunk.force();
+            }
+            h.force();
+        }
+        channel.close();
+        Files.move(tmp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        map();
+    }
+
+    /**
+     * Visits every entry in slot order.
+     */
+    public void forEach(hashMap.IntIntConsumer action) {
+        long zero = header.getLong(ZERO_KEY);
+        if (zero != 0) {
+            action.accept(0, valueOf(zero));
+        }
+        long min = header.getLong(MIN_KEY);
+        if (min != 0) {
+            action.accept(TOMBSTONE_KEY, valueOf(min));
+        }
+        for (int slot = 0; slot <= mask; slot++) {
+            long word = word(slot);
+            if (word != 0 && keyOf(word) != TOMBSTONE_KEY) {
+                action.accept(keyOf(word), valueOf(word));
+            }
+        }
+    }
+
+    public long size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Number of times the file has been opened, a cheap way to tell restarts apart.
+     */
+    public long generation() {
+        return header.getLong(GENERATION);
+    }
+
+    /**
+     * Forces every slot and the header to disk. Until then the OS writes pages back on its own schedule.
+     */
+    public void flush() {
+        for (MappedByteBuffer chunk : chunks) {
+            chunk.force();
+        }
+        header.putLong(SIZE, size);
+        header.putLong(TOMBSTONES, tombstones);
+        header.force();
+    }
+
+    /**
+     * Flushes and marks the file clean, so the next open can trust the counters.
+     */
+    @Override
+    public void close() throws IOException {
+        flush();
+        header.putLong(CLEAN, 1);
+        header.force();
+        channel.close();
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path file = Files.createTempFile("persistent", ".map");
+        Files.delete(file);
+        try (persistentHashMap map = new persistentHashMap(file, 16)) {
+            map.put(1, 100);
+            map.put(-7, 70);
+            map.addTo(1, 5);
+            map.addTo(0, 3);
+            map.remove(-7);
+        }
+        try (persistentHashMap map = new persistentHashMap(file, 16)) {
+            System.out.println("After restart, generation " + map.generation()); // 2
+            System.out.println("get(1): " + map.get(1)); // 105
+            System.out.println("get(0): " + map.get(0)); // 3
+            System.out.println("getOrDefault(-7, -1): " + map.getOrDefault(-7, -1)); // -1
+            System.out.println("size: " + map.size()); // 2
+        }
+        Files.delete(file);
+    }
+}
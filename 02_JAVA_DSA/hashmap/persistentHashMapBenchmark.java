@@ -0,0 +1,143 @@
+package hashmap;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Startup time and lookup latency: persistentHashMap re-mapped on restart against a hashMap rebuilt on the heap
+ * from a file of (key, value) pairs, which is what a process without a persistent table has to do on every start.
+ * Keys are hashMap.mix(i), a bijection, so they are distinct and no key array is needed.
+ * Usage: java hashmap.persistentHashMapBenchmark [entries] [mapped]
+ * With "mapped" the heap side is skipped, e.g. java -Xmx64m hashmap.persistentHashMapBenchmark 200000000 mapped
+ * serves a 2 GB table from a 64 MB heap.
+ */
+public class persistentHashMapBenchmark {
+    private static final int LOOKUPS = 5_000_000;
+
+    public static void main(String[] args) throws IOException {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+        boolean heap = args.length < 2 || !args[1].equals("mapped");
+        Path dir = Files.createTempDirectory("phm");
+        Path mapFile = dir.resolve("table.map");
+        Path pairsFile = dir.resolve("pairs.bin");
+        System.out.println("Entries: " + n);
+
+        long start = System.nanoTime();
+        try (persistentHashMap map = new persistentHashMap(mapFile, n)) {
+            for (int i = 0; i < n; i++) {
+                map.put(hashMap.mix(i), i);
+            }
+        }
+        System.out.printf("  persistentHashMap first build + close %8.1f ms, file %d MB%n",
+                (System.nanoTime() - start) / 1e6, Files.size(mapFile) >> 20);
+        if (heap) {
+            writePairs(pairsFile, n);
+        }
+
+        hashMap rebuilt = null;
+        for (int round = 0; round < 3; round++) {
+            boolean print = round == 2;
+            // Warm restart: map the file and answer a first lookup
+            start = System.nanoTime();
+            try (persistentHashMap map = new persistentHashMap(mapFile, n)) {
+                int first = map.get(hashMap.mix(n / 2));
+                long open = System.nanoTime() - start;
+                check(first, n / 2);
+                long lookup = lookups(map, n);
+                if (print) {
+                    System.out.printf("  persistentHashMap restart %8.3f ms to first lookup, %6.1f ns/lookup%n",
+                            open / 1e6, (double) lookup / LOOKUPS);
+                }
+            }
+            if (heap) {
+                rebuilt = null;
+                start = System.nanoTime();
+                rebuilt = readPairs(pairsFile, n);
+                int first = rebuilt.get(hashMap.mix(n / 2));
+                long open = System.nanoTime() - start;
+                check(first, n / 2);
+                start = System.nanoTime();
+                long sum = 0;
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int k = 0; k < LOOKUPS; k++) {
+                    int i = random.nextInt(n);
+                    sum += rebuilt.get(hashMap.mix(i)) - i;
+                }
+                long lookup = System.nanoTime() - start;
+                check((int) sum, 0);
+                if (print) {
+                    System.out.printf("  hashMap rebuild   %8.3f ms to first lookup, %6.1f ns/lookup%n",
+                            open / 1e6, (double) lookup / LOOKUPS);
+                }
+            }
+        }
+        Files.deleteIfExists(pairsFile);
+        Files.delete(mapFile);
+        Files.delete(dir);
+    }
+
+    private static long lookups(persistentHashMap map, int n) {
+        long start = System.nanoTime();
+        long sum = 0;
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int k = 0; k < LOOKUPS; k++) {
+            int i = random.nextInt(n);
+            sum += map.get(hashMap.mix(i)) - i;
+        }
+        long elapsed = System.nanoTime() - start;
+        check((int) sum, 0);
+        return elapsed;
+    }
+
+    private static void writePairs(Path file, int n) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20).order(ByteOrder.nativeOrder());
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (int i = 0; i < n; i++) {
+                if (!buffer.hasRemaining()) {
+                    drain(ch, buffer);
+                }
+                buffer.putInt(hashMap.mix(i)).putInt(i);
+            }
+            drain(ch, buffer);
+        }
+    }
+
+    private static void drain(FileChannel ch, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            ch.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private static hashMap readPairs(Path file, int n) throws IOException {
+        hashMap map = new hashMap(n);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20).order(ByteOrder.nativeOrder());
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (ch.read(buffer) > 0 || buffer.position() > 0) {
+                buffer.flip();
+                while (buffer.remaining() >= 8) {
+                    map.put(buffer.getInt(), buffer.getInt());
+                }
+                buffer.compact();
+                if (buffer.position() == 0 && ch.position() == ch.size()) {
+                    break;
+                }
+            }
+        }
+        return map;
+    }
+
+    private static void check(int actual, int expected) {
+        if (actual != expected) {
+            throw new IllegalStateException("expected " + expected + " but got " + actual);
+        }
+    }
+}
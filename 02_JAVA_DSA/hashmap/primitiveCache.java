@@ -0,0 +1,573 @@
+package hashmap;
+
+import java.util.Arrays;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * Bounded long -> long cache with LRU, LFU or W-TinyLFU eviction, for hot results that are expensive to recompute.
+ * Int keys work as they are, widened to long.
+ * <p>
+ * Approach:
+ * - Entries live in parallel primitive arrays (key, value, prev, next, list) addressed by an int index,
+ *   like linkedlist.pooledList, with the free indexes on a stack. There is no object per entry.
+ * - Keys are found through an open-addressing table of entry indexes, with linear probing and hashMap's backward shift.
+ * - Every policy is a set of doubly linked lists over the same prev/next arrays, so every step is O(1):
+ *   - LRU: one list, most recent first. The tail is evicted.
+ *   - LFU: one list per frequency in use, the lists chained in increasing frequency. A hit moves the entry to the next
+ *     frequency's list. The least recent entry of the lowest frequency is evicted.
+ *   - W_TINY_LFU: a 1% LRU window in front of a segmented LRU (probation, and protected for 80% of the main area).
+ *     An entry pushed out of the window only stays if a count-min sketch of recent accesses (4-bit counters, halved
+ *     every 10 * capacity increments) says it is used more often than the probation entry it would replace.
+ *     Keys seen once therefore pass through the window without flushing the hot set.
+ * - Segmented splits the keys over independently locked caches for concurrent use.
+ * Not thread-safe, use Segmented from several threads.
+ */
+public class primitiveCache {
+    public enum Policy { LRU, LFU, W_TINY_LFU }
+
+    private static final int NIL = -1;
+    private static final int WINDOW = 0, PROBATION = 1, PROTECTED = 2; // W_TINY_LFU lists
+    private static final long[] SEEDS = {0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+
+    private final Policy policy;
+    private final int capacity;
+    // Entries, capacity + 1 of them: W_TINY_LFU holds one extra entry while it picks a victim
+    private final long[] keys;
+    private final long[] values;
+    private final int[] prev;
+    private final int[] next;
+    private final int[] listOf;
+    private final int[] freeEntries;
+    private int freeCount;
+    private int size;
+    // Entry index + 1 per slot, 0 = free
+    private final int[] table;
+    private final int tableMask;
+
+    // Lists by id: LRU uses list 0, W_TINY_LFU lists 0-2, LFU one list (bucket) per frequency
+    private final int[] head;
+    private final int[] tail;
+    private final int[] length;
+
+    // LFU: bucket frequencies, buckets chained in increasing frequency from lowestBucket, free bucket ids on a stack
+    private int[] bucketFrequency;
+    private int[] bucketPrev;
+    private int[] bucketNext;
+    private int[] freeBuckets;
+    private int freeBucketCount;
+    private int lowestBucket = NIL;
+
+    // W_TINY_LFU: area sizes and the frequency sketch, 16 4-bit counters per long
+    private int windowMax;
+    private int protectedMax;
+    private long[] sketch;
+    private int sketchMask;
+    private int sampleSize;
+    private int samples;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public primitiveCache(int capacity, Policy policy) {
+        if (capacity <= 0 || capacity > 1 << 29) {
+            throw new IllegalArgumentException("capacity must be in [1, 2^29]: " + capacity);
+        }
+        this.policy = policy;
+        this.capacity = capacity;
+        keys = new long[capacity + 1];
+        values = new long[capacity + 1];
+        prev = new int[capacity + 1];
+        next = new int[capacity + 1];
+        listOf = new int[capacity + 1];
+        freeEntries = new int[capacity + 1];
+        for (int e = capacity; e >= 0; e--) {
+            freeEntries[freeCount++] = e;
+        }
+        table = new int[hashMap.tableSizeFor(2 * (capacity + 1))];
+        tableMask = table.length - 1;
+
+        int lists = policy == Policy.LFU ? capacity + 2 : 3;
+        head = new int[lists];
+        tail = new int[lists];
+        length = new int[lists];
+        Arrays.fill(head, NIL);
+        Arrays.fill(tail, NIL);
+        if (policy == Policy.LFU) {
+            bucketFrequency = new int[lists];
+            bucketPrev = new int[lists];
+            bucketNext = new int[lists];
+            freeBuckets = new int[lists];
+            for (int b = lists - 1; b >= 0; b--) {
+                freeBuckets[freeBucketCount++] = b;
+            }
+        } else if (policy == Policy.W_TINY_LFU) {
+            windowMax = Math.max(1, capacity / 100);
+            protectedMax = (capacity - windowMax) * 8 / 10;
+            sketch = new long[Math.max(8, hashMap.tableSizeFor(capacity))];
+            sketchMask = sketch.length - 1;
+            sampleSize = 10 * capacity;
+        }
+    }
+
+    static long mix64(long z) {
+        z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+        z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return z ^ (z >>> 33);
+    }
+
+    private int find(long key) {
+        for (int slot = (int) mix64(key) & tableMask; ; slot = (slot + 1) & tableMask) {
+            int e = table[slot] - 1;
+            if (e < 0 || keys[e] == key) {
+                return e;
+            }
+        }
+    }
+
+    private void index(int e) {
+        int slot = (int) mix64(keys[e]) & tableMask;
+        while (table[slot] != 0) {
+            slot = (slot + 1) & tableMask;
+        }
+        table[slot] = e + 1;
+    }
+
+    private void unindex(int e) {
+        int hole = (int) mix64(keys[e]) & tableMask;
+        while (table[hole] != e + 1) {
+            hole = (hole + 1) & tableMask;
+        }
+        // Backward-shift deletion, as in hashMap.shiftKeys
+        for (int slot = (hole + 1) & tableMask; table[slot] != 0; slot = (slot + 1) & tableMask) {
+            int home = (int) mix64(keys[table[slot] - 1]) & tableMask;
+            boolean movable = hole <= slot ? (home <= hole || home > slot) : (home <= hole && home > slot);
+            if (movable) {
+                table[hole] = table[slot];
+                hole = slot;
+            }
+        }
+        table[hole] = 0;
+    }
+
+    private void linkFirst(int list, int e) {
+        listOf[e] = list;
+        prev[e] = NIL;
+        next[e] = head[list];
+        if (head[list] != NIL) {
+            prev[head[list]] = e;
+        } else {
+            tail[list] = e;
+        }
+        head[list] = e;
+        length[list]++;
+    }
+
+    private void unlink(int e) {
+        int list = listOf[e];
+        int p = prev[e], n = next[e];
+        if (p != NIL) {
+            next[p] = n;
+        } else {
+            head[list] = n;
+        }
+        if (n != NIL) {
+            prev[n] = p;
+        } else {
+            tail[list] = p;
+        }
+        length[list]--;
+    }
+
+    private void moveToFront(int list, int e) {
+        if (head[list] != e) {
+            unlink(e);
+            linkFirst(list, e);
+        }
+    }
+
+    // New empty bucket for frequency right after bucket `after` in the chain (NIL = at the front)
+    private int newBucket(int after, int frequency) {
+        int b = freeBuckets[--freeBucketCount];
+        bucketFrequency[b] = frequency;
+        head[b] = tail[b] = NIL;
+        length[b] = 0;
+        bucketPrev[b] = after;
+        bucketNext[b] = after == NIL ? lowestBucket : bucketNext[after];
+        if (bucketNext[b] != NIL) {
+            bucketPrev[bucketNext[b]] = b;
+        }
+        if (after == NIL) {
+            lowestBucket = b;
+        } else {
+            bucketNext[after] = b;
+        }
+        return b;
+    }
+
+    private void freeBucket(int b) {
+        if (bucketPrev[b] != NIL) {
+            bucketNext[bucketPrev[b]] = bucketNext[b];
+        } else {
+            lowestBucket = bucketNext[b];
+        }
+        if (bucketNext[b] != NIL) {
+            bucketPrev[bucketNext[b]] = bucketPrev[b];
+        }
+        freeBuckets[freeBucketCount++] = b;
+    }
+
+    private void incrementFrequency(int e) {
+        int bucket = listOf[e];
+        int target = bucketNext[bucket];
+        if (target == NIL || bucketFrequency[target] != bucketFrequency[bucket] + 1) {
+            target = newBucket(bucket, bucketFrequency[bucket] + 1);
+        }
+        unlink(e);
+        linkFirst(target, e);
+        if (length[bucket] == 0) {
+            freeBucket(bucket);
+        }
+    }
+
+    private void recordAccess(long key) {
+        int hash = (int) (mix64(key) >>> 32);
+        int start = (hash & 3) << 2;
+        boolean added = false;
+        for (int i = 0; i < 4; i++) {
+            int index = sketchIndex(hash, i);
+            int shift = (start + i) << 2;
+            long mask = 0xFL << shift;
+            if ((sketch[index] & mask) != mask) {
+                sketch[index] += 1L << shift;
+                added = true;
+            }
+        }
+        if (added && ++samples >= sampleSize) {
+            // Aging: halve every counter so old popularity fades
+            for (int i = 0; i < sketch.length; i++) {
+                sketch[i] = (sketch[i] >>> 1) & 0x7777_7777_7777_7777L;
+            }
+            samples >>>= 1;
+        }
+    }
+
+    private int frequency(long key) {
+        int hash = (int) (mix64(key) >>> 32);
+        int start = (hash & 3) << 2;
+        int min = 15;
+        for (int i = 0; i < 4; i++) {
+            min = Math.min(min, (int) (sketch[sketchIndex(hash, i)] >>> ((start + i) << 2)) & 0xF);
+        }
+        return min;
+    }
+
+    private int sketchIndex(int hash, int i) {
+        long h = (hash + SEEDS[i]) * SEEDS[i];
+        h += h >>> 32;
+        return (int) h & sketchMask;
+    }
+
+    private void touch(int e) {
+        switch (policy) {
+            case LRU:
+                moveToFront(0, e);
+                break;
+            case LFU:
+                incrementFrequency(e);
+                break;
+            default:
+                if (listOf[e] == PROBATION) {
+                    unlink(e);
+                    linkFirst(PROTECTED, e);
+                    if (length[PROTECTED] > protectedMax) {
+                        int demoted = tail[PROTECTED];
+                        unlink(demoted);
+                        linkFirst(PROBATION, demoted);
+                    }
+                } else {
+                    moveToFront(listOf[e], e);
+                }
+        }
+    }
+
+    private void insert(long key, long value) {
+        if (policy != Policy.W_TINY_LFU && size == capacity) {
+            evict(policy == Policy.LRU ? tail[0] : tail[lowestBucket]);
+        }
+        int e = freeEntries[--freeCount];
+        keys[e] = key;
+        values[e] = value;
+        index(e);
+        size++;
+        switch (policy) {
+            case LRU:
+                linkFirst(0, e);
+                break;
+            case LFU:
+                linkFirst(lowestBucket != NIL && bucketFrequency[lowestBucket] == 1 ? lowestBucket : newBucket(NIL, 1), e);
+                break;
+            default:
+                linkFirst(WINDOW, e);
+                admit();
+        }
+    }
+
+    // W_TINY_LFU: moves the window overflow into probation, then evicts the less frequent of it and the probation tail
+    private void admit() {
+        int candidate = NIL;
+        if (length[WINDOW] > windowMax) {
+            candidate = tail[WINDOW];
+            unlink(candidate);
+            linkFirst(PROBATION, candidate);
+        }
+        if (size <= capacity) {
+            return;
+        }
+        int victim = tail[PROBATION] != candidate ? tail[PROBATION] : tail[PROTECTED];
+        if (victim == NIL) {
+            victim = candidate != NIL ? candidate : tail[WINDOW];
+        } else if (candidate != NIL && frequency(keys[candidate]) <= frequency(keys[victim])) {
+            victim = candidate;
+        }
+        evict(victim);
+    }
+
+    private void evict(int e) {
+        remove(e);
+        evictions++;
+    }
+
+    private void remove(int e) {
+        int list = listOf[e];
+        unlink(e);
+        if (policy == Policy.LFU && length[list] == 0) {
+            freeBucket(list);
+        }
+        unindex(e);
+        freeEntries[freeCount++] = e;
+        size--;
+    }
+
+    // Finds the key as an access: counts the hit or miss and updates the policy
+    private int lookup(long key) {
+        if (policy == Policy.W_TINY_LFU) {
+            recordAccess(key);
+        }
+        int e = find(key);
+        if (e < 0) {
+            misses++;
+        } else {
+            hits++;
+            touch(e);
+        }
+        return e;
+    }
+
+    public long getOrDefault(long key, long defaultValue) {
+        int e = lookup(key);
+        return e < 0 ? defaultValue : values[e];
+    }
+
+    /**
+     * Returns the cached value, or computes, caches and returns it. The loader must not use this cache.
+     */
+    public long computeIfAbsent(long key, LongUnaryOperator loader) {
+        int e = lookup(key);
+        if (e >= 0) {
+            return values[e];
+        }
+        long value = loader.applyAsLong(key);
+        insert(key, value);
+        return value;
+    }
+
+    /**
+     * Looks the key up without counting it as an access.
+     */
+    public boolean containsKey(long key) {
+        return find(key) >= 0;
+    }
+
+    /**
+     * Inserts or replaces the value. Replacing counts as an access.
+     */
+    public void put(long key, long value) {
+        if (policy == Policy.W_TINY_LFU) {
+            recordAccess(key);
+        }
+        int e = find(key);
+        if (e >= 0) {
+            values[e] = value;
+            touch(e);
+        } else {
+            insert(key, value);
+        }
+    }
+
+    public boolean remove(long key) {
+        int e = find(key);
+        if (e < 0) {
+            return false;
+        }
+        remove(e);
+        return true;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public Policy policy() {
+        return policy;
+    }
+
+    public long hitCount() {
+        return hits;
+    }
+
+    public long missCount() {
+        return misses;
+    }
+
+    public long evictionCount() {
+        return evictions;
+    }
+
+    public double hitRate() {
+        long total = hits + misses;
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    /**
+     * Thread-safe cache made of independently locked primitiveCaches, the key hash picking the segment.
+     * computeIfAbsent runs the loader outside the lock, so two threads missing the same key may both compute it.
+     */
+    public static final class Segmented {
+        private final primitiveCache[] segments;
+        private final int mask;
+
+        /**
+         * @param segmentCount rounded up to a power of two, each segment holds capacity / segmentCount entries
+         */
+        public Segmented(int capacity, Policy policy, int segmentCount) {
+            if (segmentCount <= 0 || segmentCount > capacity) {
+                throw new IllegalArgumentException("segmentCount must be in [1, capacity]: " + segmentCount);
+            }
+            int count = segmentCount == 1 ? 1 : hashMap.tableSizeFor(segmentCount);
+            segments = new primitiveCache[count];
+            for (int s = 0; s < count; s++) {
+                segments[s] = new primitiveCache(Math.max(1, capacity / count), policy);
+            }
+            mask = count - 1;
+        }
+
+        // High hash bits pick the segment, the low ones the slot inside it
+        private primitiveCache segmentFor(long key) {
+            return segments[(int) (mix64(key) >>> 40) & mask];
+        }
+
+        public long getOrDefault(long key, long defaultValue) {
+            primitiveCache segment = segmentFor(key);
+            synchronized (segment) {
+                return segment.getOrDefault(key, defaultValue);
+            }
+        }
+
+        public long computeIfAbsent(long key, LongUnaryOperator loader) {
+            primitiveCache segment = segmentFor(key);
+            synchronized (segment) {
+                int e = segment.lookup(key);
+                if (e >= 0) {
+                    return segment.values[e];
+                }
+            }
+            long value = loader.applyAsLong(key);
+            synchronized (segment) {
+                int e = segment.find(key);
+                if (e >= 0) {
+                    return segment.values[e]; // another thread got there first
+                }
+                segment.insert(key, value);
+            }
+            return value;
+        }
+
+        public void put(long key, long value) {
+            primitiveCache segment = segmentFor(key);
+            synchronized (segment) {
+                segment.put(key, value);
+            }
+        }
+
+        public boolean remove(long key) {
+            primitiveCache segment = segmentFor(key);
+            synchronized (segment) {
+                return segment.remove(key);
+            }
+        }
+
+        public int size() {
+            int total = 0;
+            for (primitiveCache segment : segments) {
+                synchronized (segment) {
+                    total += segment.size;
+                }
+            }
+            return total;
+        }
+
+        public long hitCount() {
+            long total = 0;
+            for (primitiveCache segment : segments) {
+                synchronized (segment) {
+                    total += segment.hits;
+                }
+            }
+            return total;
+        }
+
+        public long missCount() {
+            long total = 0;
+            for (primitiveCache segment : segments) {
+                synchronized (segment) {
+                    total += segment.misses;
+                }
+            }
+            return total;
+        }
+
+        public long evictionCount() {
+            long total = 0;
+            for (primitiveCache segment : segments) {
+                synchronized (segment) {
+                    total += segment.evictions;
+                }
+            }
+            return total;
+        }
+
+        public double hitRate() {
+            long h = hitCount(), total = h + missCount();
+            return total == 0 ? 0 : (double) h / total;
+        }
+    }
+
+    public static void main(String[] args) {
+        for (Policy policy : Policy.values()) {
+            primitiveCache cache = new primitiveCache(2, policy);
+            cache.put(1, 10);
+            cache.put(2, 20);
+            cache.getOrDefault(1, -1);
+            cache.getOrDefault(1, -1);
+            cache.put(3, 30);
+            System.out.println(policy + ": contains 1 " + cache.containsKey(1) + ", 2 " + cache.containsKey(2)
+                    + ", 3 " + cache.containsKey(3) + ", hits " + cache.hitCount() + ", evictions " + cache.evictionCount());
+        }
+        // LRU: 1 and 3 stay. LFU: 1 (used twice) and 3 stay. W_TINY_LFU: 3 is in the window, 1 won admission over 2.
+    }
+}
@@ -0,0 +1,178 @@
+package hashmap;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * Hit rate and throughput of primitiveCache against a LinkedHashMap in access order (the usual Java LRU).
+ * Every access is computeIfAbsent-style: on a miss the value is computed and inserted.
+ * Workloads over 1M keys, with a cache of 1% of them:
+ * - zipf: Zipf(0.99) popularity, hot keys scattered over the key space.
+ * - zipf + one-hit: half the accesses replaced by keys seen only once, which pollute an LRU.
+ * The concurrent part runs the same trace split over threads: Segmented against a synchronized LinkedHashMap.
+ * Usage: java hashmap.primitiveCacheBenchmark [accesses] [threads]
+ */
+public class primitiveCacheBenchmark {
+    private static final int KEYS = 1_000_000;
+    private static final int CAPACITY = KEYS / 100;
+    private static final LongUnaryOperator COMPUTE = key -> key * 31 + 7;
+
+    public static void main(String[] args) throws InterruptedException {
+        int accesses = args.length > 0 ? Integer.parseInt(args[0]) : 20_000_000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Math.max(4, Runtime.getRuntime().availableProcessors());
+        long[] zipf = zipfTrace(accesses, 0.99, new Random(23));
+        long[] noisy = zipf.clone();
+        for (int i = 0; i < noisy.length; i += 2) {
+            noisy[i] = KEYS + (long) i; // never repeats
+        }
+
+        for (String name : new String[]{"zipf", "zipf + one-hit"}) {
+            long[] trace = name.equals("zipf") ? zipf : noisy;
+            System.out.println(name + ", " + accesses + " accesses, capacity " + CAPACITY);
+            for (int round = 0; round < 2; round++) {
+                boolean print = round == 1;
+                for (primitiveCache.Policy policy : primitiveCache.Policy.values()) {
+                    primitiveCache cache = new primitiveCache(CAPACITY, policy);
+                    long start = System.nanoTime();
+                    long sum = 0;
+                    for (long key : trace) {
+                        sum += cache.computeIfAbsent(key, COMPUTE);
+                    }
+                    long nanos = System.nanoTime() - start;
+                    check(sum, trace);
+                    if (print) {
+                        report("primitiveCache " + policy, cache.hitRate(), trace.length, nanos);
+                    }
+                }
+                LinkedHashMap<Long, Long> lru = lruMap(CAPACITY);
+                long start = System.nanoTime();
+                long sum = 0, hits = 0;
+                for (long key : trace) {
+                    Long value = lru.get(key);
+                    if (value == null) {
+                        value = COMPUTE.applyAsLong(key);
+                        lru.put(key, value);
+                    } else {
+                        hits++;
+                    }
+                    sum += value;
+                }
+                long nanos = System.nanoTime() - start;
+                check(sum, trace);
+                if (print) {
+                    report("LinkedHashMap LRU", (double) hits / trace.length, trace.length, nanos);
+                }
+            }
+        }
+
+        System.out.println("concurrent, " + threads + " threads, zipf + one-hit");
+        for (int round = 0; round < 2; round++) {
+            boolean print = round == 1;
+            for (primitiveCache.Policy policy : new primitiveCache.Policy[]{primitiveCache.Policy.LRU, primitiveCache.Policy.W_TINY_LFU}) {
+                primitiveCache.Segmented cache = new primitiveCache.Segmented(CAPACITY, policy, 64);
+                long nanos = runThreads(noisy, threads, key -> cache.computeIfAbsent(key, COMPUTE));
+                if (print) {
+                    report("Segmented " + policy, cache.hitRate(), noisy.length, nanos);
+                }
+            }
+            Map<Long, Long> lru = Collections.synchronizedMap(lruMap(CAPACITY));
+            long[] hits = new long[1];
+            long nanos = runThreads(noisy, threads, key -> {
+                Long value = lru.get(key);
+                if (value == null) {
+                    value = COMPUTE.applyAsLong(key);
+                    lru.put(key, value);
+                } else {
+                    synchronized (hits) {
+                        hits[0]++;
+                    }
+                }
+                return value;
+            });
+            if (print) {
+                report("synchronized LinkedHashMap", (double) hits[0] / noisy.length, noisy.length, nanos);
+            }
+        }
+    }
+
+    private static LinkedHashMap<Long, Long> lruMap(int capacity) {
+        return new LinkedHashMap<>(2 * capacity, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Long> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    // Threads split the trace into interleaved slices, the result is the wall time of all of them
+    private static long runThreads(long[] trace, int threads, LongUnaryOperator access) throws InterruptedException {
+        Thread[] workers = new Thread[threads];
+        long[] sums = new long[threads];
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            int id = t;
+            workers[t] = new Thread(() -> {
+                long sum = 0;
+                for (int i = id; i < trace.length; i += threads) {
+                    sum += access.applyAsLong(trace[i]);
+                }
+                sums[id] = sum;
+            });
+            workers[t].start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        long nanos = System.nanoTime() - start;
+        long sum = 0;
+        for (long s : sums) {
+            sum += s;
+        }
+        check(sum, trace);
+        return nanos;
+    }
+
+    /**
+     * Zipf(s) over KEYS ranks by inverse CDF. Rank r maps to a scattered key so the hot keys are not adjacent.
+     */
+    private static long[] zipfTrace(int accesses, double s, Random random) {
+        double[] cdf = new double[KEYS];
+        double total = 0;
+        for (int r = 0; r < KEYS; r++) {
+            total += 1 / Math.pow(r + 1, s);
+            cdf[r] = total;
+        }
+        long[] trace = new long[accesses];
+        for (int i = 0; i < accesses; i++) {
+            double u = random.nextDouble() * total;
+            int lo = 0, hi = KEYS - 1;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (cdf[mid] < u) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            trace[i] = primitiveCache.mix64(lo) & 0x7FFF_FFFF_FFFFL;
+        }
+        return trace;
+    }
+
+    private static void check(long sum, long[] trace) {
+        long expected = 0;
+        for (long key : trace) {
+            expected += COMPUTE.applyAsLong(key);
+        }
+        if (sum != expected) {
+            throw new IllegalStateException("wrong values: " + sum + " vs " + expected);
+        }
+    }
+
+    private static void report(String name, double hitRate, int accesses, long nanos) {
+        System.out.printf("  %-28s hit rate %5.1f%%  %7.1f Mops/s%n", name, 100 * hitRate, accesses / (nanos / 1e3));
+    }
+}
@@ -0,0 +1,334 @@
+package linkedlist;
+
+import java.util.Arrays;
+
+/**
+ * Singly linked lists of ints stored in a node pool instead of one ListNode object per value.
+ * <p>
+ * Approach:
+ * A node is an index into two parallel arrays, val[] and next[], and a list is the index of its head node (NIL when empty).
+ * Freed nodes are chained through next[] into a free list, so allocate and free are O(1) and a pool that has reached
+ * its peak size stops allocating. Nodes allocated one after another sit next to each other in memory, and a node
+ * costs 8 bytes instead of a 24-byte object plus GC work.
+ * Every operation rewires next[] in place and creates no objects. Several lists can share one pool.
+ */
+public class pooledList {
+    public static final int NIL = -1;
+
+    private int[] val;
+    private int[] next;
+    private int used;         // nodes ever handed out: indexes [0, used) have been allocated at least once
+    private int free = NIL;   // head of the free list
+    private int live;
+
+    public pooledList() {
+        this(16);
+    }
+
+    public pooledList(int initialCapacity) {
+        val = new int[Math.max(1, initialCapacity)];
+        next = new int[val.length];
+    }
+
+    public int allocate(int value) {
+        int node;
+        if (free != NIL) {
+            node = free;
+            free = next[node];
+        } else {
+            if (used == val.length) {
+                int capacity = (int) Math.min(Integer.MAX_VALUE - 8, (long) used << 1);
+                if (capacity == used) {
+                    throw new IllegalStateException("pool is full");
+                }
+                val = Arrays.copyOf(val, capacity);
+                next = Arrays.copyOf(next, capacity);
+            }
+            node = used++;
+        }
+        val[node] = value;
+        next[node] = NIL;
+        live++;
+        return node;
+    }
+
+    public void free(int node) {
+        next[node] = free;
+        free = node;
+        live--;
+    }
+
+    /**
+     * Returns every node of the list to the pool.
+     */
+    public void freeList(int head) {
+        while (head != NIL) {
+            int n = next[head];
+            free(head);
+            head = n;
+        }
+    }
+
+    public int value(int node) {
+        return val[node];
+    }
+
+    public void setValue(int node, int value) {
+        val[node] = value;
+    }
+
+    public int next(int node) {
+        return next[node];
+    }
+
+    public void setNext(int node, int nextNode) {
+        next[node] = nextNode;
+    }
+
+    /**
+     * Number of allocated nodes that have not been freed.
+     */
+    public int liveNodes() {
+        return live;
+    }
+
+    public int capacity() {
+        return val.length;
+    }
+
+    public int fromArray(int[] values) {
+        int head = NIL, tail = NIL;
+        for (int v : values) {
+            int node = allocate(v);
+            if (tail == NIL) {
+                head = node;
+            } else {
+                next[tail] = node;
+            }
+            tail = node;
+        }
+        return head;
+    }
+
+    public int[] toArray(int head) {
+        int[] values = new int[length(head)];
+        for (int i = 0; head != NIL; head = next[head]) {
+            values[i++] = val[head];
+        }
+        return values;
+    }
+
+    public int length(int head) {
+        int length = 0;
+        for (; head != NIL; head = next[head]) {
+            length++;
+        }
+        return length;
+    }
+
+    public int tail(int head) {
+        if (head == NIL) {
+            return NIL;
+        }
+        while (next[head] != NIL) {
+            head = next[head];
+        }
+        return head;
+    }
+
+    /**
+     * Same as reverseLinkedList.reverseList, on indexes.
+     */
+    public int reverse(int head) {
+        int prev = NIL;
+        while (head != NIL) {
+            int n = next[head];
+            next[head] = prev;
+            prev = head;
+            head = n;
+        }
+        return prev;
+    }
+
+    /**
+     * Reverses every full group of k nodes, a last group shorter than k keeps its order. Returns the new head.
+     */
+    public int reverseKGroup(int head, int k) {
+        if (k <= 1 || head == NIL) {
+            return head;
+        }
+        int newHead = NIL;
+        int prevTail = NIL; // last node of the part already done
+        int groupStart = head;
+        while (true) {
+            int probe = groupStart;
+            int count = 0;
+            while (count < k && probe != NIL) {
+                probe = next[probe];
+                count++;
+            }
+            if (count < k) {
+                if (prevTail == NIL) {
+                    newHead = groupStart;
+                } else {
+                    next[prevTail] = groupStart;
+                }
+                return newHead;
+            }
+            // probe is the first node after the group, reversing onto it links the group's old head to the rest
+            int prev = probe, node = groupStart;
+            while (node != probe) {
+                int n = next[node];
+                next[node] = prev;
+                prev = node;
+                node = n;
+            }
+            if (prevTail == NIL) {
+                newHead = prev;
+            } else {
+                next[prevTail] = prev;
+            }
+            prevTail = groupStart;
+            groupStart = probe;
+        }
+    }
+
+    /**
+     * Inserts the whole list starting at head right after node. O(length of the inserted list).
+     */
+    public void spliceAfter(int node, int head) {
+        if (head == NIL) {
+            return;
+        }
+        int last = tail(head);
+        next[last] = next[node];
+        next[node] = head;
+    }
+
+    /**
+     * Appends the second list to the first and returns the head of the result.
+     */
+    public int concat(int first, int second) {
+        if (first == NIL) {
+            return second;
+        }
+        next[tail(first)] = second;
+        return first;
+    }
+
+    /**
+     * Stable bottom-up merge sort by value: runs of 1, 2, 4... are merged by relinking, with no recursion and no buffer.
+     */
+    public int sort(int head) {
+        int length = length(head);
+        for (int width = 1; width < length; width <<= 1) {
+            int rest = head;
+            int tail = NIL;
+            while (rest != NIL) {
+                int left = rest;
+                int right = cut(left, width);
+                rest = cut(right, width);
+                // Take the first node of the merged run here, so no sentinel node is needed in front of the list
+                int first;
+                if (right != NIL && val[right] < val[left]) {
+                    first = right;
+                    right = next[right];
+                } else {
+                    first = left;
+                    left = next[left];
+                }
+                if (tail == NIL) {
+                    head = first;
+                } else {
+                    next[tail] = first;
+                }
+                tail = merge(first, left, right);
+            }
+        }
+        return head;
+    }
+
+    /**
+     * Sorts by rewriting the values along the existing links instead of relinking: the values are copied to one int[],
+     * sorted, and written back. Every merge pass of sort() follows the links, so when the nodes are scattered
+     * over the pool this is many times faster, at the cost of a temporary int per node.
+     */
+    public void sortValues(int head) {
+        int[] values = toArray(head);
+        Arrays.sort(values);
+        for (int i = 0; head != NIL; head = next[head]) {
+            val[head] = values[i++];
+        }
+    }
+
+    // Detaches the first n nodes of the list and returns the head of what follows
+    private int cut(int head, int n) {
+        for (int i = 1; head != NIL && i < n; i++) {
+            head = next[head];
+        }
+        if (head == NIL) {
+            return NIL;
+        }
+        int rest = next[head];
+        next[head] = NIL;
+        return rest;
+    }
+
+    // Merges two sorted lists after tail and returns the last node of the merged run
+    private int merge(int tail, int a, int b) {
+        while (a != NIL && b != NIL) {
+            if (val[b] < val[a]) {
+                next[tail] = b;
+                b = next[b];
+            } else {
+                next[tail] = a;
+                a = next[a];
+            }
+            tail = next[tail];
+        }
+        next[tail] = a != NIL ? a : b;
+        while (next[tail] != NIL) {
+            tail = next[tail];
+        }
+        return tail;
+    }
+
+    public int fromListNode(linkedList.ListNode head) {
+        int first = NIL, last = NIL;
+        for (; head != null; head = head.next) {
+            int node = allocate(head.val);
+            if (last == NIL) {
+                first = node;
+            } else {
+                next[last] = node;
+            }
+            last = node;
+        }
+        return first;
+    }
+
+    public linkedList.ListNode toListNode(int head) {
+        linkedList.ListNode dummy = new linkedList.ListNode(0);
+        linkedList.ListNode tail = dummy;
+        for (; head != NIL; head = next[head]) {
+            tail.next = new linkedList.ListNode(val[head]);
+            tail = tail.next;
+        }
+        return dummy.next;
+    }
+
+    public static void main(String[] args) {
+        pooledList pool = new pooledList();
+        int list = pool.fromArray(new int[]{5, 1, 4, 2, 3, 8, 7, 6});
+        list = pool.reverseKGroup(list, 3);
+        System.out.println(Arrays.toString(pool.toArray(list))); // [4, 1, 5, 8, 3, 2, 7, 6]
+        list = pool.sort(list);
+        System.out.println(Arrays.toString(pool.toArray(list))); // [1, 2, 3, 4, 5, 6, 7, 8]
+        linkedList.ListNode nodes = new reverseLinkedList().reverseList(pool.toListNode(list));
+        int reversed = pool.fromListNode(nodes);
+        System.out.println(Arrays.toString(pool.toArray(reversed))); // [8, 7, 6, 5, 4, 3, 2, 1]
+        pool.freeList(list);
+        pool.freeList(reversed);
+        System.out.println("Live nodes: " + pool.liveNodes()); // 0
+    }
+}
@@ -0,0 +1,106 @@
+package linkedlist;
+
+import java.util.Random;
+
+/**
+ * Traversal and reversal of a long list: linkedList.ListNode objects against pooledList indexes.
+ * Both are measured with the list order following allocation order, and with the nodes linked in random order
+ * (what a list looks like after a lot of inserts and removals).
+ * Usage: java -Xmx8g linkedlist.pooledListBenchmark [nodes]   (100M ListNodes need about 3 GB of heap)
+ */
+public class pooledListBenchmark {
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+        for (boolean shuffled : new boolean[]{false, true}) {
+            int[] order = new int[n];
+            for (int i = 0; i < n; i++) {
+                order[i] = i;
+            }
+            if (shuffled) {
+                Random random = new Random(19);
+                for (int i = n - 1; i > 0; i--) {
+                    int k = random.nextInt(i + 1);
+                    int t = order[i];
+                    order[i] = order[k];
+                    order[k] = t;
+                }
+            }
+            System.out.println(shuffled ? "Nodes linked in random order:" : "Nodes linked in allocation order:");
+
+            long start = System.nanoTime();
+            linkedList.ListNode[] objects = new linkedList.ListNode[n];
+            for (int i = 0; i < n; i++) {
+                objects[i] = new linkedList.ListNode(i);
+            }
+            for (int i = 0; i + 1 < n; i++) {
+                objects[order[i]].next = objects[order[i + 1]];
+            }
+            linkedList.ListNode objectHead = objects[order[0]];
+            objects = null; // only the list keeps the nodes alive
+            long objectBuild = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            pooledList pool = new pooledList(n);
+            for (int i = 0; i < n; i++) {
+                pool.allocate(i);
+            }
+            for (int i = 0; i + 1 < n; i++) {
+                pool.setNext(order[i], order[i + 1]);
+            }
+            int poolHead = order[0];
+            long poolBuild = System.nanoTime() - start;
+            report("build", objectBuild, poolBuild, n);
+
+            for (int round = 0; round < 3; round++) {
+                boolean print = round == 2;
+                start = System.nanoTime();
+                long objectSum = 0;
+                for (linkedList.ListNode node = objectHead; node != null; node = node.next) {
+                    objectSum += node.val;
+                }
+                long objectTraverse = System.nanoTime() - start;
+                start = System.nanoTime();
+                long poolSum = 0;
+                for (int node = poolHead; node != pooledList.NIL; node = pool.next(node)) {
+                    poolSum += pool.value(node);
+                }
+                long poolTraverse = System.nanoTime() - start;
+                if (objectSum != poolSum) {
+                    throw new IllegalStateException("sums differ: " + objectSum + " vs " + poolSum);
+                }
+
+                start = System.nanoTime();
+                objectHead = new reverseLinkedList().reverseList(objectHead);
+                long objectReverse = System.nanoTime() - start;
+                start = System.nanoTime();
+                poolHead = pool.reverse(poolHead);
+                long poolReverse = System.nanoTime() - start;
+                if (objectHead.val != pool.value(poolHead)) {
+                    throw new IllegalStateException("reversed heads differ");
+                }
+                if (print) {
+                    report("traverse", objectTraverse, poolTraverse, n);
+                    report("reverse", objectReverse, poolReverse, n);
+                }
+            }
+            start = System.nanoTime();
+            pool.sortValues(poolHead);
+            System.out.printf("  %-10s %32s pooledList %8.1f ms (sortValues)%n", "sort", "", (System.nanoTime() - start) / 1e6);
+            if (!shuffled) {
+                // Relinking merge sort: fine while the nodes are in memory order, very slow once they are scattered
+                poolHead = pool.reverse(poolHead);
+                start = System.nanoTime();
+                poolHead = pool.sort(poolHead);
+                System.out.printf("  %-10s %32s pooledList %8.1f ms (sort)%n", "sort", "", (System.nanoTime() - start) / 1e6);
+            }
+            if (pool.value(poolHead) != 0) {
+                throw new IllegalStateException("sort did not put 0 first");
+            }
+        }
+    }
+
+    private static void report(String name, long objectNanos, long poolNanos, int n) {
+        System.out.printf("  %-10s ListNode %8.1f ms (%5.1f ns/node)   pooledList %8.1f ms (%5.1f ns/node)%n",
+                name, objectNanos / 1e6, (double) objectNanos / n, poolNanos / 1e6, (double) poolNanos / n);
+    }
+}
@@ -0,0 +1,140 @@
+package queue;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * d-ary min-heap of (long priority, int value) pairs in two primitive arrays, for ordering jobs by time or cost
+ * without an object per job.
+ * <p>
+ * - The children of node i are d * i + 1 .. d * i + d. With d = 4 the tree is half as deep as a binary heap, and the
+ *   four children's priorities are 32 contiguous bytes, so poll walks fewer levels with about one cache line per level.
+ * - Sifts move a hole instead of swapping: one write per level.
+ * - Equal priorities come out in no particular order.
+ */
+public class longHeap {
+    private final int arity;
+    private long[] priorities;
+    private int[] values;
+    private int size;
+
+    public longHeap() {
+        this(4, 16);
+    }
+
+    public longHeap(int arity, int initialCapacity) {
+        if (arity < 2) {
+            throw new IllegalArgumentException("arity must be >= 2: " + arity);
+        }
+        if (initialCapacity < 1) {
+            throw new IllegalArgumentException("initialCapacity must be positive: " + initialCapacity);
+        }
+        this.arity = arity;
+        priorities = new long[initialCapacity];
+        values = new int[initialCapacity];
+    }
+
+    public void add(long priority, int value) {
+        if (size == priorities.length) {
+            int capacity = size + (size >> 1) + 1;
+            priorities = Arrays.copyOf(priorities, capacity);
+            values = Arrays.copyOf(values, capacity);
+        }
+        int hole = size++;
+        while (hole > 0) {
+            int parent = (hole - 1) / arity;
+            if (priorities[parent] <= priority) {
+                break;
+            }
+            priorities[hole] = priorities[parent];
+            values[hole] = values[parent];
+            hole = parent;
+        }
+        priorities[hole] = priority;
+        values[hole] = value;
+    }
+
+    public long peekPriority() {
+        checkNotEmpty();
+        return priorities[0];
+    }
+
+    public int peekValue() {
+        checkNotEmpty();
+        return values[0];
+    }
+
+    /**
+     * Removes the pair with the smallest priority and returns its value.
+     */
+    public int poll() {
+        checkNotEmpty();
+        int top = values[0];
+        int last = --size;
+        if (last > 0) {
+            siftDown(priorities[last], values[last], last);
+        }
+        return top;
+    }
+
+    // Moves the hole at the root down to where (priority, value) belongs, among the first n nodes
+    private void siftDown(long priority, int value, int n) {
+        long[] p = priorities;
+        int hole = 0;
+        while (true) {
+            int first = arity * hole + 1;
+            if (first >= n) {
+                break;
+            }
+            int end = Math.min(first + arity, n);
+            int best = first;
+            long bestPriority = p[first];
+            for (int c = first + 1; c < end; c++) {
+                if (p[c] < bestPriority) {
+                    best = c;
+                    bestPriority = p[c];
+                }
+            }
+            if (priority <= bestPriority) {
+                break;
+            }
+            p[hole] = bestPriority;
+            values[hole] = values[best];
+            hole = best;
+        }
+        p[hole] = priority;
+        values[hole] = value;
+    }
+
+    private void checkNotEmpty() {
+        if (size == 0) {
+            throw new NoSuchElementException("longHeap is empty");
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public static void main(String[] args) {
+        longHeap heap = new longHeap();
+        long[] due = {500, 100, 900, 300, 700, 200};
+        for (int job = 0; job < due.length; job++) {
+            heap.add(due[job], job);
+        }
+        StringBuilder order = new StringBuilder();
+        while (!heap.isEmpty()) {
+            long priority = heap.peekPriority();
+            order.append(heap.poll()).append('@').append(priority).append(' ');
+        }
+        System.out.println(order.toString().trim()); // 1@100 5@200 3@300 0@500 4@700 2@900
+    }
+}
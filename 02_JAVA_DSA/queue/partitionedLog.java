@@ -0,0 +1,750 @@
+package queue;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Embedded partitioned append-only log: durable hand-off between producer and listener stages without a broker,
+ * shaped like a Kafka topic (partitions, offsets, consumer groups).
+ * <p>
+ * Layout of the directory:
+ * - partition-&lt;n&gt;/&lt;base offset&gt;.log: preallocated, memory-mapped segments of frames
+ *   (crc32c, payload length, offset, payload). The crc covers everything after itself.
+ * - partition-&lt;n&gt;/&lt;base offset&gt;.index: sparse offset index, one (relative offset, position) pair per 4 KB of log.
+ * - groups/&lt;group&gt;.offsets: the committed offset of every partition for one consumer group, replaced atomically.
+ * <p>
+ * - Appends copy frames straight into the mapped segment under a per-partition lock. appendBatch writes a whole batch
+ *   under one lock and publishes it with one volatile write. sync() forces what was appended since the last sync.
+ * - Reads take no lock. read() hands each payload to the handler as a read-only slice of the mapping (no copy),
+ *   transferTo() sends whole frames to a channel with FileChannel.transferTo (no copy through the heap).
+ * - On restart each segment is scanned from its last index entry. The first frame with a bad crc or offset is the end
+ *   of the log, and the rest of the last segment is zeroed.
+ * - enforceRetention deletes the oldest segments by size or age. Readers behind the new start skip ahead to it.
+ */
+public class partitionedLog implements Closeable {
+    public interface RecordHandler {
+        /**
+         * payload is a read-only view of the mapped segment, only valid during the call.
+         */
+        void accept(int partition, long offset, ByteBuffer payload);
+    }
+
+    static final int FRAME_HEADER = 16;
+    private static final int INDEX_INTERVAL = 4096;
+    private static final int INDEX_ENTRY = 8;
+
+    private final Path dir;
+    private final int segmentBytes;
+    private final Partition[] partitions;
+    private final Map<String, long[]> groups = new HashMap<>(); // guarded by itself
+
+    public partitionedLog(Path dir, int partitions) throws IOException {
+        this(dir, partitions, 64 << 20);
+    }
+
+    /**
+     * @param segmentBytes size of each segment file, the largest record is segmentBytes - 16 bytes
+     */
+    public partitionedLog(Path dir, int partitions, int segmentBytes) throws IOException {
+        if (partitions <= 0 || segmentBytes < 4 * INDEX_INTERVAL) {
+            throw new IllegalArgumentException("partitions must be positive and segmentBytes at least " + 4 * INDEX_INTERVAL);
+        }
+        this.dir = dir;
+        this.segmentBytes = segmentBytes;
+        Files.createDirectories(dir.resolve("groups"));
+        try (Stream<Path> existing = Files.list(dir)) {
+            long count = existing.filter(p -> p.getFileName().toString().startsWith("partition-")).count();
+            if (count != 0 && count != partitions) {
+                throw new IllegalArgumentException(dir + " holds " + count + " partitions, not " + partitions);
+            }
+        }
+        this.partitions = new Partition[partitions];
+        for (int p = 0; p < partitions; p++) {
+            this.partitions[p] = new Partition(dir.resolve("partition-" + p));
+        }
+        loadGroups();
+    }
+
+    public int partitionCount() {
+        return partitions.length;
+    }
+
+    /**
+     * Partition used for a record key, spread with a multiplicative hash.
+     */
+    public int partitionFor(int key) {
+        return Math.floorMod(key * 0x9E3779B9, partitions.length);
+    }
+
+    /**
+     * Oldest offset still stored, it moves forward when retention deletes segments.
+     */
+    public long startOffset(int partition) {
+        return partition(partition).startOffset;
+    }
+
+    /**
+     * Offset the next appended record will get.
+     */
+    public long endOffset(int partition) {
+        return partition(partition).active.nextOffset;
+    }
+
+    private Partition partition(int partition) {
+        if (partition < 0 || partition >= partitions.length) {
+            throw new IllegalArgumentException("No partition " + partition + ", there are " + partitions.length);
+        }
+        return partitions[partition];
+    }
+
+    /**
+     * Appends one record and returns its offset.
+     */
+    public long append(int partition, ByteBuffer payload) throws IOException {
+        Partition p = partition(partition);
+        synchronized (p) {
+            try {
+                return p.writeFrame(payload);
+            } finally {
+                p.publish();
+            }
+        }
+    }
+
+    /**
+     * Appends a batch of records, each encoded as an int length followed by its bytes (what Producer builds),
+     * under one lock and one publish. Returns the offset of the first record, or -1 for an empty batch.
+     */
+    public long appendBatch(int partition, ByteBuffer batch) throws IOException {
+        Partition p = partition(partition);
+        synchronized (p) {
+            long first = -1;
+            try {
+                while (batch.remaining() >= 4) {
+                    int length = batch.getInt();
+                    long offset = p.writeFrame(batch.slice(batch.position(), length));
+                    batch.position(batch.position() + length);
+                    if (first < 0) {
+                        first = offset;
+                    }
+                }
+            } finally {
+                p.publish();
+            }
+            return first;
+        }
+    }
+
+    /**
+     * Forces everything appended since the last sync to disk.
+     */
+    public void sync() {
+        for (Partition p : partitions) {
+            synchronized (p) {
+                Segment s = p.active;
+                if (s.writePos > p.syncedTo) {
+                    s.log.force(p.syncedTo, s.writePos - p.syncedTo);
+                    s.index.force();
+                    p.syncedTo = s.writePos;
+                }
+            }
+        }
+    }
+
+    /**
+     * Hands the records from offset on to the handler, at least one if there is any and then as many as fit in
+     * maxBytes of frames, all from one segment. Returns the offset to read next.
+     * An offset behind the start of the partition (deleted by retention) reads from the start.
+     */
+    public long read(int partition, long offset, int maxBytes, RecordHandler handler) {
+        Partition p = partition(partition);
+        offset = Math.max(offset, p.startOffset);
+        Map.Entry<Long, Segment> entry;
+        while ((entry = p.segments.floorEntry(offset)) == null) {
+            offset = Math.max(offset, p.startOffset); // raced with retention
+        }
+        Segment s = entry.getValue();
+        long next = s.nextOffset;
+        if (offset >= next) {
+            checkNotBeyondEnd(p, offset);
+            return offset;
+        }
+        int pos = s.position(offset);
+        int bytes = 0;
+        while (offset < next) {
+            int length = s.log.getInt(pos + 4);
+            if (bytes > 0 && bytes + FRAME_HEADER + length > maxBytes) {
+                break;
+            }
+            handler.accept(partition, offset, s.log.slice(pos + FRAME_HEADER, length).asReadOnlyBuffer());
+            pos += FRAME_HEADER + length;
+            bytes += FRAME_HEADER + length;
+            offset++;
+        }
+        return offset;
+    }
+
+    /**
+     * Sends the frames from offset on to target with FileChannel.transferTo: at least one frame if there is any and
+     * then as many as fit in maxBytes, all from one segment. Returns the offset to read next.
+     * The receiver decodes the frames with forEachFrame.
+     * A thread interrupted during the call gets ClosedByInterruptException and may have sent part of a frame.
+     */
+    public long transferTo(int partition, long offset, int maxBytes, WritableByteChannel target) throws IOException {
+        Partition p = partition(partition);
+        // Runs again only when retention deleted the segment before anything was sent. The retry starts at the new
+        // start offset, past that segment, and the active segment is never deleted, so this ends.
+        while (true) {
+            offset = Math.max(offset, p.startOffset);
+            Map.Entry<Long, Segment> entry;
+            while ((entry = p.segments.floorEntry(offset)) == null) {
+                offset = Math.max(offset, p.startOffset);
+            }
+            Segment s = entry.getValue();
+            long next = s.nextOffset;
+            if (offset >= next) {
+                checkNotBeyondEnd(p, offset);
+                return offset;
+            }
+            int from = s.position(offset);
+            int pos = from;
+            while (offset < next) {
+                int frame = FRAME_HEADER + s.log.getInt(pos + 4);
+                if (pos > from && pos - from + frame > maxBytes) {
+                    break;
+                }
+                pos += frame;
+                offset++;
+            }
+            long done = 0, count = pos - from;
+            FileChannel channel = null;
+            try {
+                while (done < count) {
+                    channel = s.channel();
+                    done += channel.transferTo(from + done, count - done, target);
+                }
+                return offset;
+            } catch (ClosedByInterruptException e) {
+                throw e; // this thread was interrupted, the next call on the segment reopens its channel
+            } catch (ClosedChannelException e) {
+                if (channel.isOpen() || s.closed && !s.deleted) {
+                    throw e; // the target or the log was closed
+                }
+                if (s.deleted && done == 0) {
+                    offset = p.startOffset; // skip ahead like read()
+                    continue;
+                }
+                // Another reader was interrupted in transferTo, which closes the channel the segment's readers share,
+                // or retention deleted the segment after part of a frame was out. Finish from the mapping, which stays
+                // readable, so the receiver never sees a torn frame.
+                ByteBuffer rest = s.log.slice(from + (int) done, (int) (count - done));
+                while (rest.hasRemaining()) {
+                    target.write(rest);
+                }
+                return offset;
+            }
+        }
+    }
+
+    private static void checkNotBeyondEnd(Partition p, long offset) {
+        if (offset > p.active.nextOffset) {
+            throw new IllegalArgumentException("Offset " + offset + " is beyond the end " + p.active.nextOffset);
+        }
+    }
+
+    /**
+     * Walks frames received from transferTo, checking each crc, and hands the payloads to the handler.
+     * Returns the number of records.
+     */
+    public static int forEachFrame(int partition, ByteBuffer frames, RecordHandler handler) {
+        CRC32C crc = new CRC32C();
+        int count = 0;
+        for (int pos = frames.position(); pos < frames.limit(); count++) {
+            int length = frames.getInt(pos + 4);
+            crc.reset();
+            crc.update(frames.slice(pos + 4, length + 12));
+            if ((int) crc.getValue() != frames.getInt(pos)) {
+                throw new IllegalArgumentException("Corrupt frame at byte " + pos);
+            }
+            handler.accept(partition, frames.getLong(pos + 8), frames.slice(pos + FRAME_HEADER, length).asReadOnlyBuffer());
+            pos += FRAME_HEADER + length;
+        }
+        return count;
+    }
+
+    /**
+     * Committed offset of the group for the partition, 0 (the start of the log) if it never committed.
+     */
+    public long committed(String group, int partition) {
+        partition(partition);
+        synchronized (groups) {
+            long[] offsets = groups.get(group);
+            return offsets == null ? 0 : offsets[partition];
+        }
+    }
+
+    /**
+     * Stores the offsets (one per partition) as the group's committed positions, durably, replacing the previous ones.
+     */
+    public void commit(String group, long[] offsets) throws IOException {
+        if (!group.matches("[A-Za-z0-9._-]+")) {
+            throw new IllegalArgumentException("Group names are limited to letters, digits, '.', '_' and '-': " + group);
+        }
+        if (offsets.length != partitions.length) {
+            throw new IllegalArgumentException("Expected " + partitions.length + " offsets, got " + offsets.length);
+        }
+        synchronized (groups) {
+            ByteBuffer bytes = ByteBuffer.allocate(8 * offsets.length);
+            for (long offset : offsets) {
+                bytes.putLong(offset);
+            }
+            bytes.flip();
+            Path file = dir.resolve("groups").resolve(group + ".offsets");
+            Path tmp = dir.resolve("groups").resolve(group + ".offsets.tmp");
+            try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (bytes.hasRemaining()) {
+                    ch.write(bytes);
+                }
+                ch.force(false);
+            }
+            Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            groups.put(group, offsets.clone());
+        }
+    }
+
+    private void loadGroups() throws IOException {
+        try (Stream<Path> files = Files.list(dir.resolve("groups"))) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                String name = file.getFileName().toString();
+                if (!name.endsWith(".offsets")) {
+                    continue;
+                }
+                ByteBuffer bytes = ByteBuffer.wrap(Files.readAllBytes(file));
+                if (bytes.remaining() != 8 * partitions.length) {
+                    throw new IOException("Offsets of " + file + " do not match " + partitions.length + " partitions");
+                }
+                long[] offsets = new long[partitions.length];
+                for (int p = 0; p < offsets.length; p++) {
+                    offsets[p] = bytes.getLong();
+                }
+                groups.put(name.substring(0, name.length() - ".offsets".length()), offsets);
+            }
+        }
+    }
+
+    /**
+     * Deletes the oldest segments of each partition while the partition holds more than maxBytesPerPartition,
+     * or while its oldest segment was last written more than maxAgeMillis ago. The segment being written is kept.
+     * Returns the number of segments deleted.
+     */
+    public int enforceRetention(long maxBytesPerPartition, long maxAgeMillis) throws IOException {
+        long now = System.currentTimeMillis();
+        int deleted = 0;
+        for (Partition p : partitions) {
+            synchronized (p) {
+                long total = 0;
+                for (Segment s : p.segments.values()) {
+                    total += s.writePos;
+                }
+                while (p.segments.size() > 1) {
+                    Segment oldest = p.segments.firstEntry().getValue();
+                    boolean tooBig = total > maxBytesPerPartition;
+                    boolean tooOld = Files.getLastModifiedTime(oldest.logFile).toMillis() < now - maxAgeMillis;
+                    if (!tooBig && !tooOld) {
+                        break;
+                    }
+                    p.startOffset = oldest.nextOffset; // readers skip ahead before the segment disappears
+                    p.segments.remove(oldest.baseOffset);
+                    total -= oldest.writePos;
+                    oldest.delete();
+                    deleted++;
+                }
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * Syncs and closes the files. Committed group offsets are already on disk.
+     */
+    @Override
+    public void close() throws IOException {
+        sync();
+        for (Partition p : partitions) {
+            synchronized (p) {
+                for (Segment s : p.segments.values()) {
+                    s.close();
+                }
+            }
+        }
+    }
+
+    public Producer producer(int batchBytes) {
+        return new Producer(batchBytes);
+    }
+
+    /**
+     * A consumer of the group, starting from its committed offsets.
+     */
+    public Consumer consumer(String group) {
+        return new Consumer(group);
+    }
+
+    /**
+     * Buffers records per partition and appends each buffer with one appendBatch when it is full or on flush().
+     * Not thread-safe, use one Producer per producing thread.
+     */
+    public final class Producer implements Flushable {
+        private final ByteBuffer[] batches;
+
+        private Producer(int batchBytes) {
+            if (batchBytes < 64) {
+                throw new IllegalArgumentException("batchBytes must be at least 64: " + batchBytes);
+            }
+            batches = new ByteBuffer[partitions.length];
+            for (int p = 0; p < batches.length; p++) {
+                batches[p] = ByteBuffer.allocate(batchBytes);
+            }
+        }
+
+        public void send(int key, byte[] value) throws IOException {
+            sendTo(partitionFor(key), value, 0, value.length);
+        }
+
+        public void sendTo(int partition, byte[] value, int offset, int length) throws IOException {
+            ByteBuffer batch = batches[partition];
+            if (batch.remaining() < 4 + length) {
+                flush(partition);
+                if (batch.remaining() < 4 + length) {
+                    append(partition, ByteBuffer.wrap(value, offset, length)); // larger than a batch
+                    return;
+                }
+            }
+            batch.putInt(length).put(value, offset, length);
+        }
+
+        private void flush(int partition) throws IOException {
+            ByteBuffer batch = batches[partition];
+            if (batch.position() > 0) {
+                batch.flip();
+                appendBatch(partition, batch);
+                batch.clear();
+            }
+        }
+
+        /**
+         * Appends every buffered record. Call sync() on the log as well to make them durable.
+         */
+        @Override
+        public void flush() throws IOException {
+            for (int p = 0; p < batches.length; p++) {
+                flush(p);
+            }
+        }
+    }
+
+    /**
+     * Reads every partition for one group, tracking its own positions. Not thread-safe.
+     */
+    public final class Consumer {
+        private final String group;
+        private final long[] positions;
+
+        private Consumer(String group) {
+            this.group = group;
+            positions = new long[partitions.length];
+            for (int p = 0; p < positions.length; p++) {
+                positions[p] = committed(group, p);
+            }
+        }
+
+        public long position(int partition) {
+            return positions[partition];
+        }
+
+        public void seek(int partition, long offset) {
+            positions[partition] = offset;
+        }
+
+        /**
+         * Reads up to maxBytesPerPartition from every partition. Returns the number of records handled.
+         */
+        public long poll(int maxBytesPerPartition, RecordHandler handler) {
+            long records = 0;
+            for (int p = 0; p < positions.length; p++) {
+                long from = Math.max(positions[p], startOffset(p));
+                positions[p] = read(p, positions[p], maxBytesPerPartition, handler);
+                records += positions[p] - Math.min(from, positions[p]);
+            }
+            return records;
+        }
+
+        /**
+         * Sends up to maxBytes of frames of one partition to target. Returns the number of records sent.
+         */
+        public long transferTo(int partition, int maxBytes, WritableByteChannel target) throws IOException {
+            long from = Math.max(positions[partition], startOffset(partition));
+            positions[partition] = partitionedLog.this.transferTo(partition, positions[partition], maxBytes, target);
+            return positions[partition] - Math.min(from, positions[partition]);
+        }
+
+        public void commit() throws IOException {
+            partitionedLog.this.commit(group, positions);
+        }
+    }
+
+    private final class Partition {
+        final Path path;
+        final ConcurrentSkipListMap<Long, Segment> segments = new ConcurrentSkipListMap<>();
+        final CRC32C crc = new CRC32C(); // guarded by this
+        volatile Segment active;
+        volatile long startOffset;
+        int syncedTo; // position in the active segment already forced, guarded by this
+
+        Partition(Path path) throws IOException {
+            this.path = path;
+            Files.createDirectories(path);
+            List<Long> bases = new ArrayList<>();
+            try (Stream<Path> files = Files.list(path)) {
+                files.map(f -> f.getFileName().toString())
+                        .filter(name -> name.endsWith(".log"))
+                        .forEach(name -> bases.add(Long.parseLong(name.substring(0, name.length() - 4))));
+            }
+            Collections.sort(bases);
+            for (int i = 0; i < bases.size(); i++) {
+                Segment segment = new Segment(path, bases.get(i), segmentBytes);
+                boolean last = i == bases.size() - 1;
+                segment.recover(last, crc);
+                if (!last && segment.nextOffset != bases.get(i + 1)) {
+                    throw new IOException("Gap in " + path + ": segment " + bases.get(i) + " ends at offset "
+                            + segment.nextOffset + " but the next one starts at " + bases.get(i + 1));
+                }
+                segments.put(segment.baseOffset, segment);
+            }
+            if (segments.isEmpty()) {
+                segments.put(0L, new Segment(path, 0, segmentBytes));
+            }
+            active = segments.lastEntry().getValue();
+            startOffset = segments.firstKey();
+            syncedTo = active.writePos;
+        }
+
+        // Writes one frame without publishing it, the caller holds the lock
+        long writeFrame(ByteBuffer payload) throws IOException {
+            int length = payload.remaining();
+            if (length > segmentBytes - FRAME_HEADER) {
+                throw new IllegalArgumentException("Record of " + length + " bytes does not fit in a segment");
+            }
+            Segment s = active;
+            if (s.writePos + FRAME_HEADER + length > s.log.capacity()) {
+                roll();
+                s = active;
+            }
+            int pos = s.writePos;
+            long offset = s.writeOffset;
+            s.log.putInt(pos + 4, length).putLong(pos + 8, offset).put(pos + FRAME_HEADER, payload, payload.position(), length);
+            crc.reset();
+            crc.update(s.log.slice(pos + 4, length + 12));
+            s.log.putInt(pos, (int) crc.getValue());
+            if (pos - s.lastIndexed >= INDEX_INTERVAL) {
+                int i = s.indexCount;
+                s.index.putInt(i * INDEX_ENTRY, (int) (offset - s.baseOffset)).putInt(i * INDEX_ENTRY + 4, pos);
+                s.lastIndexed = pos;
+                s.indexCount = i + 1;
+            }
+            s.writePos = pos + FRAME_HEADER + length;
+            s.writeOffset = offset + 1;
+            return offset;
+        }
+
+        // Makes the written frames visible to readers: end first, then nextOffset, which readers read first
+        void publish() {
+            Segment s = active;
+            s.end = s.writePos;
+            s.nextOffset = s.writeOffset;
+        }
+
+        private void roll() throws IOException {
+            publish();
+            Segment old = active;
+            old.log.force();
+            old.index.force();
+            Files.setLastModifiedTime(old.logFile, FileTime.fromMillis(System.currentTimeMillis()));
+            Segment next = new Segment(path, old.writeOffset, segmentBytes);
+            segments.put(next.baseOffset, next);
+            active = next;
+            syncedTo = 0;
+        }
+    }
+
+    static final class Segment {
+        final long baseOffset;
+        final Path logFile;
+        final Path indexFile;
+        final FileChannel indexChannel;
+        final MappedByteBuffer log;
+        final MappedByteBuffer index;
+        volatile int end;          // bytes of published frames
+        volatile long nextOffset;  // offset after the last published frame
+        volatile int indexCount;
+        int writePos;              // the writer's view, ahead of end until published
+        long writeOffset;
+        int lastIndexed = -INDEX_INTERVAL;
+        volatile boolean deleted;  // by retention
+        private FileChannel channel; // guarded by this
+        volatile boolean closed;
+
+        Segment(Path dir, long baseOffset, int segmentBytes) throws IOException {
+            this.baseOffset = baseOffset;
+            logFile = dir.resolve(String.format("%020d.log", baseOffset));
+            indexFile = dir.resolve(String.format("%020d.index", baseOffset));
+            channel = FileChannel.open(logFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            int size = (int) Math.max(channel.size(), segmentBytes); // an existing segment keeps its size
+            log = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            indexChannel = FileChannel.open(indexFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            index = indexChannel.map(FileChannel.MapMode.READ_WRITE, 0, (size / INDEX_INTERVAL + 2L) * INDEX_ENTRY);
+            nextOffset = writeOffset = baseOffset;
+        }
+
+        // Bytes of the valid frame holding offset at pos, or -1
+        int frameAt(int pos, long offset, CRC32C crc) {
+            if (pos > log.capacity() - FRAME_HEADER) {
+                return -1;
+            }
+            int length = log.getInt(pos + 4);
+            if (length < 0 || length > log.capacity() - pos - FRAME_HEADER || log.getLong(pos + 8) != offset) {
+                return -1;
+            }
+            crc.reset();
+            crc.update(log.slice(pos + 4, length + 12));
+            return (int) crc.getValue() == log.getInt(pos) ? FRAME_HEADER + length : -1;
+        }
+
+        /**
+         * Keeps the index entries that point at valid frames, then scans frames from the last of them.
+         * The last segment is zeroed after its end, so stale bytes can never pass for frames later.
+         */
+        void recover(boolean last, CRC32C crc) {
+            int count = 0, pos = 0, relative = 0;
+            for (int max = index.capacity() / INDEX_ENTRY; count < max; count++) {
+                int r = index.getInt(count * INDEX_ENTRY), p = index.getInt(count * INDEX_ENTRY + 4);
+                if (count > 0 && (p <= pos || r <= relative) || frameAt(p, baseOffset + r, crc) < 0) {
+                    break;
+                }
+                pos = p;
+                relative = r;
+            }
+            long offset = baseOffset + relative;
+            for (int frame; (frame = frameAt(pos, offset, crc)) > 0; ) {
+                pos += frame;
+                offset++;
+            }
+            indexCount = count;
+            lastIndexed = count > 0 ? index.getInt((count - 1) * INDEX_ENTRY + 4) : -INDEX_INTERVAL;
+            end = writePos = pos;
+            nextOffset = writeOffset = offset;
+            if (last) {
+                for (int p = pos; p < log.capacity(); p++) {
+                    if (log.get(p) != 0) {
+                        log.put(p, (byte) 0);
+                    }
+                }
+                for (int p = count * INDEX_ENTRY; p < index.capacity(); p++) {
+                    if (index.get(p) != 0) {
+                        index.put(p, (byte) 0);
+                    }
+                }
+            }
+        }
+
+        // Position of the frame holding a published offset: binary search in the index, then a short scan
+        int position(long offset) {
+            int target = (int) (offset - baseOffset);
+            int lo = 0, hi = indexCount - 1, pos = 0, at = 0;
+            while (lo <= hi) {
+                int mid = (lo + hi) >>> 1;
+                int r = index.getInt(mid * INDEX_ENTRY);
+                if (r <= target) {
+                    at = r;
+                    pos = index.getInt(mid * INDEX_ENTRY + 4);
+                    lo = mid + 1;
+                } else {
+                    hi = mid - 1;
+                }
+            }
+            for (; at < target; at++) {
+                pos += FRAME_HEADER + log.getInt(pos + 4);
+            }
+            return pos;
+        }
+
+        /**
+         * The channel for transferTo. Interrupting a thread inside FileChannel.transferTo closes the channel for every
+         * reader of the segment, so it is reopened here unless the segment was closed or deleted.
+         */
+        synchronized FileChannel channel() throws IOException {
+            if (!channel.isOpen() && !closed) {
+                channel = FileChannel.open(logFile, StandardOpenOption.READ);
+            }
+            return channel;
+        }
+
+        synchronized void close() throws IOException {
+            closed = true;
+            channel.close();
+            indexChannel.close();
+        }
+
+        // The mapping stays readable for readers still holding it, only transferTo needs the channel
+        void delete() throws IOException {
+            deleted = true; // before the channel closes, so a reader that finds it closed sees why
+            close();
+            Files.delete(logFile);
+            Files.delete(indexFile);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path dir = Files.createTempDirectory("log");
+        try (partitionedLog log = new partitionedLog(dir, 2, 1 << 16)) {
+            Producer producer = log.producer(1024);
+            for (int i = 0; i < 6; i++) {
+                producer.sendTo(i % 2, ("payment-" + i).getBytes(), 0, ("payment-" + i).length());
+            }
+            producer.flush();
+            log.sync();
+            Consumer consumer = log.consumer("listener");
+            consumer.poll(1 << 20, (partition, offset, payload) -> {
+                byte[] bytes = new byte[payload.remaining()];
+                payload.get(bytes);
+                System.out.println("partition " + partition + " offset " + offset + ": " + new String(bytes));
+            });
+            consumer.commit();
+        }
+        try (partitionedLog log = new partitionedLog(dir, 2, 1 << 16)) {
+            System.out.println("After restart: end offsets " + log.endOffset(0) + ", " + log.endOffset(1)
+                    + ", listener committed " + log.committed("listener", 0) + ", " + log.committed("listener", 1)); // 3, 3, 3, 3
+        }
+    }
+}
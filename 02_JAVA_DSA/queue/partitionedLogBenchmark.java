@@ -0,0 +1,147 @@
+package queue;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+/**
+ * Sustained produce and consume throughput of partitionedLog on local disk.
+ * - produce: one Producer batching records per partition, then flush and sync, so the rate includes the forces.
+ * - poll: a consumer group reading every record as a slice of the mapped segments.
+ * - transferTo: whole frames sent to /dev/null with FileChannel.transferTo.
+ * Records carry their sequence number, consumers check that each partition delivers them in increasing order.
+ * Then a consumer is interrupted inside transferTo, which closes the segment's shared channel: a second consumer has to
+ * keep going without rewinding, and the first has to be able to resume.
+ * Usage: java queue.partitionedLogBenchmark [megabytes] [record bytes] [partitions]
+ */
+public class partitionedLogBenchmark {
+    public static void main(String[] args) throws IOException, InterruptedException {
+        long megabytes = args.length > 0 ? Long.parseLong(args[0]) : 1024;
+        int recordBytes = args.length > 1 ? Integer.parseInt(args[1]) : 1024;
+        int partitionCount = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+        long records = (megabytes << 20) / recordBytes;
+        Path dir = Files.createTempDirectory("plog");
+        System.out.println(records + " records of " + recordBytes + " bytes over " + partitionCount + " partitions");
+        try (partitionedLog log = new partitionedLog(dir, partitionCount)) {
+            byte[] record = new byte[recordBytes];
+            partitionedLog.Producer producer = log.producer(256 << 10);
+            long start = System.nanoTime();
+            for (long i = 0; i < records; i++) {
+                for (int b = 0; b < 8; b++) {
+                    record[b] = (byte) (i >>> (56 - 8 * b)); // big-endian, as payload.getLong reads it
+                }
+                producer.send((int) i, record);
+            }
+            producer.flush();
+            log.sync();
+            report("produce + sync", records * recordBytes, System.nanoTime() - start);
+
+            for (int round = 0; round < 3; round++) {
+                boolean print = round == 2;
+                long[] last = new long[partitionCount];
+                Arrays.fill(last, -1);
+                partitionedLog.Consumer consumer = log.consumer("bench-" + round);
+                start = System.nanoTime();
+                long read = 0;
+                while (read < records) {
+                    read += consumer.poll(1 << 20, (partition, offset, payload) -> {
+                        long sequence = payload.getLong(0);
+                        if (sequence <= last[partition]) {
+                            throw new IllegalStateException("partition " + partition + " out of order at " + offset);
+                        }
+                        last[partition] = sequence;
+                    });
+                }
+                consumer.commit();
+                if (print) {
+                    report("poll (mapped slices)", records * recordBytes, System.nanoTime() - start);
+                }
+
+                partitionedLog.Consumer sender = log.consumer("sender-" + round);
+                try (FileChannel devNull = new FileOutputStream("/dev/null").getChannel()) {
+                    start = System.nanoTime();
+                    long sent = 0;
+                    while (sent < records) {
+                        for (int p = 0; p < partitionCount; p++) {
+                            sent += sender.transferTo(p, 4 << 20, devNull);
+                        }
+                    }
+                    if (print) {
+                        report("transferTo /dev/null", records * recordBytes, System.nanoTime() - start);
+                    }
+                }
+            }
+
+            interruptedTransfer(log);
+
+            int deleted = log.enforceRetention((megabytes << 20) / partitionCount / 4, Long.MAX_VALUE);
+            System.out.println("Retention to a quarter of the data deleted " + deleted + " segments, partition 0 now starts at "
+                    + log.startOffset(0) + " of " + log.endOffset(0));
+        }
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    private static void interruptedTransfer(partitionedLog log) throws IOException, InterruptedException {
+        long end = log.endOffset(0);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread interrupted = new Thread(() -> {
+            try (FileChannel devNull = new FileOutputStream("/dev/null").getChannel()) {
+                partitionedLog.Consumer consumer = log.consumer("interrupted");
+                while (true) {
+                    consumer.transferTo(0, 64 << 10, devNull);
+                    if (consumer.position(0) == end) {
+                        consumer.seek(0, 0);
+                    }
+                }
+            } catch (ClosedByInterruptException expected) {
+                // the consumer was interrupted mid-transfer, as intended
+            } catch (Throwable t) {
+                failure.set(t);
+            }
+        });
+        interrupted.start();
+        partitionedLog.Consumer consumer = log.consumer("alongside");
+        try (FileChannel devNull = new FileOutputStream("/dev/null").getChannel()) {
+            long sent = 0;
+            for (int pass = 0; pass < 3; pass++) {
+                consumer.seek(0, 0);
+                while (consumer.position(0) < end) {
+                    long before = consumer.position(0);
+                    sent += consumer.transferTo(0, 64 << 10, devNull);
+                    if (consumer.position(0) <= before) {
+                        throw new IllegalStateException("transferTo went from " + before + " to " + consumer.position(0));
+                    }
+                    if (pass == 0 && interrupted.isAlive()) {
+                        interrupted.interrupt();
+                    }
+                }
+            }
+            interrupted.join();
+            if (failure.get() != null) {
+                throw new IllegalStateException("interrupted consumer failed", failure.get());
+            }
+            if (sent != 3 * end) {
+                throw new IllegalStateException("sent " + sent + " records, expected " + 3 * end);
+            }
+            // The interrupted consumer's group resumes on a channel that was reopened
+            partitionedLog.Consumer resumed = log.consumer("interrupted");
+            while (resumed.position(0) < end) {
+                resumed.transferTo(0, 64 << 10, devNull);
+            }
+        }
+        System.out.println("Consumer interrupted inside transferTo: the others read on, " + end + " records of partition 0");
+    }
+
+    private static void report(String name, long bytes, long nanos) {
+        System.out.printf("  %-22s %8.1f ms %8.1f MB/s%n", name, nanos / 1e6, bytes / 1048576.0 / (nanos / 1e9));
+    }
+}
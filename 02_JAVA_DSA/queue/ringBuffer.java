@@ -0,0 +1,368 @@
+package queue;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Bounded primitive int ring buffer for handing values between threads, grown out of the circular array in queue.java.
+ * <p>
+ * Two modes:
+ * - SingleProducer: one producer thread and one consumer thread. No locks and no CAS, just padded head/tail counters.
+ * - MultiProducer: any number of producers and consumers. Slots are claimed with CAS (Vyukov bounded queue).
+ * <p>
+ * offer/poll never block, print or exit. put/take spin, yield or park according to the WaitStrategy.
+ */
+public abstract class ringBuffer {
+    /**
+     * Called while put/take cannot make progress. Returns the attempt counter for the next call.
+     */
+    public interface WaitStrategy {
+        int idle(int attempt);
+    }
+
+    public static final WaitStrategy SPIN = attempt -> {
+        Thread.onSpinWait();
+        return attempt + 1;
+    };
+
+    public static final WaitStrategy YIELD = attempt -> {
+        if (attempt < 100) {
+            Thread.onSpinWait();
+        } else {
+            Thread.yield();
+        }
+        return attempt + 1;
+    };
+
+    public static final WaitStrategy PARK = attempt -> {
+        if (attempt < 100) {
+            Thread.onSpinWait();
+        } else if (attempt < 200) {
+            Thread.yield();
+        } else {
+            LockSupport.parkNanos(1_000L);
+        }
+        return attempt + 1;
+    };
+
+    // pollWord() result when there is nothing to read, outside the int range
+    static final long NONE = Long.MIN_VALUE;
+
+    final int[] buffer;
+    final int capacity;
+    final int mask;
+    private final WaitStrategy waitStrategy;
+
+    ringBuffer(int capacity, WaitStrategy waitStrategy) {
+        if (capacity < 2 || capacity > (1 << 30)) {
+            throw new IllegalArgumentException("capacity must be in [2, 2^30]: " + capacity);
+        }
+        this.capacity = Integer.highestOneBit(capacity - 1) << 1;
+        this.mask = this.capacity - 1;
+        this.buffer = new int[this.capacity];
+        this.waitStrategy = waitStrategy;
+    }
+
+    /**
+     * Adds x if there is room. Returns false when full.
+     */
+    public abstract boolean offer(int x);
+
+    abstract long pollWord();
+
+    public abstract int size();
+
+    /**
+     * Removes and returns the head, or emptyValue if the buffer is empty.
+     */
+    public int poll(int emptyValue) {
+        long word = pollWord();
+        return word == NONE ? emptyValue : (int) word;
+    }
+
+    /**
+     * Moves up to dst.length values into dst and returns how many were moved.
+     */
+    public int drainTo(int[] dst) {
+        return drainTo(dst, 0, dst.length);
+    }
+
+    public int drainTo(int[] dst, int offset, int length) {
+        int n = 0;
+        while (n < length) {
+            long word = pollWord();
+            if (word == NONE) {
+                break;
+            }
+            dst[offset + n++] = (int) word;
+        }
+        return n;
+    }
+
+    /**
+     * Offers src values in order until the buffer is full. Returns how many were accepted.
+     */
+    public int offerAll(int[] src) {
+        return offerAll(src, 0, src.length);
+    }
+
+    public int offerAll(int[] src, int offset, int length) {
+        int n = 0;
+        while (n < length && offer(src[offset + n])) {
+            n++;
+        }
+        return n;
+    }
+
+    /**
+     * Blocking add, waits with the configured WaitStrategy while full.
+     */
+    public void put(int x) {
+        int attempt = 0;
+        while (!offer(x)) {
+            attempt = waitStrategy.idle(attempt);
+        }
+    }
+
+    /**
+     * Blocking remove, waits with the configured WaitStrategy while empty.
+     */
+    public int take() {
+        int attempt = 0;
+        long word;
+        while ((word = pollWord()) == NONE) {
+            attempt = waitStrategy.idle(attempt);
+        }
+        return (int) word;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public boolean isFull() {
+        return size() >= capacity;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    // Padding around a counter so the producer and consumer counters never share a cache line
+    static class LeftPadding {
+        long p01, p02, p03, p04, p05, p06, p07;
+    }
+
+    static class SequenceValue extends LeftPadding {
+        volatile long value;
+        // Owner-thread cache of the other side's counter, kept on the owner's cache line
+        long cached;
+    }
+
+    static final class Sequence extends SequenceValue {
+        long p11, p12, p13, p14, p15, p16, p17;
+
+        private static final VarHandle VALUE;
+
+        static {
+            try {
+                VALUE = MethodHandles.lookup().findVarHandle(SequenceValue.class, "value", long.class);
+            } catch (ReflectiveOperationException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+
+        long getPlain() {
+            return (long) VALUE.get(this);
+        }
+
+        long getAcquire() {
+            return (long) VALUE.getAcquire(this);
+        }
+
+        void setRelease(long v) {
+            VALUE.setRelease(this, v);
+        }
+
+        boolean compareAndSet(long expected, long v) {
+            return VALUE.compareAndSet(this, expected, v);
+        }
+    }
+
+    /**
+     * One producer thread, one consumer thread.
+     */
+    public static final class SingleProducer extends ringBuffer {
+        private final Sequence tail = new Sequence(); // written by the producer, cached = last seen head
+        private final Sequence head = new Sequence(); // written by the consumer, cached = last seen tail
+
+        public SingleProducer(int capacity) {
+            this(capacity, YIELD);
+        }
+
+        public SingleProducer(int capacity, WaitStrategy waitStrategy) {
+            super(capacity, waitStrategy);
+        }
+
+        @Override
+        public boolean offer(int x) {
+            long t = tail.getPlain();
+            if (t - tail.cached >= capacity) {
+                tail.cached = head.getAcquire();
+                if (t - tail.cached >= capacity) {
+                    return false;
+                }
+            }
+            buffer[(int) t & mask] = x;
+            tail.setRelease(t + 1);
+            return true;
+        }
+
+        @Override
+        long pollWord() {
+            long h = head.getPlain();
+            if (h >= head.cached) {
+                head.cached = tail.getAcquire();
+                if (h >= head.cached) {
+                    return NONE;
+                }
+            }
+            int x = buffer[(int) h & mask];
+            head.setRelease(h + 1);
+            return x;
+        }
+
+        @Override
+        public int drainTo(int[] dst, int offset, int length) {
+            long h = head.getPlain();
+            long available = tail.getAcquire() - h;
+            head.cached = h + available;
+            int n = (int) Math.min(available, length);
+            if (n == 0) {
+                return 0;
+            }
+            // At most two arraycopy calls: up to the end of the buffer, then from index 0
+            int from = (int) h & mask;
+            int first = Math.min(n, capacity - from);
+            System.arraycopy(buffer, from, dst, offset, first);
+            System.arraycopy(buffer, 0, dst, offset + first, n - first);
+            head.setRelease(h + n);
+            return n;
+        }
+
+        @Override
+        public int offerAll(int[] src, int offset, int length) {
+            long t = tail.getPlain();
+            long free = capacity - (t - head.getAcquire());
+            int n = (int) Math.min(free, length);
+            if (n == 0) {
+                return 0;
+            }
+            int to = (int) t & mask;
+            int first = Math.min(n, capacity - to);
+            System.arraycopy(src, offset, buffer, to, first);
+            System.arraycopy(src, offset + first, buffer, 0, n - first);
+            tail.setRelease(t + n);
+            return n;
+        }
+
+        @Override
+        public int size() {
+            long h = head.getAcquire();
+            return (int) Math.max(0, Math.min(capacity, tail.getAcquire() - h));
+        }
+    }
+
+    /**
+     * Any number of producer and consumer threads.
+     * Each slot has a sequence number telling whether it is ready to be written (seq == pos) or read (seq == pos + 1).
+     */
+    public static final class MultiProducer extends ringBuffer {
+        private static final VarHandle SEQUENCES = MethodHandles.arrayElementVarHandle(long[].class);
+
+        private final long[] sequences;
+        private final Sequence tail = new Sequence();
+        private final Sequence head = new Sequence();
+
+        public MultiProducer(int capacity) {
+            this(capacity, YIELD);
+        }
+
+        public MultiProducer(int capacity, WaitStrategy waitStrategy) {
+            super(capacity, waitStrategy);
+            sequences = new long[this.capacity];
+            for (int i = 0; i < this.capacity; i++) {
+                sequences[i] = i;
+            }
+            VarHandle.releaseFence();
+        }
+
+        @Override
+        public boolean offer(int x) {
+            long pos = tail.getAcquire();
+            while (true) {
+                int index = (int) pos & mask;
+                long seq = (long) SEQUENCES.getAcquire(sequences, index);
+                long diff = seq - pos;
+                if (diff == 0) {
+                    if (tail.compareAndSet(pos, pos + 1)) {
+                        buffer[index] = x;
+                        SEQUENCES.setRelease(sequences, index, pos + 1);
+                        return true;
+                    }
+                    pos = tail.getAcquire();
+                } else if (diff < 0) {
+                    return false; // the slot still holds a value from the previous lap
+                } else {
+                    pos = tail.getAcquire();
+                }
+            }
+        }
+
+        @Override
+        long pollWord() {
+            long pos = head.getAcquire();
+            while (true) {
+                int index = (int) pos & mask;
+                long seq = (long) SEQUENCES.getAcquire(sequences, index);
+                long diff = seq - (pos + 1);
+                if (diff == 0) {
+                    if (head.compareAndSet(pos, pos + 1)) {
+                        int x = buffer[index];
+                        SEQUENCES.setRelease(sequences, index, pos + capacity);
+                        return x;
+                    }
+                    pos = head.getAcquire();
+                } else if (diff < 0) {
+                    return NONE; // nothing published in this slot yet
+                } else {
+                    pos = head.getAcquire();
+                }
+            }
+        }
+
+        @Override
+        public int size() {
+            long h = head.getAcquire();
+            return (int) Math.max(0, Math.min(capacity, tail.getAcquire() - h));
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        ringBuffer ring = new SingleProducer(8);
+        Thread producer = new Thread(() -> {
+            for (int i = 1; i <= 20; i++) {
+                ring.put(i);
+            }
+        });
+        producer.start();
+        long sum = 0;
+        for (int i = 0; i < 20; i++) {
+            sum += ring.take();
+        }
+        producer.join();
+        System.out.println("Sum of 1..20 through the ring: " + sum); // 210
+        System.out.println("Poll on empty ring: " + ring.poll(-1)); // -1
+    }
+}
@@ -0,0 +1,177 @@
+package queue;
+
+import java.util.LinkedList;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * Hands N ints from producer threads to consumer threads and reports values per second for:
+ * ringBuffer.SingleProducer, ringBuffer.MultiProducer, ArrayBlockingQueue and the LinkedList queue from queue_lib
+ * (guarded by synchronized, since LinkedList is not thread-safe).
+ * Usage: java queue.ringBufferBenchmark [values]
+ */
+public class ringBufferBenchmark {
+    private interface Channel {
+        void put(int x) throws InterruptedException;
+
+        int take() throws InterruptedException;
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+        int capacity = 1024;
+
+        for (int round = 0; round < 2; round++) {
+            boolean print = round == 1; // first round is warm-up
+            run(print, "ringBuffer.SingleProducer 1p/1c", n, 1, ringChannel(new ringBuffer.SingleProducer(capacity)));
+            run(print, "ringBuffer.MultiProducer  1p/1c", n, 1, ringChannel(new ringBuffer.MultiProducer(capacity)));
+            run(print, "ringBuffer.MultiProducer  2p/2c", n, 2, ringChannel(new ringBuffer.MultiProducer(capacity)));
+            run(print, "ArrayBlockingQueue        1p/1c", n, 1, blockingChannel(new ArrayBlockingQueue<>(capacity)));
+            run(print, "ArrayBlockingQueue        2p/2c", n, 2, blockingChannel(new ArrayBlockingQueue<>(capacity)));
+            run(print, "LinkedList (queue_lib)    1p/1c", n, 1, linkedListChannel(new LinkedList<>(), capacity));
+        }
+
+        // Batch hand-off: drainTo/offerAll move many values per counter update
+        ringBuffer ring = new ringBuffer.SingleProducer(capacity);
+        int[] batch = new int[256];
+        long start = System.nanoTime();
+        Thread producer = new Thread(() -> {
+            int[] src = new int[256];
+            int sent = 0;
+            while (sent < n) {
+                int len = Math.min(src.length, n - sent);
+                for (int i = 0; i < len; i++) {
+                    src[i] = sent + i;
+                }
+                int off = 0;
+                while (off < len) {
+                    int accepted = ring.offerAll(src, off, len - off);
+                    if (accepted == 0) {
+                        Thread.yield();
+                    }
+                    off += accepted;
+                }
+                sent += len;
+            }
+        });
+        producer.start();
+        int received = 0;
+        long sum = 0;
+        while (received < n) {
+            int got = ring.drainTo(batch);
+            if (got == 0) {
+                Thread.yield();
+            }
+            for (int i = 0; i < got; i++) {
+                sum += batch[i];
+            }
+            received += got;
+        }
+        producer.join();
+        if (sum != (long) n * (n - 1) / 2) {
+            throw new IllegalStateException("batched hand-off lost values: " + sum);
+        }
+        report("ringBuffer.SingleProducer batched 256", n, System.nanoTime() - start);
+    }
+
+    private static Channel ringChannel(ringBuffer ring) {
+        return new Channel() {
+            public void put(int x) {
+                ring.put(x);
+            }
+
+            public int take() {
+                return ring.take();
+            }
+        };
+    }
+
+    private static Channel blockingChannel(ArrayBlockingQueue<Integer> queue) {
+        return new Channel() {
+            public void put(int x) throws InterruptedException {
+                queue.put(x);
+            }
+
+            public int take() throws InterruptedException {
+                return queue.take();
+            }
+        };
+    }
+
+    private static Channel linkedListChannel(Queue<Integer> queue, int capacity) {
+        return new Channel() {
+            public void put(int x) throws InterruptedException {
+                synchronized (queue) {
+                    while (queue.size() >= capacity) {
+                        queue.wait();
+                    }
+                    queue.offer(x);
+                    queue.notifyAll();
+                }
+            }
+
+            public int take() throws InterruptedException {
+                synchronized (queue) {
+                    while (queue.isEmpty()) {
+                        queue.wait();
+                    }
+                    int x = queue.poll();
+                    queue.notifyAll();
+                    return x;
+                }
+            }
+        };
+    }
+
+    private static void run(boolean print, String name, int n, int pairs, Channel channel) throws InterruptedException {
+        int perThread = n / pairs;
+        Thread[] threads = new Thread[pairs * 2];
+        long[] sums = new long[pairs];
+        for (int p = 0; p < pairs; p++) {
+            int id = p;
+            threads[p] = new Thread(() -> {
+                try {
+                    for (int i = 0; i < perThread; i++) {
+                        channel.put(i);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            threads[pairs + p] = new Thread(() -> {
+                long sum = 0;
+                try {
+                    for (int i = 0; i < perThread; i++) {
+                        sum += channel.take();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                sums[id] = sum;
+            });
+        }
+        long start = System.nanoTime();
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        long nanos = System.nanoTime() - start;
+        long total = 0;
+        for (long sum : sums) {
+            total += sum;
+        }
+        long expected = (long) pairs * perThread * (perThread - 1L) / 2;
+        if (total != expected) {
+            throw new IllegalStateException(name + " lost values: " + total + " != " + expected);
+        }
+        if (print) {
+            report(name, perThread * pairs, nanos);
+        }
+    }
+
+    private static void report(String name, long values, long nanos) {
+        System.out.printf("%-40s %,15.0f values/s%n", name, values / (nanos / 1e9));
+    }
+}
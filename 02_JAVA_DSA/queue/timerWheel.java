@@ -0,0 +1,271 @@
+package queue;
+
+import java.util.Arrays;
+
+/**
+ * Hierarchical hashed timer wheel: O(1) schedule and cancel for millions of pending timeouts
+ * (interest accruals, payment retries), about 28 bytes per timer.
+ * <p>
+ * Approach:
+ * - Time is cut into ticks. Eleven levels of 64 slots each cover the whole long range: level L slot s holds the timers
+ *   whose deadline tick agrees with the current tick above bit 6 * (L + 1) and has s as its L-th 6-bit digit.
+ *   The level is found with one numberOfLeadingZeros on deadline ^ current.
+ * - Each slot is a doubly linked list over primitive arrays (deadline, payload, next, prev, generation), so cancel
+ *   unlinks in O(1). A list head stores its slot as a negative prev. There is no object per timer.
+ * - advance() walks the ticks. When the tick crosses a digit of level L, that slot cascades down into the lower levels,
+ *   then the level-0 slot of the tick expires. A 64-bit occupancy word per level lets it skip empty stretches.
+ * - A handle is the entry index plus a generation, so cancelling a timer that already fired or was cancelled is a no-op.
+ * - Timers never fire early: a deadline is rounded up to the next tick, and fires at most one tick after it.
+ * Not thread-safe: one thread schedules, cancels and advances, as in an event loop.
+ */
+public class timerWheel {
+    public interface ExpiryHandler {
+        /**
+         * Called for each expired timer. The handler may schedule and cancel timers.
+         */
+        void expired(long handle, long payload);
+    }
+
+    private static final int NIL = -1;
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int LEVELS = 11;
+
+    private final long tickNanos;
+    private final long originNanos;
+    private long currentTick; // every tick up to this one has been processed
+    private final int[] heads = new int[LEVELS * SLOTS];
+    private final long[] occupied = new long[LEVELS];
+
+    private long[] deadlines; // in ticks
+    private long[] payloads;
+    private int[] next;
+    private int[] prev;       // -2 - slot for the head of a slot list
+    private int[] generations;
+    private int freeHead = NIL;
+    private int allocated;
+    private int size;
+
+    /**
+     * @param tickNanos   resolution of the wheel
+     * @param originNanos time of tick 0, usually System.nanoTime() at creation
+     */
+    public timerWheel(long tickNanos, long originNanos, int initialCapacity) {
+        if (tickNanos <= 0 || initialCapacity <= 0) {
+            throw new IllegalArgumentException("tickNanos and initialCapacity must be positive");
+        }
+        this.tickNanos = tickNanos;
+        this.originNanos = originNanos;
+        Arrays.fill(heads, NIL);
+        deadlines = new long[initialCapacity];
+        payloads = new long[initialCapacity];
+        next = new int[initialCapacity];
+        prev = new int[initialCapacity];
+        generations = new int[initialCapacity];
+    }
+
+    /**
+     * Schedules a timer for deadlineNanos (same clock as originNanos) and returns its handle.
+     * A deadline already passed fires on the next tick.
+     */
+    public long schedule(long deadlineNanos, long payload) {
+        // Ceiling division without adding tickNanos - 1, which overflows for deadlines near Long.MAX_VALUE
+        long elapsed = sinceOrigin(deadlineNanos);
+        long tick = Math.floorDiv(elapsed, tickNanos) + (Math.floorMod(elapsed, tickNanos) != 0 ? 1 : 0);
+        int e = allocate();
+        deadlines[e] = Math.max(tick, currentTick + 1);
+        payloads[e] = payload;
+        link(e);
+        size++;
+        return (long) generations[e] << 32 | e;
+    }
+
+    // nanos - originNanos, saturated at the ends of the long range instead of wrapping around
+    private long sinceOrigin(long nanos) {
+        try {
+            return Math.subtractExact(nanos, originNanos);
+        } catch (ArithmeticException e) {
+            return nanos > originNanos ? Long.MAX_VALUE : Long.MIN_VALUE;
+        }
+    }
+
+    /**
+     * Cancels the timer. Returns false if it already fired or was cancelled.
+     */
+    public boolean cancel(long handle) {
+        int e = (int) handle;
+        if (e < 0 || e >= allocated || generations[e] != (int) (handle >>> 32) || prev[e] == NIL) {
+            return false;
+        }
+        unlink(e);
+        free(e);
+        return true;
+    }
+
+    public boolean isScheduled(long handle) {
+        int e = (int) handle;
+        return e >= 0 && e < allocated && generations[e] == (int) (handle >>> 32) && prev[e] != NIL;
+    }
+
+    /**
+     * Processes every tick up to nowNanos, calling handler for each expired timer. Returns the number of expired timers.
+     */
+    public int advance(long nowNanos, ExpiryHandler handler) {
+        long target = Math.floorDiv(sinceOrigin(nowNanos), tickNanos);
+        int fired = 0;
+        while (currentTick < target) {
+            if (size == 0) {
+                currentTick = target;
+                break;
+            }
+            long t = currentTick + 1;
+            int lowest = lowestOccupiedLevel();
+            if (lowest > 0) {
+                // Nothing below level `lowest`: the next thing that can happen is its next digit boundary
+                long step = 1L << (SLOT_BITS * lowest);
+                long boundary = (t + step - 1) & -step;
+                if (boundary > target) {
+                    currentTick = target;
+                    break;
+                }
+                t = boundary;
+            }
+            currentTick = t;
+            for (int level = LEVELS - 1; level >= 1; level--) {
+                if ((t & ((1L << (SLOT_BITS * level)) - 1)) == 0) {
+                    int digit = (int) (t >>> (SLOT_BITS * level)) & (SLOTS - 1);
+                    if ((occupied[level] & (1L << digit)) != 0) {
+                        cascade(level, digit);
+                    }
+                }
+            }
+            fired += expire((int) t & (SLOTS - 1), handler);
+        }
+        return fired;
+    }
+
+    private int lowestOccupiedLevel() {
+        for (int level = 0; level < LEVELS; level++) {
+            if (occupied[level] != 0) {
+                return level;
+            }
+        }
+        return LEVELS;
+    }
+
+    private void cascade(int level, int digit) {
+        int slot = level * SLOTS + digit;
+        int e = heads[slot];
+        heads[slot] = NIL;
+        occupied[level] &= ~(1L << digit);
+        while (e != NIL) {
+            int n = next[e];
+            link(e); // lands in a lower level, relative to the current tick
+            e = n;
+        }
+    }
+
+    private int expire(int digit, ExpiryHandler handler) {
+        int fired = 0;
+        int e;
+        // Pop one at a time so the handler can cancel timers further down this same list
+        while ((e = heads[digit]) != NIL) {
+            long handle = (long) generations[e] << 32 | e;
+            long payload = payloads[e];
+            unlink(e);
+            free(e);
+            handler.expired(handle, payload);
+            fired++;
+        }
+        return fired;
+    }
+
+    private void link(int e) {
+        long deadline = deadlines[e];
+        int level = (63 - Long.numberOfLeadingZeros(deadline ^ currentTick)) / SLOT_BITS; // deadline == current: level 0
+        int digit = (int) (deadline >>> (SLOT_BITS * level)) & (SLOTS - 1);
+        int slot = level * SLOTS + digit;
+        int head = heads[slot];
+        next[e] = head;
+        prev[e] = -2 - slot;
+        if (head != NIL) {
+            prev[head] = e;
+        }
+        heads[slot] = e;
+        occupied[level] |= 1L << digit;
+    }
+
+    private void unlink(int e) {
+        int p = prev[e], n = next[e];
+        if (p >= 0) {
+            next[p] = n;
+        } else {
+            int slot = -2 - p;
+            heads[slot] = n;
+            if (n == NIL) {
+                occupied[slot / SLOTS] &= ~(1L << (slot & (SLOTS - 1)));
+            }
+        }
+        if (n != NIL) {
+            prev[n] = p;
+        }
+    }
+
+    private int allocate() {
+        if (freeHead != NIL) {
+            int e = freeHead;
+            freeHead = next[e];
+            return e;
+        }
+        if (allocated == deadlines.length) {
+            if (allocated == Integer.MAX_VALUE - 8) {
+                throw new IllegalStateException("timerWheel is full");
+            }
+            int capacity = (int) Math.min(Integer.MAX_VALUE - 8, allocated + (allocated >> 1) + 16L);
+            deadlines = Arrays.copyOf(deadlines, capacity);
+            payloads = Arrays.copyOf(payloads, capacity);
+            next = Arrays.copyOf(next, capacity);
+            prev = Arrays.copyOf(prev, capacity);
+            generations = Arrays.copyOf(generations, capacity);
+        }
+        return allocated++;
+    }
+
+    private void free(int e) {
+        generations[e]++;
+        prev[e] = NIL;
+        next[e] = freeHead;
+        freeHead = e;
+        size--;
+    }
+
+    /**
+     * Number of pending timers.
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public static void main(String[] args) {
+        long ms = 1_000_000L;
+        timerWheel wheel = new timerWheel(ms, 0, 16);
+        wheel.schedule(30 * ms, 1);              // payment retry
+        long interest = wheel.schedule(86_400_000 * ms, 2); // daily interest accrual
+        wheel.schedule(5 * ms, 3);
+        long cancelled = wheel.schedule(10 * ms, 4);
+        wheel.cancel(cancelled);
+        ExpiryHandler print = (handle, payload) -> System.out.println("  fired " + payload);
+        System.out.println("advance to 40 ms:");
+        wheel.advance(40 * ms, print);           // 3 then 1
+        System.out.println("pending " + wheel.size() + ", interest scheduled " + wheel.isScheduled(interest));
+        System.out.println("advance to one day:");
+        wheel.advance(86_400_000 * ms, print);   // 2
+        long never = wheel.schedule(Long.MAX_VALUE - 1000, 5); // far past the last tick that fits in a long of nanos
+        wheel.advance(86_400_010 * ms, print);   // nothing
+        System.out.println("far-future timer still scheduled " + wheel.isScheduled(never)); // true
+    }
+}
@@ -0,0 +1,261 @@
+package queue;
+
+import java.util.BitSet;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Schedule, cancel and expire throughput for pending timeouts, plus retained heap per timer:
+ * - timerWheel (1 ms ticks).
+ * - longHeap used as a timer queue: cancel only marks the id, the heap skips it when it comes out.
+ * - DelayQueue of Delayed objects. Its remove(Object) is a linear scan, so cancel is measured on a sample.
+ * - ScheduledThreadPoolExecutor with remove-on-cancel. It runs on the real clock, so its expire figure is for
+ *   tasks that are already due, queued while the worker is held and timed from its release until the last one has run.
+ * The others run on a virtual clock advanced 1 ms at a time over 10 s of deadlines. Half the timers are cancelled,
+ * like retries that are no longer needed.
+ * Usage: java -Xmx3g queue.timerWheelBenchmark [timers] [timers for the timerWheel-only run, 0 to skip]
+ */
+public class timerWheelBenchmark {
+    private static final long MS = 1_000_000L;
+    private static final long SPAN = 10_000 * MS;
+    private static volatile long virtualNow; // DelayQueue items measure their delay against it
+    private static volatile Object sink;
+
+    public static void main(String[] args) throws InterruptedException {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        int large = args.length > 1 ? Integer.parseInt(args[1]) : 20_000_000;
+        // Shared and kept reachable, so they are not part of any scheduler's measured heap
+        long[] deadlines = deadlines(n);
+        for (int round = 0; round < 2; round++) {
+            boolean print = round == 1;
+            if (print) {
+                System.out.println(n + " timers over 10 s, half cancelled");
+            }
+            runWheel(deadlines, print);
+            runHeap(deadlines, print);
+            runDelayQueue(deadlines, print);
+            runExecutor(deadlines, print);
+        }
+        sink = deadlines;
+        if (large > 0) {
+            System.out.println(large + " timers, timerWheel only");
+            deadlines = deadlines(large);
+            runWheel(deadlines, true);
+            sink = deadlines;
+        }
+    }
+
+    private static long[] deadlines(int n) {
+        Random random = new Random(11);
+        long[] deadlines = new long[n];
+        for (int i = 0; i < n; i++) {
+            deadlines[i] = MS + (long) (random.nextDouble() * SPAN);
+        }
+        return deadlines;
+    }
+
+    private static void runWheel(long[] deadlines, boolean print) {
+        int n = deadlines.length;
+        long[] handles = new long[n];
+        long before = usedHeap();
+        timerWheel wheel = new timerWheel(MS, 0, n);
+        long start = System.nanoTime();
+        for (int i = 0; i < n; i++) {
+            handles[i] = wheel.schedule(deadlines[i], i);
+        }
+        long schedule = System.nanoTime() - start;
+        long bytes = usedHeap() - before;
+        start = System.nanoTime();
+        for (int i = 0; i < n; i += 2) {
+            wheel.cancel(handles[i]);
+        }
+        long cancel = System.nanoTime() - start;
+        int[] fired = new int[1];
+        start = System.nanoTime();
+        for (long now = 0; now <= SPAN + 2 * MS; now += MS) {
+            fired[0] += wheel.advance(now, (handle, payload) -> { });
+        }
+        long expire = System.nanoTime() - start;
+        check(fired[0], n / 2);
+        if (print) {
+            report("timerWheel", n, schedule, cancel, n / 2, expire, bytes);
+        }
+        sink = wheel;
+    }
+
+    private static void runHeap(long[] deadlines, boolean print) {
+        int n = deadlines.length;
+        long before = usedHeap();
+        longHeap heap = new longHeap(4, n);
+        BitSet cancelled = new BitSet(n);
+        long start = System.nanoTime();
+        for (int i = 0; i < n; i++) {
+            heap.add(deadlines[i], i);
+        }
+        long schedule = System.nanoTime() - start;
+        long bytes = usedHeap() - before;
+        start = System.nanoTime();
+        for (int i = 0; i < n; i += 2) {
+            cancelled.set(i);
+        }
+        long cancel = System.nanoTime() - start;
+        int fired = 0;
+        start = System.nanoTime();
+        for (long now = 0; now <= SPAN + 2 * MS; now += MS) {
+            while (!heap.isEmpty() && heap.peekPriority() <= now) {
+                int id = heap.poll();
+                if (!cancelled.get(id)) {
+                    fired++;
+                }
+            }
+        }
+        long expire = System.nanoTime() - start;
+        check(fired, n / 2);
+        if (print) {
+            report("longHeap (lazy cancel)", n, schedule, cancel, n / 2, expire, bytes);
+        }
+        sink = heap;
+    }
+
+    private static final class Timeout implements Delayed {
+        final long deadline;
+        final int id;
+
+        Timeout(long deadline, int id) {
+            this.deadline = deadline;
+            this.id = id;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(deadline - virtualNow, TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(deadline, ((Timeout) other).deadline);
+        }
+    }
+
+    private static void runDelayQueue(long[] deadlines, boolean print) {
+        int n = deadlines.length;
+        Timeout[] timeouts = new Timeout[n]; // the caller's references, kept for cancel
+        virtualNow = 0;
+        long before = usedHeap();
+        DelayQueue<Timeout> queue = new DelayQueue<>();
+        long start = System.nanoTime();
+        for (int i = 0; i < n; i++) {
+            timeouts[i] = new Timeout(deadlines[i], i);
+            queue.add(timeouts[i]);
+        }
+        long schedule = System.nanoTime() - start;
+        long bytes = usedHeap() - before;
+        // remove(Object) scans the whole queue: time a sample, cancel the rest by marking like the heap
+        int sample = Math.min(1000, n / 2);
+        start = System.nanoTime();
+        for (int i = 0; i < 2 * sample; i += 2) {
+            queue.remove(timeouts[i]);
+        }
+        long cancel = System.nanoTime() - start;
+        BitSet cancelled = new BitSet(n);
+        for (int i = 2 * sample; i < n; i += 2) {
+            cancelled.set(i);
+        }
+        int fired = 0;
+        start = System.nanoTime();
+        for (long now = 0; now <= SPAN + 2 * MS; now += MS) {
+            virtualNow = now;
+            Timeout t;
+            while ((t = queue.poll()) != null) {
+                if (!cancelled.get(t.id)) {
+                    fired++;
+                }
+            }
+        }
+        long expire = System.nanoTime() - start;
+        check(fired, n / 2);
+        if (print) {
+            report("DelayQueue", n, schedule, cancel, sample, expire, bytes);
+        }
+        sink = timeouts;
+    }
+
+    private static void runExecutor(long[] deadlines, boolean print) throws InterruptedException {
+        int n = deadlines.length;
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1);
+        executor.setRemoveOnCancelPolicy(true);
+        AtomicInteger ran = new AtomicInteger();
+        Runnable task = ran::incrementAndGet;
+        ScheduledFuture<?>[] futures = new ScheduledFuture<?>[n];
+        long before = usedHeap();
+        long start = System.nanoTime();
+        for (int i = 0; i < n; i++) {
+            // a minute later than the others so none runs while schedule and cancel are timed
+            futures[i] = executor.schedule(task, deadlines[i] + 60_000 * MS, TimeUnit.NANOSECONDS);
+        }
+        long schedule = System.nanoTime() - start;
+        long bytes = usedHeap() - before;
+        start = System.nanoTime();
+        for (int i = 0; i < n; i += 2) {
+            futures[i].cancel(false);
+        }
+        long cancel = System.nanoTime() - start;
+        executor.shutdownNow();
+        executor.awaitTermination(1, TimeUnit.MINUTES);
+        futures = null;
+
+        // Expire: the same number of tasks, all due right away. The worker is held on a gate while they are queued,
+        // so none runs before the clock starts, and the last task to run stops the clock.
+        executor = new ScheduledThreadPoolExecutor(1);
+        int due = n / 2;
+        CountDownLatch held = new CountDownLatch(1);
+        CountDownLatch gate = new CountDownLatch(1);
+        CountDownLatch expired = new CountDownLatch(due);
+        executor.execute(() -> {
+            held.countDown();
+            try {
+                gate.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        held.await();
+        Runnable countDown = expired::countDown;
+        for (int i = 0; i < due; i++) {
+            executor.schedule(countDown, -1, TimeUnit.NANOSECONDS);
+        }
+        start = System.nanoTime();
+        gate.countDown();
+        expired.await();
+        long expire = System.nanoTime() - start;
+        executor.shutdown();
+        if (print) {
+            report("ScheduledThreadPoolExec", n, schedule, cancel, n / 2, expire, bytes);
+        }
+    }
+
+    private static void report(String name, int n, long schedule, long cancel, int cancelled, long expire, long bytes) {
+        System.out.printf("  %-24s schedule %7.1f ns  cancel %9.1f ns  expire %7.1f ns/timer  %6.1f bytes/timer%n",
+                name, (double) schedule / n, (double) cancel / cancelled, (double) expire / (n / 2), (double) bytes / n);
+    }
+
+    private static void check(int fired, int expected) {
+        if (fired != expected) {
+            throw new IllegalStateException("fired " + fired + ", expected " + expected);
+        }
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,132 @@
+package queue;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Chase-Lev work-stealing deque: one owner thread pushes and pops at the bottom (LIFO), any thread steals from the top (FIFO).
+ * <p>
+ * - The owner never takes a lock and only uses a CAS when it competes with thieves for the last element.
+ * - Thieves claim the top element with one CAS on top. A failed CAS means another thread got it: steal returns null.
+ * - Elements sit in a circular array indexed by ever-increasing top/bottom counters. The owner doubles the array when full,
+ *   copying the live range. Thieves may still read the old array, which keeps the same elements at the same indexes.
+ * - top and bottom are volatile, so the fences of the weak-memory version (Le et al., 2013) come from the Java memory model:
+ *   an element is written before bottom is published, and read after bottom is read.
+ */
+public class workStealingDeque<E> {
+    private static final VarHandle TOP;
+
+    static {
+        try {
+            TOP = MethodHandles.lookup().findVarHandle(workStealingDeque.class, "top", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private volatile long top;
+    private volatile long bottom;
+    private volatile Object[] array;
+
+    public workStealingDeque() {
+        this(64);
+    }
+
+    public workStealingDeque(int initialCapacity) {
+        if (initialCapacity < 2 || initialCapacity > (1 << 30)) {
+            throw new IllegalArgumentException("initialCapacity must be in [2, 2^30]: " + initialCapacity);
+        }
+        array = new Object[Integer.highestOneBit(initialCapacity - 1) << 1];
+    }
+
+    /**
+     * Adds e at the bottom. Owner thread only.
+     */
+    public void push(E e) {
+        long b = bottom;
+        long t = top;
+        Object[] a = array;
+        if (b - t >= a.length) {
+            a = grow(a, t, b);
+        }
+        a[(int) b & (a.length - 1)] = e;
+        bottom = b + 1; // publishes the element to thieves
+    }
+
+    private Object[] grow(Object[] old, long t, long b) {
+        if (old.length == 1 << 30) {
+            throw new IllegalStateException("workStealingDeque is full");
+        }
+        Object[] a = new Object[old.length << 1];
+        for (long i = t; i < b; i++) {
+            a[(int) i & (a.length - 1)] = old[(int) i & (old.length - 1)];
+        }
+        array = a;
+        return a;
+    }
+
+    /**
+     * Removes and returns the bottom element (the most recently pushed), or null if empty. Owner thread only.
+     */
+    @SuppressWarnings("unchecked")
+    public E pop() {
+        long b = bottom - 1;
+        Object[] a = array;
+        bottom = b;
+        long t = top; // volatile write then volatile read: ordered, so a thief cannot miss the smaller bottom
+        if (t > b) {
+            bottom = b + 1; // was empty
+            return null;
+        }
+        int slot = (int) b & (a.length - 1);
+        Object e = a[slot];
+        if (t == b) {
+            // Last element: race the thieves for it
+            if (!TOP.compareAndSet(this, t, t + 1)) {
+                e = null;
+            }
+            bottom = b + 1;
+        } else {
+            a[slot] = null; // no thief can reach index b while top < b
+        }
+        return (E) e;
+    }
+
+    /**
+     * Removes and returns the top element (the oldest), or null if empty or another thread won the race. Any thread.
+     */
+    @SuppressWarnings("unchecked")
+    public E steal() {
+        long t = top;
+        long b = bottom;
+        if (t >= b) {
+            return null;
+        }
+        Object[] a = array;
+        Object e = a[(int) t & (a.length - 1)];
+        return TOP.compareAndSet(this, t, t + 1) ? (E) e : null;
+    }
+
+    /**
+     * Number of elements, only a snapshot while other threads work on the deque.
+     */
+    public int size() {
+        long n = bottom - top;
+        return n < 0 ? 0 : (int) n;
+    }
+
+    public boolean isEmpty() {
+        return bottom <= top;
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        workStealingDeque<Integer> deque = new workStealingDeque<>(2);
+        for (int i = 1; i <= 5; i++) {
+            deque.push(i);
+        }
+        Thread thief = new Thread(() -> System.out.println("stolen: " + deque.steal())); // 1, the oldest
+        thief.start();
+        thief.join();
+        System.out.println("popped: " + deque.pop() + ", size " + deque.size()); // 5, size 3
+    }
+}
@@ -0,0 +1,335 @@
+package queue;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Small fork/join scheduler on workStealingDeques, for splitting CPU-bound array work over the cores.
+ * <p>
+ * - Every worker owns a deque. fork() pushes onto the current worker's deque, the worker pops its own tasks LIFO
+ *   (the most recent, smallest and cache-warm first) and idle workers steal FIFO from the others (the oldest, biggest).
+ * - join() never just blocks: until the task is done the joining worker runs tasks from its own deque, then steals.
+ * - Tasks from outside the pool go through a shared submission queue, the caller waits until its task completes.
+ * - Idle workers spin, then yield, then park for up to a millisecond. fork() unparks one when any worker is parked,
+ *   the timeout covers a wake-up lost between the two.
+ */
+public class workStealingPool implements AutoCloseable {
+    /**
+     * A unit of work that may fork subtasks and join them, like RecursiveTask.
+     */
+    public abstract static class Task<V> {
+        private volatile boolean done;
+        private V result;
+        private Throwable failure;
+        private volatile boolean awaited; // a thread outside the pool waits on this task's monitor
+
+        protected abstract V compute();
+
+        /**
+         * Schedules this task on the current worker's deque. Only from code running in a workStealingPool.
+         */
+        public final Task<V> fork() {
+            Thread current = Thread.currentThread();
+            if (!(current instanceof Worker)) {
+                throw new IllegalStateException("fork() outside a workStealingPool worker, use invoke()");
+            }
+            Worker worker = (Worker) current;
+            worker.deque.push(this);
+            worker.pool.signal();
+            return this;
+        }
+
+        /**
+         * Waits for the result, running other tasks meanwhile when called from a worker.
+         */
+        public final V join() {
+            if (!done) {
+                Thread current = Thread.currentThread();
+                if (current instanceof Worker) {
+                    ((Worker) current).helpUntilDone(this);
+                } else {
+                    awaitDone();
+                }
+            }
+            if (failure != null) {
+                if (failure instanceof RuntimeException) {
+                    throw (RuntimeException) failure;
+                }
+                if (failure instanceof Error) {
+                    throw (Error) failure;
+                }
+                throw new IllegalStateException(failure);
+            }
+            return result;
+        }
+
+        public final boolean isDone() {
+            return done;
+        }
+
+        final void run() {
+            try {
+                result = compute();
+            } catch (Throwable t) {
+                failure = t;
+            }
+            complete();
+        }
+
+        final void fail(Throwable t) {
+            failure = t;
+            complete();
+        }
+
+        // awaited is set before done is read and done is set before awaited is read (both volatile), so either
+        // the waiter sees done or complete() sees the waiter and notifies under the monitor it waits on
+        private void complete() {
+            done = true;
+            if (awaited) {
+                synchronized (this) {
+                    notifyAll();
+                }
+            }
+        }
+
+        private synchronized void awaitDone() {
+            awaited = true;
+            boolean interrupted = false;
+            while (!done) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Leaf work on [from, to) of the range given to reduce.
+     */
+    public interface LongRange {
+        long apply(int from, int to);
+    }
+
+    private final Worker[] workers;
+    private final ConcurrentLinkedQueue<Task<?>> submissions = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger parked = new AtomicInteger();
+    private volatile boolean shutdown;
+
+    public workStealingPool() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public workStealingPool(int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("parallelism must be positive: " + parallelism);
+        }
+        workers = new Worker[parallelism];
+        for (int i = 0; i < parallelism; i++) {
+            workers[i] = new Worker(this, i);
+        }
+        for (Worker worker : workers) {
+            worker.start();
+        }
+    }
+
+    public int parallelism() {
+        return workers.length;
+    }
+
+    /**
+     * Runs the task in the pool and returns its result. From inside the pool the task runs right away on the caller.
+     */
+    public <V> V invoke(Task<V> task) {
+        if (Thread.currentThread() instanceof Worker) {
+            task.run();
+            return task.join();
+        }
+        if (shutdown) {
+            throw new IllegalStateException("workStealingPool is closed");
+        }
+        submissions.add(task);
+        if (shutdown) {
+            failSubmissions(); // close() may have drained the queue before the add
+        }
+        signal();
+        return task.join();
+    }
+
+    /**
+     * Sums leaf over [from, to), split in halves until a range is at most grain long.
+     */
+    public long reduce(int from, int to, int grain, LongRange leaf) {
+        if (grain <= 0) {
+            throw new IllegalArgumentException("grain must be positive: " + grain);
+        }
+        return invoke(new RangeTask(from, to, grain, leaf));
+    }
+
+    private static final class RangeTask extends Task<Long> {
+        private final int from, to, grain;
+        private final LongRange leaf;
+        private RangeTask next; // chains the forked halves for joining
+
+        RangeTask(int from, int to, int grain, LongRange leaf) {
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+            this.leaf = leaf;
+        }
+
+        @Override
+        protected Long compute() {
+            int lo = from, hi = to;
+            long sum = 0;
+            RangeTask forked = null;
+            // Fork the right halves, keep splitting the left one, then join the forks in reverse order
+            while (hi - lo > grain) {
+                int mid = (lo + hi) >>> 1;
+                RangeTask right = new RangeTask(mid, hi, grain, leaf);
+                right.next = forked;
+                forked = right;
+                right.fork();
+                hi = mid;
+            }
+            sum += leaf.apply(lo, hi);
+            for (RangeTask t = forked; t != null; t = t.next) {
+                sum += t.join();
+            }
+            return sum;
+        }
+    }
+
+    void signal() {
+        if (parked.get() > 0) {
+            for (Worker worker : workers) {
+                if (worker.parked) {
+                    LockSupport.unpark(worker);
+                    return;
+                }
+            }
+        }
+    }
+
+    private Task<?> steal(Worker thief) {
+        int n = workers.length;
+        int start = ThreadLocalRandom.current().nextInt(n);
+        for (int i = 0; i < n; i++) {
+            Worker victim = workers[(start + i) % n];
+            if (victim != thief) {
+                Task<?> task = victim.deque.steal();
+                if (task != null) {
+                    return task;
+                }
+            }
+        }
+        return submissions.poll();
+    }
+
+    /**
+     * Stops the workers once they finish the tasks they are running. Submitted tasks that no worker has taken yet are
+     * not run: their invoke() throws IllegalStateException.
+     */
+    @Override
+    public void close() {
+        shutdown = true;
+        failSubmissions();
+        for (Worker worker : workers) {
+            LockSupport.unpark(worker);
+        }
+    }
+
+    private void failSubmissions() {
+        Task<?> task;
+        while ((task = submissions.poll()) != null) {
+            task.fail(new IllegalStateException("workStealingPool is closed"));
+        }
+    }
+
+    private static final class Worker extends Thread {
+        final workStealingPool pool;
+        final workStealingDeque<Task<?>> deque = new workStealingDeque<>(256);
+        volatile boolean parked;
+
+        Worker(workStealingPool pool, int index) {
+            super("workStealingPool-" + index);
+            this.pool = pool;
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            int idle = 0;
+            while (!pool.shutdown) {
+                Task<?> task = deque.pop();
+                if (task == null) {
+                    task = pool.steal(this);
+                }
+                if (task != null) {
+                    task.run();
+                    idle = 0;
+                } else if (++idle < 64) {
+                    Thread.onSpinWait();
+                } else if (idle < 128) {
+                    Thread.yield();
+                } else {
+                    parked = true;
+                    pool.parked.incrementAndGet();
+                    if (deque.isEmpty() && pool.submissions.isEmpty()) {
+                        LockSupport.parkNanos(this, 1_000_000L);
+                    }
+                    pool.parked.decrementAndGet();
+                    parked = false;
+                }
+            }
+        }
+
+        void helpUntilDone(Task<?> awaited) {
+            int idle = 0;
+            while (!awaited.isDone()) {
+                Task<?> task = deque.pop();
+                if (task == null) {
+                    task = pool.steal(this);
+                }
+                if (task != null) {
+                    task.run();
+                    idle = 0;
+                } else if (++idle < 64) {
+                    Thread.onSpinWait();
+                } else {
+                    Thread.yield();
+                }
+            }
+        }
+    }
+
+    /**
+     * Parallel findMissingNumber: the sum of 1..n minus the sum of the array, the array sum split over the pool.
+     */
+    public static void main(String[] args) {
+        int n = 20_000_000;
+        int missing = 12_345_678;
+        int[] arr = new int[n - 1];
+        for (int i = 1, k = 0; i <= n; i++) {
+            if (i != missing) {
+                arr[k++] = i;
+            }
+        }
+        try (workStealingPool pool = new workStealingPool()) {
+            long sum = pool.reduce(0, arr.length, 1 << 14, (from, to) -> {
+                long s = 0;
+                for (int i = from; i < to; i++) {
+                    s += arr[i];
+                }
+                return s;
+            });
+            System.out.println("Missing number: " + ((long) n * (n + 1) / 2 - sum)); // 12345678
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package queue;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Fine-grained fork/join work on workStealingPool against ForkJoinPool.commonPool(), same parallelism.
+ * - fib: one task per call above a small cutoff, so almost all the time goes to fork, pop, steal and join.
+ * - sum: a findMissingNumber-style array summed in ranges of a few thousand ints.
+ * Usage: java queue.workStealingPoolBenchmark [fib n] [array length]
+ */
+public class workStealingPoolBenchmark {
+    private static final int FIB_CUTOFF = 12;
+    private static final int GRAIN = 4096;
+
+    public static void main(String[] args) {
+        int fibN = args.length > 0 ? Integer.parseInt(args[0]) : 34;
+        int length = args.length > 1 ? Integer.parseInt(args[1]) : 32_000_000;
+        int[] arr = new int[length];
+        for (int i = 0; i < length; i++) {
+            arr[i] = i + 1;
+        }
+        long expectedSum = (long) length * (length + 1) / 2;
+        long expectedFib = fib(fibN);
+        ForkJoinPool common = ForkJoinPool.commonPool();
+        System.out.println("parallelism " + common.getParallelism() + ", fib(" + fibN + ") with cutoff " + FIB_CUTOFF
+                + ", sum of " + length + " ints in ranges of " + GRAIN);
+
+        try (workStealingPool pool = new workStealingPool(common.getParallelism())) {
+            for (int round = 0; round < 5; round++) {
+                boolean print = round == 4;
+                long start = System.nanoTime();
+                check(pool.invoke(new PoolFib(fibN)), expectedFib);
+                long poolFib = System.nanoTime() - start;
+                start = System.nanoTime();
+                check(common.invoke(new CommonFib(fibN)), expectedFib);
+                long commonFib = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                check(pool.reduce(0, length, GRAIN, (from, to) -> sum(arr, from, to)), expectedSum);
+                long poolSum = System.nanoTime() - start;
+                start = System.nanoTime();
+                check(common.invoke(new CommonSum(arr, 0, length)), expectedSum);
+                long commonSum = System.nanoTime() - start;
+                if (print) {
+                    long fibTasks = tasks(fibN);
+                    System.out.printf("  fib  workStealingPool %8.1f ms (%5.1f ns/task)   commonPool %8.1f ms (%5.1f ns/task)%n",
+                            poolFib / 1e6, (double) poolFib / fibTasks, commonFib / 1e6, (double) commonFib / fibTasks);
+                    System.out.printf("  sum  workStealingPool %8.1f ms                     commonPool %8.1f ms%n",
+                            poolSum / 1e6, commonSum / 1e6);
+                }
+            }
+        }
+    }
+
+    private static long fib(int n) {
+        return n < 2 ? n : fib(n - 1) + fib(n - 2);
+    }
+
+    // Number of tasks a fib(n) run creates with the cutoff
+    private static long tasks(int n) {
+        return n <= FIB_CUTOFF ? 1 : 1 + tasks(n - 1) + tasks(n - 2);
+    }
+
+    private static long sum(int[] arr, int from, int to) {
+        long s = 0;
+        for (int i = from; i < to; i++) {
+            s += arr[i];
+        }
+        return s;
+    }
+
+    private static void check(long actual, long expected) {
+        if (actual != expected) {
+            throw new IllegalStateException("expected " + expected + " but got " + actual);
+        }
+    }
+
+    private static final class PoolFib extends workStealingPool.Task<Long> {
+        private final int n;
+
+        PoolFib(int n) {
+            this.n = n;
+        }
+
+        @Override
+        protected Long compute() {
+            if (n <= FIB_CUTOFF) {
+                return fib(n);
+            }
+            PoolFib left = new PoolFib(n - 1);
+            left.fork();
+            long right = new PoolFib(n - 2).compute();
+            return left.join() + right;
+        }
+    }
+
+    private static final class CommonFib extends RecursiveTask<Long> {
+        private static final long serialVersionUID = 1L;
+
+        private final int n;
+
+        CommonFib(int n) {
+            this.n = n;
+        }
+
+        @Override
+        protected Long compute() {
+            if (n <= FIB_CUTOFF) {
+                return fib(n);
+            }
+            CommonFib left = new CommonFib(n - 1);
+            left.fork();
+            long right = new CommonFib(n - 2).compute();
+            return left.join() + right;
+        }
+    }
+
+    private static final class CommonSum extends RecursiveTask<Long> {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] arr;
+        private final int from, to;
+
+        CommonSum(int[] arr, int from, int to) {
+            this.arr = arr;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Long compute() {
+            if (to - from <= GRAIN) {
+                return sum(arr, from, to);
+            }
+            int mid = (from + to) >>> 1;
+            CommonSum left = new CommonSum(arr, from, mid);
+            left.fork();
+            long right = new CommonSum(arr, mid, to).compute();
+            return left.join() + right;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package stack;
+
+import java.util.Arrays;
+import java.util.EmptyStackException;
+
+/**
+ * Growable stack of primitive chars backed by a char[].
+ * Unlike java.util.Stack<Character> there is no boxing and no synchronization, and pop does not shrink the array,
+ * so a reused stack stops allocating once it has reached its deepest nesting.
+ */
+public class charStack {
+    private char[] elements;
+    private int size;
+
+    public charStack() {
+        this(16);
+    }
+
+    public charStack(int initialCapacity) {
+        elements = new char[Math.max(1, initialCapacity)];
+    }
+
+    public void push(char c) {
+        if (size == elements.length) {
+            elements = Arrays.copyOf(elements, elements.length << 1);
+        }
+        elements[size++] = c;
+    }
+
+    public char pop() {
+        if (size == 0) {
+            throw new EmptyStackException();
+        }
+        return elements[--size];
+    }
+
+    public char peek() {
+        if (size == 0) {
+            throw new EmptyStackException();
+        }
+        return elements[size - 1];
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(elements[i]);
+        }
+        return sb.append(']').toString();
+    }
+
+    public static void main(String[] args) {
+        charStack stack = new charStack(2);
+        stack.push('a');
+        stack.push('b');
+        stack.push('c');
+        System.out.println("Stack: " + stack); // [a, b, c]
+        System.out.println("Pop: " + stack.pop()); // c
+        System.out.println("Peek: " + stack.peek()); // b
+        System.out.println("Size: " + stack.size()); // 2
+    }
+}
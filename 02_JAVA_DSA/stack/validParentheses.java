@@ -1,11 +1,16 @@
 package stack;
 
-import java.util.Stack;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 
 public class validParentheses {
     public static boolean isValid(String s){
-        Stack<Character> stack = new Stack<>();
-        for (char c: s.toCharArray()){
+        charStack stack = new charStack();
+        for (int i = 0; i < s.length(); i++){
+            char c = s.charAt(i);
             if (c == '(')
                 stack.push(')');
             else if (c == '[')
@@ -18,12 +23,157 @@ public class validParentheses {
         return stack.isEmpty();
     }
 
-    public static void main(String[] args) {
+    /**
+     * Resumable bracket checker for large inputs that arrive in chunks.
+     * <p>
+     * Only ( ) [ ] { } are checked, every other character is skipped, so it can run over JSON or DSL text.
+     * Feed chunks in order, then call finish(). Offsets count chars (or bytes for ByteBuffer input) from the first chunk.
+     * The only allocation after construction is the stack growing to the deepest nesting seen.
+     */
+    public static final class Validator {
+        private final charStack expected = new charStack();
+        private long offset;
+        private long mismatchOffset = -1;
+
+        /**
+         * Returns false as soon as a mismatch is found. Later calls are ignored until reset().
+         */
+        public boolean feed(CharSequence chunk) {
+            for (int i = 0, n = chunk.length(); i < n; i++) {
+                if (!accept(chunk.charAt(i))) {
+                    return false;
+                }
+            }
+            return mismatchOffset < 0;
+        }
+
+        public boolean feed(char[] chunk, int from, int length) {
+            for (int i = from, end = from + length; i < end; i++) {
+                if (!accept(chunk[i])) {
+                    return false;
+                }
+            }
+            return mismatchOffset < 0;
+        }
+
+        /**
+         * Consumes the remaining bytes of buffer. Brackets are ASCII and never appear inside a multi-byte UTF-8
+         * sequence, so UTF-8 and Latin-1 input can be scanned byte by byte.
+         */
+        public boolean feed(ByteBuffer buffer) {
+            int end = buffer.limit();
+            for (int i = buffer.position(); i < end; i++) {
+                if (!accept((char) (buffer.get(i) & 0xFF))) {
+                    buffer.position(i + 1);
+                    return false;
+                }
+            }
+            buffer.position(end);
+            return mismatchOffset < 0;
+        }
+
+        private boolean accept(char c) {
+            if (mismatchOffset >= 0) {
+                return false;
+            }
+            switch (c) {
+                case '(':
+                    expected.push(')');
+                    break;
+                case '[':
+                    expected.push(']');
+                    break;
+                case '{':
+                    expected.push('}');
+                    break;
+                case ')':
+                case ']':
+                case '}':
+                    if (expected.isEmpty() || expected.pop() != c) {
+                        mismatchOffset = offset;
+                        return false;
+                    }
+                    break;
+                default:
+                    break;
+            }
+            offset++;
+            return true;
+        }
+
+        /**
+         * Ends the input. Returns -1 if every bracket matched, otherwise the offset of the first mismatch
+         * (the total length if the input ended with brackets still open).
+         */
+        public long finish() {
+            if (mismatchOffset < 0 && !expected.isEmpty()) {
+                mismatchOffset = offset;
+            }
+            return mismatchOffset;
+        }
+
+        public long offset() {
+            return offset;
+        }
+
+        public int depth() {
+            return expected.size();
+        }
+
+        public void reset() {
+            expected.clear();
+            offset = 0;
+            mismatchOffset = -1;
+        }
+    }
+
+    /**
+     * Returns -1 if the brackets in s are balanced, otherwise the offset of the first mismatch.
+     */
+    public static long firstMismatch(CharSequence s) {
+        Validator validator = new Validator();
+        validator.feed(s);
+        return validator.finish();
+    }
+
+    public static long firstMismatch(ByteBuffer buffer) {
+        Validator validator = new Validator();
+        validator.feed(buffer);
+        return validator.finish();
+    }
+
+    /**
+     * Streams the reader through one reusable 8 KB buffer, so the input never has to fit in memory.
+     */
+    public static long firstMismatch(Reader reader) throws IOException {
+        Validator validator = new Validator();
+        char[] buffer = new char[8192];
+        int read;
+        while ((read = reader.read(buffer)) != -1) {
+            if (!validator.feed(buffer, 0, read)) {
+                break;
+            }
+        }
+        return validator.finish();
+    }
+
+    public static void main(String[] args) throws IOException {
         String s = "({[]})";
         if (isValid(s)) {
             System.out.println("The string is valid.");
         } else {
             System.out.println("The string is not valid.");
         }
+
+        // Same payload split across chunks
+        Validator validator = new Validator();
+        validator.feed("{\"a\": [1, 2, {\"b\": ");
+        validator.feed("(3)}], \"c\": [");
+        validator.feed("]}");
+        System.out.println("Chunked payload mismatch offset: " + validator.finish()); // -1
+
+        System.out.println("Reader mismatch offset: " + firstMismatch(new StringReader("[(])"))); // 2
+        ByteBuffer bytes = ByteBuffer.wrap("{[ é ]".getBytes(StandardCharsets.UTF_8));
+        System.out.println("ByteBuffer mismatch offset: " + firstMismatch(bytes)); // 7, still open at the end
     }
 }